@@ -7,6 +7,6 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 @RegisterRestClient(configKey = "pricing-service")
 @Path("/api/v1/pricing/securities")
 public interface PricingClient {
-    @GET Response getSecurities(@QueryParam("type") SecurityType type);
+    @GET Response getSecurities(@QueryParam("type") SecurityType type, @HeaderParam("If-None-Match") String ifNoneMatch);
     @GET @Path("/{symbol}") Response getSecurity(@PathParam("symbol") String symbol);
 }
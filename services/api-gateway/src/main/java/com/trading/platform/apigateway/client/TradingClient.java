@@ -6,6 +6,10 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 @RegisterRestClient(configKey = "trading-service")
 @Path("/api/v1/trades")
 public interface TradingClient {
-    @POST @Path("/buy") Response buy(Object request);
-    @POST @Path("/sell") Response sell(Object request);
+    @POST @Path("/buy") Response buy(Object request, @HeaderParam("Idempotency-Key") String idempotencyKey);
+    @POST @Path("/sell") Response sell(Object request, @HeaderParam("Idempotency-Key") String idempotencyKey);
+    @POST @Path("/batch") Response batch(Object request);
+    @POST @Path("/orders") Response placeOrder(Object request);
+    @GET @Path("/orders/{orderId}") Response getOrder(@PathParam("orderId") long orderId, @QueryParam("userId") java.util.UUID userId);
+    @DELETE @Path("/orders/{orderId}") Response cancelOrder(@PathParam("orderId") long orderId, @QueryParam("userId") java.util.UUID userId);
 }
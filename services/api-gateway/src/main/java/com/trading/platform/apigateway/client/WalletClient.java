@@ -8,7 +8,10 @@ import java.util.UUID;
 @Path("/api/v1/wallets")
 public interface WalletClient {
     @GET @Path("/{userId}/balances") Response getBalances(@PathParam("userId") UUID userId);
+    @POST @Path("/balances:query") Response queryBalances(Object request);
     @POST @Path("/{userId}/deposit") Response deposit(@PathParam("userId") UUID userId, Object request);
     @POST @Path("/{userId}/withdraw") Response withdraw(@PathParam("userId") UUID userId, Object request);
     @POST @Path("/{userId}/exchange") Response exchange(@PathParam("userId") UUID userId, Object request);
+    @POST @Path("/{userId}/exchange/quote") Response quoteExchange(@PathParam("userId") UUID userId, Object request);
+    @POST @Path("/{userId}/exchange/execute") Response executeExchange(@PathParam("userId") UUID userId, Object request);
 }
@@ -1,15 +1,21 @@
 package com.trading.platform.apigateway.resource;
 
 import com.trading.platform.apigateway.client.*;
+import com.trading.platform.apigateway.service.PriceStreamRelay;
 import com.trading.platform.domain.*;
+import io.smallrye.common.annotation.Blocking;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -25,6 +31,7 @@ public class GatewayResource {
     @Inject @RestClient TradingClient tradingClient;
     @Inject @RestClient PortfolioClient portfolioClient;
     @Inject @RestClient TransactionClient transactionClient;
+    @Inject PriceStreamRelay priceStreamRelay;
 
     @POST
     @Path("/signup")
@@ -51,6 +58,16 @@ public class GatewayResource {
         return walletClient.getBalances(userId);
     }
 
+    @POST
+    @Path("/wallets/balances:query")
+    public Response queryBalances(Map<String, Object> request) {
+        try {
+            return walletClient.queryBalances(request);
+        } catch (jakarta.ws.rs.WebApplicationException e) {
+            return e.getResponse();
+        }
+    }
+
     @POST
     @Path("/wallets/{userId}/deposit")
     public Response deposit(@PathParam("userId") UUID userId, WalletRequest request) {
@@ -69,10 +86,41 @@ public class GatewayResource {
         return walletClient.exchange(userId, request);
     }
 
+    @POST
+    @Path("/wallets/{userId}/exchange/quote")
+    public Response quoteExchange(@PathParam("userId") UUID userId, ExchangeRequest request) {
+        try {
+            return walletClient.quoteExchange(userId, request);
+        } catch (jakarta.ws.rs.WebApplicationException e) {
+            return e.getResponse();
+        }
+    }
+
+    @POST
+    @Path("/wallets/{userId}/exchange/execute")
+    public Response executeExchange(@PathParam("userId") UUID userId, Map<String, Object> request) {
+        try {
+            return walletClient.executeExchange(userId, request);
+        } catch (jakarta.ws.rs.WebApplicationException e) {
+            return e.getResponse();
+        }
+    }
+
     @GET
     @Path("/securities")
-    public Response getSecurities(@QueryParam("type") SecurityType type) {
-        return pricingClient.getSecurities(type);
+    public Response getSecurities(@QueryParam("type") SecurityType type, @HeaderParam("If-None-Match") String ifNoneMatch) {
+        // Passed through so polling clients get pricing-service's 304 for an unchanged list
+        return pricingClient.getSecurities(type, ifNoneMatch);
+    }
+
+    // Relays pricing-service's 'prices' events with their name and id; viewers of the same symbols share one upstream.
+    // Blocks until the upstream delivers its first event, so pricing-service's 404 or 400 reaches the viewer.
+    @GET
+    @Path("/securities/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Blocking
+    public void streamPrices(@QueryParam("symbols") String symbols, @Context SseEventSink sink, @Context Sse sse) {
+        priceStreamRelay.subscribe(symbols, sink, sse);
     }
 
     @GET
@@ -83,14 +131,38 @@ public class GatewayResource {
 
     @POST
     @Path("/trades/buy")
-    public Response buy(TradeRequest request) {
-        return tradingClient.buy(request);
+    public Response buy(TradeRequest request, @HeaderParam("Idempotency-Key") String idempotencyKey) {
+        return tradingClient.buy(request, idempotencyKey);
     }
 
     @POST
     @Path("/trades/sell")
-    public Response sell(TradeRequest request) {
-        return tradingClient.sell(request);
+    public Response sell(TradeRequest request, @HeaderParam("Idempotency-Key") String idempotencyKey) {
+        return tradingClient.sell(request, idempotencyKey);
+    }
+
+    @POST
+    @Path("/trades/batch")
+    public Response batch(List<TradeRequest> requests) {
+        return tradingClient.batch(requests);
+    }
+
+    @POST
+    @Path("/trades/orders")
+    public Response placeOrder(TradeRequest request) {
+        return tradingClient.placeOrder(request);
+    }
+
+    @GET
+    @Path("/trades/orders/{orderId}")
+    public Response getOrder(@PathParam("orderId") long orderId, @QueryParam("userId") UUID userId) {
+        return tradingClient.getOrder(orderId, userId);
+    }
+
+    @DELETE
+    @Path("/trades/orders/{orderId}")
+    public Response cancelOrder(@PathParam("orderId") long orderId, @QueryParam("userId") UUID userId) {
+        return tradingClient.cancelOrder(orderId, userId);
     }
 
     @GET
@@ -130,5 +202,7 @@ public class GatewayResource {
         public OrderType orderType;
         public BigDecimal amount;
         public BigDecimal quantity;
+        public TradeType tradeType;
+        public BigDecimal limitPrice;
     }
 }
@@ -0,0 +1,300 @@
+package com.trading.platform.apigateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.InboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import jakarta.ws.rs.sse.SseEventSource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Relays pricing-service's price stream to gateway viewers over one shared upstream
+ * connection per distinct symbol list, opened for the first viewer and closed after the
+ * last one leaves. Events keep pricing-service's name and id (the tick epoch).
+ * <p>
+ * The relay keeps the latest quote of every symbol it has seen, so a viewer joining an
+ * open upstream first gets all of them, as it would from pricing-service directly. A viewer
+ * whose previous event is still being written skips events; the symbols they changed are
+ * collected and sent with the latest quotes in its next event, so a slow viewer neither
+ * holds back the others nor receives stale intermediate prices.
+ * <p>
+ * A viewer is only accepted once its upstream has delivered its first event, so when
+ * pricing-service refuses the stream (unknown symbols, too many symbols) the viewer gets
+ * its status and error instead of an empty stream.
+ */
+@ApplicationScoped
+public class PriceStreamRelay {
+    private static final Logger LOG = LoggerFactory.getLogger(PriceStreamRelay.class);
+    private static final String PRICES = "prices";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "quarkus.rest-client.pricing-service.url")
+    String pricingServiceUrl;
+
+    @ConfigProperty(name = "gateway.price-stream.open-timeout")
+    Duration openTimeout;
+
+    private Client client;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        client = ClientBuilder.newClient();
+    }
+
+    /**
+     * @param symbols comma-separated symbols as the viewer sent them, or null for all listed securities
+     * @throws WebApplicationException with pricing-service's response if it refused the stream, 502 if the
+     *         upstream failed otherwise, or 504 if it sent nothing within gateway.price-stream.open-timeout
+     */
+    public void subscribe(String symbols, SseEventSink sink, Sse sse) {
+        String key = normalize(symbols);
+        Viewer viewer = new Viewer(sink, sse);
+        while (true) {
+            Upstream upstream = upstreams.computeIfAbsent(key, Upstream::new);
+            upstream.awaitOpen();
+            if (upstream.add(viewer)) {
+                return;
+            }
+            // Closed by its last viewer leaving in the meantime
+            upstreams.remove(key, upstream);
+        }
+    }
+
+    public int upstreamCount() {
+        return upstreams.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        upstreams.values().forEach(Upstream::close);
+        client.close();
+    }
+
+    // Same symbol set, same upstream, however the viewer spelled or ordered it
+    static String normalize(String symbols) {
+        if (symbols == null || symbols.isBlank()) {
+            return "";
+        }
+        return Arrays.stream(symbols.split(","))
+            .map(String::trim)
+            .filter(symbol -> !symbol.isEmpty())
+            .map(String::toUpperCase)
+            .distinct()
+            .sorted()
+            .collect(Collectors.joining(","));
+    }
+
+    private static WebApplicationException refused(Throwable failure) {
+        if (failure instanceof WebApplicationException e && e.getResponse() != null) {
+            // Forward the response from pricing-service
+            return new WebApplicationException(e.getResponse());
+        }
+        return new WebApplicationException(Response.status(Response.Status.BAD_GATEWAY)
+            .entity(Map.of("error", "Price stream unavailable"))
+            .build());
+    }
+
+    private final class Upstream {
+        private final String key;
+        private final SseEventSource source;
+        // Completed by the first event, failed if the upstream ends before it
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        // Latest quote JSON per symbol, in first-seen order
+        private final Map<String, String> quotes = new LinkedHashMap<>();
+        private final Set<Viewer> viewers = new HashSet<>();
+        private String lastId;
+        private boolean opened;
+        private boolean closed;
+
+        Upstream(String key) {
+            this.key = key;
+            WebTarget target = client.target(pricingServiceUrl).path("/api/v1/pricing/stream");
+            if (!key.isEmpty()) {
+                target = target.queryParam("symbols", key);
+            }
+            source = SseEventSource.target(target).reconnectingEvery(1, TimeUnit.SECONDS).build();
+            source.register(this::onEvent, this::onError, this::onComplete);
+        }
+
+        // Opens the upstream if nobody has yet; returns once it has delivered its first event
+        void awaitOpen() {
+            synchronized (this) {
+                if (!opened && !closed) {
+                    opened = true;
+                    source.open();
+                    LOG.info("Price stream upstream opened: symbols={}", key.isEmpty() ? "all" : key);
+                }
+            }
+            try {
+                ready.get(openTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw refused(e.getCause());
+            } catch (TimeoutException e) {
+                synchronized (this) {
+                    if (viewers.isEmpty()) {
+                        close();
+                    }
+                }
+                throw new WebApplicationException(Response.status(Response.Status.GATEWAY_TIMEOUT)
+                    .entity(Map.of("error", "Price stream did not open in time"))
+                    .build());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+            }
+        }
+
+        synchronized boolean add(Viewer viewer) {
+            if (closed) {
+                return false;
+            }
+            viewers.add(viewer);
+            viewer.pending.addAll(quotes.keySet());
+            deliver(viewer);
+            return true;
+        }
+
+        private synchronized void onEvent(InboundSseEvent event) {
+            if (closed) {
+                return;
+            }
+            ready.complete(null);
+            String data = event.readData();
+            if (!PRICES.equals(event.getName())) {
+                // Not a quote delta; passed on as is to whoever can take it now
+                for (Viewer viewer : Set.copyOf(viewers)) {
+                    if (!viewer.inFlight) {
+                        send(viewer, event.getName(), event.getId(), data);
+                    }
+                }
+                return;
+            }
+            Set<String> changed = new LinkedHashSet<>();
+            try {
+                for (JsonNode quote : objectMapper.readTree(data)) {
+                    String symbol = quote.path("symbol").asText();
+                    quotes.put(symbol, quote.toString());
+                    changed.add(symbol);
+                }
+            } catch (Exception e) {
+                LOG.warn("Ignoring malformed price stream event: {}", e.getMessage());
+                return;
+            }
+            lastId = event.getId();
+            for (Viewer viewer : Set.copyOf(viewers)) {
+                viewer.pending.addAll(changed);
+                deliver(viewer);
+            }
+        }
+
+        private void onError(Throwable failure) {
+            LOG.warn("Price stream upstream failed: symbols={}: {}", key.isEmpty() ? "all" : key, failure.getMessage());
+            ready.completeExceptionally(failure);
+            close();
+        }
+
+        private void onComplete() {
+            close();
+        }
+
+        // Called with the lock held
+        private void deliver(Viewer viewer) {
+            if (viewer.sink.isClosed()) {
+                leave(viewer);
+                return;
+            }
+            if (viewer.inFlight || viewer.pending.isEmpty()) {
+                return;
+            }
+            StringJoiner delta = new StringJoiner(",", "[", "]");
+            viewer.pending.forEach(symbol -> delta.add(quotes.get(symbol)));
+            viewer.pending.clear();
+            send(viewer, PRICES, lastId, delta.toString());
+        }
+
+        private void send(Viewer viewer, String name, String id, String data) {
+            viewer.inFlight = true;
+            viewer.sink.send(viewer.sse.newEventBuilder()
+                    .name(name)
+                    .id(id)
+                    .mediaType(MediaType.TEXT_PLAIN_TYPE)
+                    .data(data)
+                    .build())
+                .whenComplete((ignored, failure) -> {
+                    synchronized (this) {
+                        viewer.inFlight = false;
+                        if (failure != null) {
+                            LOG.debug("Price stream viewer gone: {}", failure.getMessage());
+                            leave(viewer);
+                        } else {
+                            // Sends what changed while this event was being written
+                            deliver(viewer);
+                        }
+                    }
+                });
+        }
+
+        private void leave(Viewer viewer) {
+            viewers.remove(viewer);
+            if (viewers.isEmpty()) {
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ready.completeExceptionally(new IllegalStateException("Price stream upstream closed"));
+            upstreams.remove(key, this);
+            source.close();
+            viewers.forEach(viewer -> viewer.sink.close());
+            viewers.clear();
+            LOG.info("Price stream upstream closed: symbols={}", key.isEmpty() ? "all" : key);
+        }
+    }
+
+    // pending and inFlight are only touched with the viewer's Upstream locked
+    private static final class Viewer {
+        final SseEventSink sink;
+        final Sse sse;
+        final Set<String> pending = new LinkedHashSet<>();
+        boolean inFlight;
+
+        Viewer(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+    }
+}
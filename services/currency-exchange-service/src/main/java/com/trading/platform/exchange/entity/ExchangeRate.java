@@ -9,6 +9,8 @@ public class ExchangeRate {
     private Currency toCurrency;
     private BigDecimal rate;
     private Instant lastUpdated;
+    // Incremented on every change, so consumers can drop updates that arrive out of order
+    private long version = 1;
 
     public ExchangeRate() {}
 
@@ -27,4 +29,6 @@ public class ExchangeRate {
     public void setRate(BigDecimal rate) { this.rate = rate; }
     public Instant getLastUpdated() { return lastUpdated; }
     public void setLastUpdated(Instant lastUpdated) { this.lastUpdated = lastUpdated; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
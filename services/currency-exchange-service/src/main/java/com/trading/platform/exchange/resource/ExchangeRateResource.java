@@ -32,8 +32,12 @@ public class ExchangeRateResource {
     @Path("/rates/{from}/{to}")
     @Operation(summary = "Get exchange rate between two currencies")
     public Response getRate(@PathParam("from") Currency from, @PathParam("to") Currency to) {
-        return exchangeRateService.getRate(from, to)
-            .map(rate -> Response.ok(Map.of("from", from, "to", to, "rate", rate)).build())
+        if (from == to) {
+            return Response.ok(Map.of("from", from, "to", to, "rate", BigDecimal.ONE)).build();
+        }
+        return exchangeRateService.getExchangeRate(from, to)
+            .map(rate -> Response.ok(Map.of("from", from, "to", to, "rate", rate.getRate(),
+                "version", rate.getVersion(), "lastUpdated", rate.getLastUpdated())).build())
             .orElse(Response.status(Response.Status.NOT_FOUND).build());
     }
 
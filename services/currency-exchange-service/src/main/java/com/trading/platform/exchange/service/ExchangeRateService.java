@@ -2,7 +2,9 @@ package com.trading.platform.exchange.service;
 
 import com.trading.platform.domain.Currency;
 import com.trading.platform.domain.MoneyCalculator;
+import com.trading.platform.events.ExchangeRateUpdatedEvent;
 import com.trading.platform.exchange.entity.ExchangeRate;
+import io.smallrye.reactive.messaging.MutinyEmitter;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.annotation.PostConstruct;
 import io.quarkus.scheduler.Scheduled;
@@ -19,6 +21,9 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ExchangeRateService {
     private static final Logger LOG = LoggerFactory.getLogger(ExchangeRateService.class);
 
+    @org.eclipse.microprofile.reactive.messaging.Channel("exchange-rate-events-out")
+    MutinyEmitter<ExchangeRateUpdatedEvent> rateEventsEmitter;
+
     private final Map<String, ExchangeRate> rates = new ConcurrentHashMap<>();
     private final Random random = new Random();
 
@@ -53,9 +58,22 @@ public class ExchangeRateService {
                 .setScale(6, RoundingMode.HALF_UP);
             rate.setRate(newRate);
             rate.setLastUpdated(Instant.now());
+            rate.setVersion(rate.getVersion() + 1);
+            publishRateUpdatedEvent(rate);
         });
     }
 
+    private void publishRateUpdatedEvent(ExchangeRate rate) {
+        ExchangeRateUpdatedEvent event = new ExchangeRateUpdatedEvent();
+        event.setFromCurrency(rate.getFromCurrency());
+        event.setToCurrency(rate.getToCurrency());
+        event.setRate(rate.getRate());
+        event.setVersion(rate.getVersion());
+        event.setTimestamp(rate.getLastUpdated());
+        // Consumers fall back to GET /rates for stale pairs, so a lost update is not worth blocking for
+        rateEventsEmitter.sendAndForget(event);
+    }
+
     public Optional<BigDecimal> getRate(Currency from, Currency to) {
         if (from == to) {
             return Optional.of(BigDecimal.ONE);
@@ -64,6 +82,10 @@ public class ExchangeRateService {
             .map(ExchangeRate::getRate);
     }
 
+    public Optional<ExchangeRate> getExchangeRate(Currency from, Currency to) {
+        return Optional.ofNullable(rates.get(from + "_" + to));
+    }
+
     public List<ExchangeRate> getAllRates() {
         return new ArrayList<>(rates.values());
     }
@@ -0,0 +1,29 @@
+package com.trading.platform.fee.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+/**
+ * Single-row counter bumped whenever fee rules change, so clients holding a
+ * copy of the fee schedule can cheaply tell whether it is still current.
+ */
+@Entity
+@Table(name = "fee_schedule_version")
+public class FeeScheduleVersion extends PanacheEntityBase {
+    private static final short SINGLETON_ID = 1;
+
+    @Id
+    public Short id;
+
+    @Column(nullable = false)
+    public long version;
+
+    public static long current() {
+        FeeScheduleVersion row = findById(SINGLETON_ID);
+        return row != null ? row.version : 0L;
+    }
+
+    public static void increment() {
+        update("version = version + 1 where id = ?1", SINGLETON_ID);
+    }
+}
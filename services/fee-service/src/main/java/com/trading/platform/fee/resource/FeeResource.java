@@ -5,7 +5,10 @@ import com.trading.platform.fee.entity.FeeRule;
 import com.trading.platform.fee.service.FeeCalculationService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
@@ -71,6 +74,23 @@ public class FeeResource {
         )).build();
     }
 
+    @GET
+    @Path("/schedule")
+    @Operation(summary = "Get fee schedule",
+        description = "Returns all fee rules and defaults as one versioned snapshot; honors If-None-Match")
+    public Response getFeeSchedule(@Context Request request) {
+        EntityTag currentTag = new EntityTag(Long.toString(feeService.getFeeScheduleVersion()));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(currentTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        var schedule = feeService.getFeeSchedule();
+        return Response.ok(schedule)
+            .tag(new EntityTag(Long.toString(schedule.version)))
+            .build();
+    }
+
     @GET
     @Path("/rules/trading")
     @Operation(summary = "Get all trading fee rules")
@@ -3,6 +3,7 @@ package com.trading.platform.fee.service;
 import com.trading.platform.domain.Currency;
 import com.trading.platform.domain.MoneyCalculator;
 import com.trading.platform.fee.entity.FeeRule;
+import com.trading.platform.fee.entity.FeeScheduleVersion;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
@@ -10,6 +11,10 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 public class FeeCalculationService {
@@ -47,6 +52,34 @@ public class FeeCalculationService {
         return fee;
     }
 
+    public long getFeeScheduleVersion() {
+        return FeeScheduleVersion.current();
+    }
+
+    /**
+     * Snapshot of every fee rule plus the defaults, read in one transaction so the
+     * version always matches the rules it is returned with.
+     */
+    @Transactional
+    public FeeSchedule getFeeSchedule() {
+        FeeSchedule schedule = new FeeSchedule();
+        schedule.version = FeeScheduleVersion.current();
+        schedule.defaultTradingFee = new Fee(DEFAULT_TRADING_FIXED_FEE, DEFAULT_TRADING_PERCENTAGE);
+        schedule.defaultExchangeFee = new Fee(DEFAULT_EXCHANGE_FIXED_FEE, DEFAULT_EXCHANGE_PERCENTAGE);
+        for (FeeRule rule : FeeRule.findAllTradingFees()) {
+            schedule.tradingFees.putIfAbsent(rule.symbol, new Fee(rule.fixedFee, rule.percentageFee));
+        }
+        for (FeeRule rule : FeeRule.findAllExchangeFees()) {
+            ExchangeFee fee = new ExchangeFee();
+            fee.from = rule.fromCurrency;
+            fee.to = rule.toCurrency;
+            fee.fixedFee = rule.fixedFee;
+            fee.percentageFee = rule.percentageFee;
+            schedule.exchangeFees.add(fee);
+        }
+        return schedule;
+    }
+
     @Transactional
     public FeeRule createTradingFee(String symbol, BigDecimal fixedFee, BigDecimal percentageFee) {
         FeeRule rule = new FeeRule();
@@ -55,6 +88,7 @@ public class FeeCalculationService {
         rule.fixedFee = fixedFee;
         rule.percentageFee = percentageFee;
         rule.persist();
+        FeeScheduleVersion.increment();
         LOG.info("Created trading fee rule for symbol: {}", symbol);
         return rule;
     }
@@ -68,7 +102,35 @@ public class FeeCalculationService {
         rule.fixedFee = fixedFee;
         rule.percentageFee = percentageFee;
         rule.persist();
+        FeeScheduleVersion.increment();
         LOG.info("Created exchange fee rule: {} to {}", from, to);
         return rule;
     }
+
+    public static class FeeSchedule {
+        public long version;
+        public Fee defaultTradingFee;
+        public Fee defaultExchangeFee;
+        public Map<String, Fee> tradingFees = new LinkedHashMap<>();
+        public List<ExchangeFee> exchangeFees = new ArrayList<>();
+    }
+
+    public static class Fee {
+        public BigDecimal fixedFee;
+        public BigDecimal percentageFee;
+
+        public Fee() {}
+
+        public Fee(BigDecimal fixedFee, BigDecimal percentageFee) {
+            this.fixedFee = fixedFee;
+            this.percentageFee = percentageFee;
+        }
+    }
+
+    public static class ExchangeFee {
+        public Currency from;
+        public Currency to;
+        public BigDecimal fixedFee;
+        public BigDecimal percentageFee;
+    }
 }
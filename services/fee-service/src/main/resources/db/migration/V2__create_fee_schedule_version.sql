@@ -0,0 +1,6 @@
+CREATE TABLE fee_schedule_version (
+    id SMALLINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO fee_schedule_version (id, version) VALUES (1, 1);
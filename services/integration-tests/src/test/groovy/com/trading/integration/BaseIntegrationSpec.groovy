@@ -35,6 +35,8 @@ abstract class BaseIntegrationSpec extends Specification {
     static final String WALLET_SERVICE_URL = "http://localhost:8086"
     static final String TRADING_SERVICE_URL = "http://localhost:8087"
     static final String PORTFOLIO_SERVICE_URL = "http://localhost:8088"
+    static final String PRICING_SERVICE_URL = "http://localhost:8081"
+    static final String FEE_SERVICE_URL = "http://localhost:8083"
 
     def setupSpec() {
         // Note: For now, tests assume services are running via docker-compose
@@ -59,7 +61,12 @@ abstract class BaseIntegrationSpec extends Specification {
         // Truncate all tables in all schemas
         sql.execute("TRUNCATE TABLE user_service.users CASCADE")
         sql.execute("TRUNCATE TABLE wallet_service.wallet_balances CASCADE")
+        sql.execute("TRUNCATE TABLE wallet_service.wallet_ledger CASCADE")
+        sql.execute("TRUNCATE TABLE wallet_service.wallet_settled_trades CASCADE")
+        sql.execute("TRUNCATE TABLE wallet_service.wallet_positions CASCADE")
+        sql.execute("TRUNCATE TABLE wallet_service.wallet_reservations CASCADE")
         sql.execute("TRUNCATE TABLE trading_service.trades CASCADE")
+        sql.execute("TRUNCATE TABLE trading_service.reservation_commits CASCADE")
         sql.execute("TRUNCATE TABLE portfolio_service.holdings CASCADE")
         sql.execute("TRUNCATE TABLE transaction_history_service.transactions CASCADE")
 
@@ -109,6 +116,17 @@ abstract class BaseIntegrationSpec extends Specification {
         return response.body().as(Map)
     }
 
+    // Helper: POST to a wallet operation (deposit, withdraw, reservations...) without checking the status
+    def postToWallet(String userId, String operation, Map body) {
+        given()
+            .contentType(ContentType.JSON)
+            .body(body)
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/${operation}")
+            .then()
+            .extract()
+            .response()
+    }
+
     // Helper: Get wallet balance
     BigDecimal getWalletBalance(String userId, String currency) {
         def response = given()
@@ -185,4 +203,15 @@ abstract class BaseIntegrationSpec extends Specification {
 
         return rows
     }
+
+    // Helper: Modify database
+    void executeDatabase(String statement) {
+        def dbUrl = "jdbc:postgresql://localhost:5432/trading"
+        def dbUser = "trading"
+        def dbPassword = "trading"
+
+        sql = Sql.newInstance(dbUrl, dbUser, dbPassword, "org.postgresql.Driver")
+        sql.execute(statement)
+        sql.close()
+    }
 }
@@ -0,0 +1,80 @@
+package com.trading.integration.infrastructure
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.trading.integration.BaseIntegrationSpec
+import org.apache.kafka.clients.consumer.ConsumerConfig
+import org.apache.kafka.clients.consumer.KafkaConsumer
+import org.apache.kafka.common.serialization.StringDeserializer
+
+import java.time.Duration
+
+import static org.awaitility.Awaitility.await
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class OutboxRelaySpec extends BaseIntegrationSpec {
+
+    def tradingEventsConsumer() {
+        def consumer = new KafkaConsumer<String, String>([
+            (ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG)       : "localhost:9092",
+            (ConsumerConfig.GROUP_ID_CONFIG)                : "outbox-relay-spec-${UUID.randomUUID()}".toString(),
+            (ConsumerConfig.AUTO_OFFSET_RESET_CONFIG)       : "latest",
+            (ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG)  : StringDeserializer.name,
+            (ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG): StringDeserializer.name
+        ])
+        consumer.subscribe(["trading-events"])
+        // Join the group before producing so "latest" starts from here
+        await().atMost(10, SECONDS).until { consumer.poll(Duration.ofMillis(200)); !consumer.assignment().isEmpty() }
+        consumer
+    }
+
+    def "completed trades are relayed keyed by user and the outbox drains"() {
+        given: "a funded user and a consumer on trading-events"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 5000.00)
+        def consumer = tradingEventsConsumer()
+
+        when: "the user trades"
+        def trade = buyShares(user.userId, "AAPL", 100.00, "BY_AMOUNT")
+
+        then: "the TradeCompleted event arrives keyed by the user"
+        def records = []
+        await().atMost(15, SECONDS).until {
+            records.addAll(consumer.poll(Duration.ofMillis(500)).findAll { it.key() == user.userId })
+            !records.isEmpty()
+        }
+        def event = new ObjectMapper().readValue(records[0].value(), Map)
+        event["@type"] == "TradeCompleted"
+        event.tradeId == trade.id
+
+        and: "the relayed row is gone from the outbox"
+        await().atMost(10, SECONDS).until {
+            queryDatabase("SELECT * FROM trading_service.outbox_events WHERE aggregate_id = '${trade.id}'").isEmpty()
+        }
+
+        cleanup:
+        consumer?.close()
+    }
+
+    def "a user's trades are relayed in the order they completed"() {
+        given:
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 5000.00)
+        def consumer = tradingEventsConsumer()
+
+        when: "the user places several trades back to back"
+        def tradeIds = (1..5).collect { buyShares(user.userId, "MSFT", 50.00, "BY_AMOUNT").id }
+
+        then: "their events arrive in the same order"
+        def relayed = []
+        await().atMost(20, SECONDS).until {
+            consumer.poll(Duration.ofMillis(500))
+                .findAll { it.key() == user.userId }
+                .each { relayed << new ObjectMapper().readValue(it.value(), Map).tradeId }
+            relayed.size() >= tradeIds.size()
+        }
+        relayed.unique(false) == tradeIds
+
+        cleanup:
+        consumer?.close()
+    }
+}
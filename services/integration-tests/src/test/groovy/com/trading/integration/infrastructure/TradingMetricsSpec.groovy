@@ -0,0 +1,31 @@
+package com.trading.integration.infrastructure
+
+import com.trading.integration.BaseIntegrationSpec
+
+import static io.restassured.RestAssured.given
+
+class TradingMetricsSpec extends BaseIntegrationSpec {
+
+    def "a buy records a latency breakdown per stage"() {
+        given: "a user with 1000 USD who buys AAPL"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        buyShares(user.userId, "AAPL", 100.00, "BY_AMOUNT")
+
+        when: "scraping trading-service metrics"
+        def metrics = given()
+            .get("${TRADING_SERVICE_URL}/q/metrics")
+            .then()
+            .statusCode(200)
+            .extract()
+            .asString()
+
+        then: "every stage of the buy has a timer with percentiles"
+        ["price", "fee", "funds", "persist", "commit"].every { stage ->
+            metrics.contains("trading_order_stage_seconds_count{order_type=\"BY_AMOUNT\",stage=\"${stage}\",trade_type=\"BUY\"")
+        }
+        metrics.readLines().any {
+            it.startsWith("trading_order_seconds{") && it.contains("outcome=\"completed\"") && it.contains("quantile=\"0.99\"")
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.trading.integration.pricing
+
+import com.trading.integration.BaseIntegrationSpec
+
+import static io.restassured.RestAssured.given
+
+class CandlesSpec extends BaseIntegrationSpec {
+
+    def getCandles(String symbol, Map params = [:]) {
+        given()
+            .queryParams(params)
+            .get("${PRICING_SERVICE_URL}/api/v1/pricing/securities/${symbol}/candles")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "hourly candles hold the ticks so far"() {
+        when:
+        def response = getCandles("aapl", [interval: "1h"])
+
+        then:
+        response.statusCode() == 200
+        response.path("symbol") == "AAPL"
+        response.path("interval") == "1h"
+        def candles = response.path("candles")
+        candles.every { (it.low as BigDecimal) <= (it.open as BigDecimal) && (it.open as BigDecimal) <= (it.high as BigDecimal) }
+        candles.every { (it.low as BigDecimal) <= (it.close as BigDecimal) && (it.close as BigDecimal) <= (it.high as BigDecimal) }
+        candles.every { it.volume > 0 }
+    }
+
+    def "range excludes candles outside it"() {
+        when:
+        def response = getCandles("AAPL", [interval: "1m", from: "2000-01-01T00:00:00Z", to: "2000-01-02T00:00:00Z"])
+
+        then:
+        response.statusCode() == 200
+        response.path("candles") == []
+    }
+
+    def "unknown interval is rejected"() {
+        expect:
+        getCandles("AAPL", [interval: "2m"]).statusCode() == 400
+        getCandles("AAPL", [from: "yesterday"]).statusCode() == 400
+    }
+
+    def "unknown symbol is not found"() {
+        expect:
+        getCandles("NOPE").statusCode() == 404
+    }
+}
@@ -0,0 +1,135 @@
+package com.trading.integration.pricing
+
+import com.trading.integration.BaseIntegrationSpec
+import groovy.json.JsonSlurper
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.time.Duration
+
+import static io.restassured.RestAssured.given
+
+class PriceStreamSpec extends BaseIntegrationSpec {
+
+    def client = HttpClient.newHttpClient()
+
+    def openStream(String url) {
+        def request = HttpRequest.newBuilder(URI.create(url))
+            .header("Accept", "text/event-stream")
+            .timeout(Duration.ofSeconds(10))
+            .build()
+        client.send(request, HttpResponse.BodyHandlers.ofLines())
+    }
+
+    // Data of the first event, as parsed JSON
+    def firstEvent(HttpResponse response) {
+        def line = response.body()
+            .filter { it.startsWith("data:") }
+            .findFirst()
+        response.body().close()
+        new JsonSlurper().parseText(line.get().substring(5).trim())
+    }
+
+    def "stream starts with every subscribed quote"() {
+        when:
+        def response = openStream("${PRICING_SERVICE_URL}/api/v1/pricing/stream?symbols=aapl,MSFT")
+
+        then:
+        response.statusCode() == 200
+        firstEvent(response)*.symbol.toSet() == ["AAPL", "MSFT"] as Set
+    }
+
+    def "stream without symbols covers all listed securities"() {
+        when:
+        def quotes = firstEvent(openStream("${PRICING_SERVICE_URL}/api/v1/pricing/stream"))
+
+        then:
+        quotes.size() >= 20
+        quotes.every { it.currentPrice != null && it.version != null }
+    }
+
+    def "unknown symbols are rejected"() {
+        when:
+        def response = openStream("${PRICING_SERVICE_URL}/api/v1/pricing/stream?symbols=AAPL,NOPE")
+
+        then:
+        response.statusCode() == 404
+    }
+
+    def "gateway passes on pricing-service's rejection of unknown symbols"() {
+        when:
+        def response = openStream("${API_GATEWAY_URL}/api/v1/securities/stream?symbols=AAPL,NOPE")
+
+        then:
+        response.statusCode() == 404
+        new JsonSlurper().parseText(response.body().collect(java.util.stream.Collectors.joining())).symbols == ["NOPE"]
+    }
+
+    // Field lines (event, id, data) of the first event; leaves the stream open
+    def firstEventFields(HttpResponse response) {
+        def fields = [:]
+        def lines = response.body().iterator()
+        while (lines.hasNext()) {
+            def line = lines.next()
+            if (line.isEmpty()) {
+                if (fields.data) {
+                    break
+                }
+                continue
+            }
+            def colon = line.indexOf(':')
+            if (colon > 0) {
+                fields[line.substring(0, colon)] = line.substring(colon + 1).trim()
+            }
+        }
+        fields
+    }
+
+    def streamSubscribers() {
+        given().get("${PRICING_SERVICE_URL}/api/v1/pricing/health").then().extract().path("streamSubscribers") as int
+    }
+
+    def "gateway relays the event name and id"() {
+        when:
+        def response = openStream("${API_GATEWAY_URL}/api/v1/securities/stream?symbols=SPY,AAPL")
+        def event = firstEventFields(response)
+        response.body().close()
+
+        then:
+        response.statusCode() == 200
+        event.event == "prices"
+        event.id ==~ /\d+/
+        new JsonSlurper().parseText(event.data)*.symbol.toSet() == ["SPY", "AAPL"] as Set
+    }
+
+    def "gateway viewers of the same symbols share one upstream"() {
+        given:
+        def before = streamSubscribers()
+
+        when: "two viewers subscribe to the same symbols, spelled differently"
+        def first = openStream("${API_GATEWAY_URL}/api/v1/securities/stream?symbols=MSFT,SPY")
+        def firstEvent = firstEventFields(first)
+        def second = openStream("${API_GATEWAY_URL}/api/v1/securities/stream?symbols=spy,msft")
+        def secondEvent = firstEventFields(second)
+        def after = streamSubscribers()
+        first.body().close()
+        second.body().close()
+
+        then: "both start with every quote"
+        new JsonSlurper().parseText(firstEvent.data)*.symbol.toSet() == ["MSFT", "SPY"] as Set
+        new JsonSlurper().parseText(secondEvent.data)*.symbol.toSet() == ["MSFT", "SPY"] as Set
+
+        and: "pricing-service has at most one new subscriber for them"
+        after - before <= 1
+    }
+
+    def "stream is available through the gateway"() {
+        when:
+        def response = openStream("${API_GATEWAY_URL}/api/v1/securities/stream?symbols=SPY")
+
+        then:
+        response.statusCode() == 200
+        firstEvent(response)*.symbol == ["SPY"]
+    }
+}
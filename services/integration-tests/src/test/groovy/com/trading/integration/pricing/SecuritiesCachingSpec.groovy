@@ -0,0 +1,74 @@
+package com.trading.integration.pricing
+
+import com.trading.integration.BaseIntegrationSpec
+
+import static io.restassured.RestAssured.given
+
+class SecuritiesCachingSpec extends BaseIntegrationSpec {
+
+    def getSecurities(String url, Map headers = [:], String type = null) {
+        def request = given().headers(headers)
+        if (type) {
+            request.queryParam("type", type)
+        }
+        request.get("${url}/securities")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "unchanged securities list is answered with 304"() {
+        given: "the list has been fetched once"
+        def first = getSecurities("${PRICING_SERVICE_URL}/api/v1/pricing")
+        def etag = first.header("ETag")
+
+        when: "it is fetched again with the ETag before the next tick"
+        def second = getSecurities("${PRICING_SERVICE_URL}/api/v1/pricing", ["If-None-Match": etag])
+
+        then: "no body is sent"
+        first.statusCode() == 200
+        etag != null
+        first.path("size()") >= 20
+        second.statusCode() == 304
+        second.body().asByteArray().length == 0
+    }
+
+    def "each type has its own ETag"() {
+        when:
+        def all = getSecurities("${PRICING_SERVICE_URL}/api/v1/pricing")
+        def bonds = getSecurities("${PRICING_SERVICE_URL}/api/v1/pricing", [:], "BOND_INDEX")
+
+        then:
+        bonds.statusCode() == 200
+        bonds.path("type").every { it == "BOND_INDEX" }
+        bonds.header("ETag") != all.header("ETag")
+    }
+
+    def "stale ETag gets the full list"() {
+        when:
+        def response = getSecurities("${PRICING_SERVICE_URL}/api/v1/pricing", ["If-None-Match": '"stale"'])
+
+        then:
+        response.statusCode() == 200
+        response.path("size()") >= 20
+    }
+
+    def "gzip is served to clients that accept it"() {
+        when:
+        def response = getSecurities("${PRICING_SERVICE_URL}/api/v1/pricing", ["Accept-Encoding": "gzip"])
+
+        then: "rest-assured decodes the body transparently"
+        response.statusCode() == 200
+        response.header("Content-Encoding") == "gzip"
+        response.header("ETag").contains("-gzip")
+        response.path("size()") >= 20
+    }
+
+    def "gateway passes If-None-Match through"() {
+        given:
+        def etag = getSecurities("${API_GATEWAY_URL}/api/v1").header("ETag")
+
+        expect:
+        getSecurities("${API_GATEWAY_URL}/api/v1", ["If-None-Match": etag]).statusCode() == 304
+    }
+}
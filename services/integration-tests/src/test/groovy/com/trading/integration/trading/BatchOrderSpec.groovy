@@ -0,0 +1,81 @@
+package com.trading.integration.trading
+
+import com.trading.integration.BaseIntegrationSpec
+import io.restassured.http.ContentType
+
+import static io.restassured.RestAssured.given
+
+class BatchOrderSpec extends BaseIntegrationSpec {
+
+    List<Map> submitBatch(List<Map> orders) {
+        def response = given()
+            .contentType(ContentType.JSON)
+            .body(orders)
+            .post("${TRADING_SERVICE_URL}/api/v1/trades/batch")
+            .then()
+            .statusCode(200)
+            .extract()
+            .response()
+
+        return response.body().as(List)
+    }
+
+    def "batch executes every valid order and reports results in submission order"() {
+        given: "a user with 5000 USD in wallet"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 5000.00)
+
+        when: "submitting two buys for the same symbol and one for another"
+        def results = submitBatch([
+            [userId: user.userId, symbol: "AAPL", currency: "USD", tradeType: "BUY", orderType: "BY_AMOUNT", amount: 500.00],
+            [userId: user.userId, symbol: "AAPL", currency: "USD", tradeType: "BUY", orderType: "BY_QUANTITY", quantity: 2.00],
+            [userId: user.userId, symbol: "MSFT", currency: "USD", tradeType: "BUY", orderType: "BY_AMOUNT", amount: 300.00]
+        ])
+
+        then: "every order completes"
+        results.size() == 3
+        results*.index == [0, 1, 2]
+        results.every { it.status == "COMPLETED" }
+        results[1].trade.quantity == 2.00
+
+        and: "all trades are persisted"
+        def trades = queryDatabase(
+            "SELECT * FROM trading_service.trades WHERE user_id = '${user.userId}' AND status = 'COMPLETED'"
+        )
+        trades.size() == 3
+    }
+
+    def "batch funds orders in submission order against a single balance"() {
+        given: "a user with 1000 USD in wallet"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "submitting two buys that together exceed the balance"
+        def results = submitBatch([
+            [userId: user.userId, symbol: "AAPL", currency: "USD", tradeType: "BUY", orderType: "BY_AMOUNT", amount: 800.00],
+            [userId: user.userId, symbol: "AAPL", currency: "USD", tradeType: "BUY", orderType: "BY_AMOUNT", amount: 800.00]
+        ])
+
+        then: "the first order completes and the second fails for insufficient funds"
+        results[0].status == "COMPLETED"
+        results[1].status == "FAILED"
+        results[1].error == "Insufficient funds"
+    }
+
+    def "invalid orders are rejected without affecting the rest of the batch"() {
+        given: "a user with 1000 USD in wallet"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "submitting an order without tradeType and one for an unknown symbol alongside a valid order"
+        def results = submitBatch([
+            [userId: user.userId, symbol: "AAPL", currency: "USD", orderType: "BY_AMOUNT", amount: 100.00],
+            [userId: user.userId, symbol: "NOPE", currency: "USD", tradeType: "BUY", orderType: "BY_AMOUNT", amount: 100.00],
+            [userId: user.userId, symbol: "AAPL", currency: "USD", tradeType: "BUY", orderType: "BY_AMOUNT", amount: 100.00]
+        ])
+
+        then: "only the valid order executes"
+        results*.status == ["REJECTED", "REJECTED", "COMPLETED"]
+        results[0].error == "tradeType is required"
+    }
+}
@@ -2,6 +2,9 @@ package com.trading.integration.trading
 
 import com.trading.integration.BaseIntegrationSpec
 
+import static org.awaitility.Awaitility.await
+import static java.util.concurrent.TimeUnit.SECONDS
+
 class BuyOrderSpec extends BaseIntegrationSpec {
 
     def "buy by amount purchases fractional shares and updates portfolio"() {
@@ -54,6 +57,49 @@ class BuyOrderSpec extends BaseIntegrationSpec {
         holdings[0].quantity == 10.00
     }
 
+    def "buy commits its funds reservation and owes nothing afterwards"() {
+        given: "a user with 1000 USD in wallet"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "buying AAPL shares"
+        def trade = buyShares(user.userId, "AAPL", 200.00, "BY_AMOUNT")
+
+        then: "the trade's reservation is committed in wallet-service"
+        def reservations = queryDatabase(
+            "SELECT * FROM wallet_service.wallet_reservations WHERE id = '${trade.reservationId}'"
+        )
+        reservations.size() == 1
+        reservations[0].status == "COMMITTED"
+
+        and: "no reservation commit is left pending"
+        queryDatabase(
+            "SELECT * FROM trading_service.reservation_commits WHERE reservation_id = '${trade.reservationId}'"
+        ).isEmpty()
+    }
+
+    def "reservation commit the wallet rejects is marked failed instead of retried"() {
+        given: "a commit owed for a reservation wallet-service does not know"
+        def user = createTestUser()
+        def reservationId = UUID.randomUUID()
+        executeDatabase("""
+            INSERT INTO trading_service.reservation_commits (reservation_id, user_id, next_attempt_at)
+            VALUES ('${reservationId}', '${user.userId}', NOW() - INTERVAL '1 minute')
+        """)
+
+        expect: "the retry gives up on it after one attempt"
+        await().atMost(30, SECONDS).until {
+            queryDatabase(
+                "SELECT status FROM trading_service.reservation_commits WHERE reservation_id = '${reservationId}'"
+            )[0].status == "FAILED"
+        }
+        def commit = queryDatabase(
+            "SELECT * FROM trading_service.reservation_commits WHERE reservation_id = '${reservationId}'"
+        )[0]
+        commit.attempts == 1
+        commit.last_error != null
+    }
+
     def "buy with insufficient funds is rejected"() {
         given: "a user with only 100 USD"
         def user = createTestUser()
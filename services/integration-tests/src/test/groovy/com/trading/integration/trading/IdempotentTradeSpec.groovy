@@ -0,0 +1,83 @@
+package com.trading.integration.trading
+
+import com.trading.integration.BaseIntegrationSpec
+import io.restassured.http.ContentType
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import static io.restassured.RestAssured.given
+
+class IdempotentTradeSpec extends BaseIntegrationSpec {
+
+    def buyWithKey(String userId, String key, String symbol = "AAPL", BigDecimal amount = 100.00) {
+        given()
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", key)
+            .body([userId: userId, symbol: symbol, currency: "USD", orderType: "BY_AMOUNT", amount: amount])
+            .post("${TRADING_SERVICE_URL}/api/v1/trades/buy")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "a retried buy returns the original trade and charges once"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def key = UUID.randomUUID().toString()
+
+        when: "the same buy is sent twice with one key"
+        def first = buyWithKey(user.userId, key)
+        def retry = buyWithKey(user.userId, key)
+
+        then: "the retry returns the same trade"
+        first.statusCode() == 200
+        retry.statusCode() == 200
+        retry.path("id") == first.path("id")
+        retry.header("Idempotent-Replayed") == "true"
+
+        and: "only one trade exists and the wallet is charged once"
+        queryDatabase("SELECT * FROM trading_service.trades WHERE user_id = '${user.userId}'").size() == 1
+        getWalletBalance(user.userId, "USD") == 1000.00 - (first.path("totalAmount") as BigDecimal)
+    }
+
+    def "concurrent retries execute the trade once"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def key = UUID.randomUUID().toString()
+
+        when: "five requests with the same key race"
+        def pool = Executors.newFixedThreadPool(5)
+        def ids = pool.invokeAll((1..5).collect { { -> buyWithKey(user.userId, key).path("id") } as Callable })*.get()
+        pool.shutdown()
+
+        then: "all of them see the same trade"
+        ids.unique().size() == 1
+        queryDatabase("SELECT * FROM trading_service.trades WHERE user_id = '${user.userId}'").size() == 1
+    }
+
+    def "reusing a key for a different order is rejected"() {
+        given: "a user who already bought AAPL with a key"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def key = UUID.randomUUID().toString()
+        buyWithKey(user.userId, key, "AAPL")
+
+        expect: "the same key for MSFT is a conflict"
+        buyWithKey(user.userId, key, "MSFT").statusCode() == 409
+    }
+
+    def "reusing a key for a different amount is rejected"() {
+        given: "a user who already bought 100 USD of AAPL with a key"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def key = UUID.randomUUID().toString()
+        buyWithKey(user.userId, key, "AAPL", 100.00)
+
+        expect: "the same key for 200 USD of AAPL is a conflict and nothing more is bought"
+        buyWithKey(user.userId, key, "AAPL", 200.00).statusCode() == 409
+        queryDatabase("SELECT * FROM trading_service.trades WHERE user_id = '${user.userId}'").size() == 1
+    }
+}
@@ -0,0 +1,87 @@
+package com.trading.integration.trading
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.trading.integration.BaseIntegrationSpec
+import org.apache.kafka.clients.consumer.ConsumerConfig
+import org.apache.kafka.clients.consumer.KafkaConsumer
+import org.apache.kafka.clients.producer.KafkaProducer
+import org.apache.kafka.clients.producer.ProducerConfig
+import org.apache.kafka.clients.producer.ProducerRecord
+import org.apache.kafka.common.serialization.StringDeserializer
+import org.apache.kafka.common.serialization.StringSerializer
+
+import java.time.Duration
+import java.time.Instant
+
+class LastPriceTableSpec extends BaseIntegrationSpec {
+
+    def publishTick(String symbol, BigDecimal price, Instant timestamp) {
+        def event = [
+            "@type"  : "PriceUpdated",
+            eventId  : UUID.randomUUID().toString(),
+            timestamp: timestamp.toString(),
+            symbol   : symbol,
+            price    : price
+        ]
+        def producer = new KafkaProducer<String, String>([
+            (ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)     : "localhost:9092",
+            (ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG)  : StringSerializer.name,
+            (ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG): StringSerializer.name
+        ])
+        producer.send(new ProducerRecord("pricing-events", symbol, new ObjectMapper().writeValueAsString(event))).get()
+        producer.close()
+        Thread.sleep(2000)
+    }
+
+    def "pricing-service publishes price ticks"() {
+        given:
+        def consumer = new KafkaConsumer<String, String>([
+            (ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG)       : "localhost:9092",
+            (ConsumerConfig.GROUP_ID_CONFIG)                : "price-tick-spec-${UUID.randomUUID()}".toString(),
+            (ConsumerConfig.AUTO_OFFSET_RESET_CONFIG)       : "latest",
+            (ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG)  : StringDeserializer.name,
+            (ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG): StringDeserializer.name
+        ])
+        consumer.subscribe(["pricing-events"])
+
+        when: "waiting for the next 30s price update"
+        def records = []
+        def deadline = System.currentTimeMillis() + 40_000
+        while (records.isEmpty() && System.currentTimeMillis() < deadline) {
+            records.addAll(consumer.poll(Duration.ofSeconds(1)).collect { new ObjectMapper().readValue(it.value(), Map) })
+        }
+        consumer.close()
+
+        then:
+        !records.isEmpty()
+        records.every { it["@type"] == "PriceUpdated" && it.symbol && (it.price as BigDecimal) > 0 }
+    }
+
+    def "trades use the streamed price"() {
+        given: "a funded user and a fresh tick with a distinctive price"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 5000.00)
+        publishTick("AAPL", 123.45, Instant.now())
+
+        when:
+        def trade = buyShares(user.userId, "AAPL", 1.00, "BY_QUANTITY")
+
+        then:
+        trade.status == "COMPLETED"
+        (trade.pricePerUnit as BigDecimal) == 123.45
+    }
+
+    def "ticks older than a newer price are ignored"() {
+        given: "a current tick followed by a late one from ten minutes ago"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 5000.00)
+        publishTick("AAPL", 150.00, Instant.now())
+        publishTick("AAPL", 1.00, Instant.now().minusSeconds(600))
+
+        when:
+        def trade = buyShares(user.userId, "AAPL", 1.00, "BY_QUANTITY")
+
+        then:
+        (trade.pricePerUnit as BigDecimal) == 150.00
+    }
+}
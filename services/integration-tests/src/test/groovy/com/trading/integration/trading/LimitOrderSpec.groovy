@@ -0,0 +1,146 @@
+package com.trading.integration.trading
+
+import com.trading.integration.BaseIntegrationSpec
+import io.restassured.http.ContentType
+
+import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class LimitOrderSpec extends BaseIntegrationSpec {
+
+    // Order books live in trading-service memory across specs, so each test trades its own listed
+    // simulated symbol (docker-compose lists SIM000001..SIM010000)
+    String symbol = String.format("SIM%06d", new Random().nextInt(10_000) + 1)
+
+    def placeOrder(String userId, String side, BigDecimal quantity, BigDecimal limitPrice, String symbol = this.symbol) {
+        given()
+            .contentType(ContentType.JSON)
+            .body([userId: userId, symbol: symbol, currency: "USD", tradeType: side,
+                   quantity: quantity, limitPrice: limitPrice])
+            .post("${TRADING_SERVICE_URL}/api/v1/trades/orders")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "a non-crossing order rests in the book with its funds reserved"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "placing a buy for 2 shares at 100"
+        def response = placeOrder(user.userId, "BUY", 2.00, 100.00)
+
+        then: "the order is open and the notional plus fee is held"
+        response.statusCode() == 201
+        response.path("status") == "OPEN"
+        response.path("reservationId") != null
+        getWalletBalance(user.userId, "USD") < 800.00
+    }
+
+    def "crossing orders fill at the resting price and record both sides"() {
+        given: "a seller resting 5 shares at 95 and a buyer with 1000 USD"
+        def seller = createTestUser()
+        def buyer = createTestUser()
+        depositToWallet(buyer.userId, "USD", 1000.00)
+        def sell = placeOrder(seller.userId, "SELL", 5.00, 95.00)
+
+        when: "the buyer bids 100 for 3 shares"
+        def buy = placeOrder(buyer.userId, "BUY", 3.00, 100.00)
+
+        then: "the buy fills completely at the seller's price"
+        sell.path("status") == "OPEN"
+        buy.statusCode() == 201
+        buy.path("status") == "FILLED"
+
+        and: "a LIMIT trade is recorded for each side, tagged with its fill"
+        // Fills are recorded and reservations settled asynchronously
+        def trades = []
+        await().atMost(10, SECONDS).until {
+            trades = queryDatabase(
+                "SELECT * FROM trading_service.trades WHERE symbol = '${symbol}' AND order_type = 'LIMIT'"
+            )
+            trades.size() == 2
+        }
+        trades*.fill_id.every { it != null }
+        trades.every { it.price_per_unit == 95.00 && it.quantity == 3.00 }
+
+        and: "the buyer only pays for the fill, not the limit"
+        await().atMost(10, SECONDS).until {
+            queryDatabase(
+                "SELECT status FROM wallet_service.wallet_reservations WHERE id = '${buy.path('reservationId')}'"
+            )[0].status == "COMMITTED"
+        }
+        getWalletBalance(buyer.userId, "USD") > 1000.00 - 300.00
+    }
+
+    def "cancelling a resting order releases its reservation"() {
+        given: "a user with a resting buy"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def orderId = placeOrder(user.userId, "BUY", 2.00, 100.00).path("orderId")
+
+        when: "cancelling it"
+        def cancel = given()
+            .delete("${TRADING_SERVICE_URL}/api/v1/trades/orders/${orderId}?userId=${user.userId}")
+            .then()
+            .extract()
+            .response()
+
+        then: "the order is cancelled and the funds are back"
+        cancel.statusCode() == 200
+        cancel.path("status") == "CANCELLED"
+        // The reservation is released asynchronously
+        await().atMost(10, SECONDS).until { getWalletBalance(user.userId, "USD") == 1000.00 }
+    }
+
+    def "an order does not trade with the same user's resting order"() {
+        given: "a user resting a sell at 95 and holding 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def sell = placeOrder(user.userId, "SELL", 2.00, 95.00)
+
+        when: "the same user bids 100 across their own sell"
+        def buy = placeOrder(user.userId, "BUY", 2.00, 100.00)
+
+        then: "the resting sell is cancelled and the buy rests instead of filling"
+        buy.statusCode() == 201
+        buy.path("status") == "OPEN"
+        given()
+            .get("${TRADING_SERVICE_URL}/api/v1/trades/orders/${sell.path('orderId')}?userId=${user.userId}")
+            .then()
+            .extract()
+            .path("status") == "CANCELLED"
+
+        and: "no trade was recorded, as the buy never filled"
+        queryDatabase("SELECT * FROM trading_service.trades WHERE symbol = '${symbol}' AND order_type = 'LIMIT'").isEmpty()
+    }
+
+    def "orders for unknown or overlong symbols are rejected"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        expect:
+        placeOrder(user.userId, "BUY", 1.00, 10.00, "NOSUCH").statusCode() == 400
+        placeOrder(user.userId, "BUY", 1.00, 10.00, "ABCDEFGHIJK").statusCode() == 400
+
+        and: "no funds were reserved"
+        getWalletBalance(user.userId, "USD") == 1000.00
+    }
+
+    def "limit orders are rejected by the market order endpoints"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        expect: "buy with orderType LIMIT is a bad request"
+        given()
+            .contentType(ContentType.JSON)
+            .body([userId: user.userId, symbol: "AAPL", currency: "USD", orderType: "LIMIT", quantity: 1.00])
+            .post("${TRADING_SERVICE_URL}/api/v1/trades/buy")
+            .then()
+            .statusCode(400)
+    }
+}
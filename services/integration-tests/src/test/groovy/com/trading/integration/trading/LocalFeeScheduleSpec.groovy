@@ -0,0 +1,72 @@
+package com.trading.integration.trading
+
+import com.trading.integration.BaseIntegrationSpec
+
+import static io.restassured.RestAssured.given
+
+class LocalFeeScheduleSpec extends BaseIntegrationSpec {
+
+    def getSchedule(Map headers = [:]) {
+        given()
+            .headers(headers)
+            .get("${FEE_SERVICE_URL}/api/v1/fees/schedule")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "fee schedule is versioned and answers 304 when unchanged"() {
+        given: "the schedule has been fetched once"
+        def first = getSchedule()
+
+        when: "it is fetched again with its ETag"
+        def second = getSchedule(["If-None-Match": first.header("ETag")])
+
+        then:
+        first.statusCode() == 200
+        first.header("ETag") == "\"${first.path('version')}\"".toString()
+        first.path("defaultTradingFee") != null
+        second.statusCode() == 304
+    }
+
+    def "creating a rule bumps the schedule version"() {
+        given:
+        def before = getSchedule()
+        def symbol = "T${UUID.randomUUID().toString().take(6).toUpperCase()}".toString()
+
+        when: "a trading fee rule is added"
+        given()
+            .contentType("application/json")
+            .body([symbol: symbol, fixedFee: 1.25, percentageFee: 0.002])
+            .post("${FEE_SERVICE_URL}/api/v1/fees/rules/trading")
+            .then()
+            .statusCode(201)
+
+        then: "the old ETag no longer matches and the rule is in the new snapshot"
+        def after = getSchedule(["If-None-Match": before.header("ETag")])
+        after.statusCode() == 200
+        (after.path("version") as long) > (before.path("version") as long)
+        after.path("tradingFees.${symbol}.fixedFee") as BigDecimal == 1.25
+    }
+
+    def "trade fees computed locally match fee-service"() {
+        given: "a funded user"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 5000.00)
+
+        when: "buying a fixed quantity"
+        def trade = buyShares(user.userId, "MSFT", 2.00, "BY_QUANTITY")
+
+        then: "the fee equals fee-service's own calculation for the same amount"
+        def amount = (trade.quantity as BigDecimal) * (trade.pricePerUnit as BigDecimal)
+        def expected = given()
+            .queryParam("amount", amount)
+            .get("${FEE_SERVICE_URL}/api/v1/fees/trading/MSFT")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("fee") as BigDecimal
+        trade.status == "COMPLETED"
+        (trade.fees as BigDecimal) == expected
+    }
+}
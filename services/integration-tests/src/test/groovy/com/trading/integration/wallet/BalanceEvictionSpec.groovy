@@ -0,0 +1,33 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+import org.postgresql.PGConnection
+
+import java.sql.DriverManager
+
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class BalanceEvictionSpec extends BaseIntegrationSpec {
+
+    def "a balance change is broadcast so other instances evict the user"() {
+        given: "a listener on the eviction channel, as another wallet-service instance would have"
+        def connection = DriverManager.getConnection("jdbc:postgresql://localhost:5432/trading", "trading", "trading")
+        connection.createStatement().execute("LISTEN wallet_balance_evictions")
+        def user = createTestUser()
+
+        when: "the user deposits"
+        depositToWallet(user.userId, "USD", 100.00)
+
+        then: "a notification naming the user arrives"
+        def payloads = []
+        await().atMost(10, SECONDS).until {
+            def notifications = connection.unwrap(PGConnection).getNotifications(500)
+            notifications?.each { payloads << it.parameter }
+            payloads.any { it.contains(user.userId) }
+        }
+
+        cleanup:
+        connection?.close()
+    }
+}
@@ -0,0 +1,56 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+
+import static io.restassured.RestAssured.given
+
+class BulkBalanceQuerySpec extends BaseIntegrationSpec {
+
+    def queryBalances(List userIds) {
+        given()
+            .contentType("application/json")
+            .body([userIds: userIds])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/balances:query")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "balances of many users are returned in one call"() {
+        given: "three users with different balances and one without any"
+        def users = (1..3).collect { createTestUser() }
+        users.eachWithIndex { user, i -> depositToWallet(user.userId, "USD", 100.00 * (i + 1)) }
+        depositToWallet(users[0].userId, "EUR", 50.00)
+        def empty = createTestUser()
+
+        when: "querying all of them"
+        def response = queryBalances(users*.userId + empty.userId)
+
+        then: "every user is present with all of its currencies"
+        response.statusCode() == 200
+        def balances = response.path("balances")
+        balances[users[0].userId].collectEntries { [it.currency, it.balance as BigDecimal] } == [USD: 100.00, EUR: 50.00]
+        balances[users[1].userId]*.balance.collect { it as BigDecimal } == [200.00]
+        balances[users[2].userId]*.balance.collect { it as BigDecimal } == [300.00]
+        balances[empty.userId] == []
+    }
+
+    def "cached balances reflect later mutations"() {
+        given: "a user whose balances have been read once"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 100.00)
+        queryBalances([user.userId])
+
+        when: "the user deposits again"
+        depositToWallet(user.userId, "USD", 50.00)
+
+        then: "both the bulk and the single-user endpoint see the new balance"
+        queryBalances([user.userId]).path("balances")[user.userId][0].balance as BigDecimal == 150.00
+        getWalletBalance(user.userId, "USD") == 150.00
+    }
+
+    def "an empty query is rejected"() {
+        expect:
+        queryBalances([]).statusCode() == 400
+    }
+}
@@ -94,4 +94,40 @@ class CurrencyExchangeSpec extends BaseIntegrationSpec {
         def usdBalance = getWalletBalance(user.userId, "USD")
         usdBalance == 1000.00
     }
+
+    def "exchange uses the same rate and fee as the upstream services"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "exchanging 200 USD to GBP"
+        def response = given()
+            .contentType("application/json")
+            .body([fromCurrency: "USD", toCurrency: "GBP", amount: 200.00])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/exchange")
+            .then()
+            .statusCode(200)
+            .extract()
+            .response()
+
+        then: "the fee matches fee-service"
+        def expectedFee = given()
+            .queryParam("from", "USD")
+            .queryParam("to", "GBP")
+            .queryParam("amount", 200.00)
+            .get("http://localhost:8083/api/v1/fees/exchange")
+            .then()
+            .extract()
+            .path("fee") as BigDecimal
+        (response.path("fee") as BigDecimal) == expectedFee
+
+        and: "the rate is within one update (0.5%) of the current upstream rate"
+        def upstreamRate = given()
+            .get("http://localhost:8082/api/v1/exchange/rates/USD/GBP")
+            .then()
+            .extract()
+            .path("rate") as BigDecimal
+        def rate = response.path("exchangeRate") as BigDecimal
+        (rate - upstreamRate).abs() <= upstreamRate * 0.005
+    }
 }
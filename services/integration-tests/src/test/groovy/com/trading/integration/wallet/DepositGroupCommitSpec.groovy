@@ -0,0 +1,53 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import static io.restassured.RestAssured.given
+
+class DepositGroupCommitSpec extends BaseIntegrationSpec {
+
+    def deposit(String userId, String currency, BigDecimal amount) {
+        given()
+            .contentType("application/json")
+            .body([currency: currency, amount: amount])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/deposit")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("balance") as BigDecimal
+    }
+
+    def "concurrent deposits to one account each see the balance after their own deposit"() {
+        given: "a user"
+        def user = createTestUser()
+
+        when: "40 deposits of 10 USD arrive at once"
+        def pool = Executors.newFixedThreadPool(40)
+        def balances = pool.invokeAll((1..40).collect {
+            { -> deposit(user.userId, "USD", 10.00) } as Callable
+        })*.get()
+        pool.shutdown()
+
+        then: "every caller got a distinct running balance"
+        balances.collect { it.setScale(2) }.sort() == (1..40).collect { (it * 10.00).setScale(2) }
+        getWalletBalance(user.userId, "USD") == 400.00
+    }
+
+    def "deposits for different users and currencies in one window are kept apart"() {
+        given: "10 users"
+        def users = (1..10).collect { createTestUser() }
+
+        when: "each deposits USD and EUR concurrently"
+        def pool = Executors.newFixedThreadPool(20)
+        pool.invokeAll(users.collectMany { user ->
+            [{ -> deposit(user.userId, "USD", 25.00) } as Callable, { -> deposit(user.userId, "EUR", 15.00) } as Callable]
+        })*.get()
+        pool.shutdown()
+
+        then: "every balance holds exactly its own deposit"
+        users.every { getWalletBalance(it.userId, "USD") == 25.00 && getWalletBalance(it.userId, "EUR") == 15.00 }
+    }
+}
@@ -0,0 +1,112 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+
+import java.time.Instant
+
+import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class ExchangeQuoteSpec extends BaseIntegrationSpec {
+
+    def quote(String userId, BigDecimal amount) {
+        given()
+            .contentType("application/json")
+            .body([fromCurrency: "USD", toCurrency: "EUR", amount: amount])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/exchange/quote")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def execute(String userId, String quoteId) {
+        given()
+            .contentType("application/json")
+            .body([quoteId: quoteId])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/exchange/execute")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "executing a quote applies exactly the quoted rate and fee"() {
+        given: "a user with 1000 USD and a quote for 400 USD to EUR"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def quote = quote(user.userId, 400.00)
+
+        when: "executing the quote"
+        def result = execute(user.userId, quote.path("quoteId"))
+
+        then: "the exchange uses the quoted terms"
+        quote.statusCode() == 201
+        result.statusCode() == 200
+        (result.path("exchangeRate") as BigDecimal) == (quote.path("rate") as BigDecimal)
+        (result.path("fee") as BigDecimal) == (quote.path("fee") as BigDecimal)
+        (result.path("convertedAmount") as BigDecimal) == (quote.path("convertedAmount") as BigDecimal)
+        getWalletBalance(user.userId, "USD") == 600.00
+        getWalletBalance(user.userId, "EUR") == (quote.path("convertedAmount") as BigDecimal)
+    }
+
+    def "a quote can be executed only once"() {
+        given: "a user with 1000 USD and an executed quote"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def quoteId = quote(user.userId, 100.00).path("quoteId")
+        execute(user.userId, quoteId)
+
+        when: "executing it again"
+        def again = execute(user.userId, quoteId)
+
+        then: "it is rejected and nothing more is debited"
+        again.statusCode() == 404
+        getWalletBalance(user.userId, "USD") == 900.00
+    }
+
+    def "quotes belong to the user they were issued to"() {
+        given: "a quote issued to one user"
+        def owner = createTestUser()
+        def other = createTestUser()
+        depositToWallet(owner.userId, "USD", 1000.00)
+        depositToWallet(other.userId, "USD", 1000.00)
+        def quoteId = quote(owner.userId, 100.00).path("quoteId")
+
+        expect: "another user cannot execute it, but the owner still can"
+        execute(other.userId, quoteId).statusCode() == 404
+        execute(owner.userId, quoteId).statusCode() == 200
+    }
+
+    def "an expired quote is rejected"() {
+        given: "a user with a quote"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def quote = quote(user.userId, 100.00)
+        def expiresAt = Instant.parse(quote.path("expiresAt"))
+
+        when: "executing it after the quote TTL (wallet.exchange.quote-ttl is short in docker-compose)"
+        await().atMost(15, SECONDS).until { Instant.now().isAfter(expiresAt.plusMillis(100)) }
+        def result = execute(user.userId, quote.path("quoteId"))
+
+        then: "it is rejected"
+        result.statusCode() == 404
+        getWalletBalance(user.userId, "USD") == 1000.00
+    }
+
+    def "a quote that fails for insufficient funds can be retried"() {
+        given: "a user with 50 USD and a quote for 100 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 50.00)
+        def quoteId = quote(user.userId, 100.00).path("quoteId")
+
+        when: "executing it, topping up and executing again"
+        def first = execute(user.userId, quoteId)
+        depositToWallet(user.userId, "USD", 50.00)
+        def second = execute(user.userId, quoteId)
+
+        then: "the first attempt fails and the retry succeeds"
+        first.statusCode() == 400
+        second.statusCode() == 200
+        getWalletBalance(user.userId, "USD") == 0.00
+    }
+}
@@ -0,0 +1,72 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class HotAccountSpec extends BaseIntegrationSpec {
+
+    def depositConcurrently(String userId, int count, BigDecimal amount) {
+        def pool = Executors.newFixedThreadPool(50)
+        def statuses = pool.invokeAll((1..count).collect {
+            { -> postToWallet(userId, "deposit", [currency: "USD", amount: amount]).statusCode() } as Callable
+        })*.get()
+        pool.shutdown()
+        statuses
+    }
+
+    // The account is sharded at the end of the hot-account window its burst fell in
+    def awaitSharded(String userId) {
+        await().atMost(10, SECONDS).until {
+            queryDatabase(
+                "SELECT COUNT(*) AS shards FROM wallet_service.wallet_balances WHERE user_id = '${userId}' AND currency = 'USD'"
+            )[0].shards > 1
+        }
+    }
+
+    def "a hot account is split into shards that are summed on read"() {
+        given: "a user whose USD balance receives a burst of deposits"
+        def user = createTestUser()
+        def burst = depositConcurrently(user.userId, 400, 5.00)
+        awaitSharded(user.userId)
+
+        when: "more deposits arrive while the account is hot"
+        def more = depositConcurrently(user.userId, 200, 5.00)
+
+        then: "every deposit is applied and the balance sums all shards"
+        (burst + more).every { it == 200 }
+        getWalletBalance(user.userId, "USD") == 3000.00
+
+        and: "the account has several balance rows and its entries are spread over them"
+        def rows = queryDatabase(
+            "SELECT COUNT(*) AS shards FROM wallet_service.wallet_balances WHERE user_id = '${user.userId}' AND currency = 'USD'"
+        )
+        rows[0].shards > 1
+        def used = queryDatabase(
+            "SELECT COUNT(DISTINCT shard) AS shards FROM wallet_service.wallet_ledger WHERE user_id = '${user.userId}' AND currency = 'USD'"
+        )
+        used[0].shards > 1
+    }
+
+    def "a debit larger than any shard draws across shards"() {
+        given: "a sharded account holding 3000 USD"
+        def user = createTestUser()
+        depositConcurrently(user.userId, 400, 5.00)
+        awaitSharded(user.userId)
+        depositConcurrently(user.userId, 200, 5.00)
+
+        when: "withdrawing almost everything"
+        def response = postToWallet(user.userId, "withdraw", [currency: "USD", amount: 2900.00])
+
+        then: "the withdrawal succeeds and only the remainder is left"
+        response.statusCode() == 200
+        getWalletBalance(user.userId, "USD") == 100.00
+
+        and: "a further withdrawal beyond the total is rejected"
+        postToWallet(user.userId, "withdraw", [currency: "USD", amount: 100.01]).statusCode() in [400, 409]
+    }
+}
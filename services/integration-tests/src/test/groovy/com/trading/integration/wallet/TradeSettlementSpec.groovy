@@ -0,0 +1,209 @@
+package com.trading.integration.wallet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.trading.integration.BaseIntegrationSpec
+import org.apache.kafka.clients.consumer.ConsumerConfig
+import org.apache.kafka.clients.consumer.KafkaConsumer
+import org.apache.kafka.clients.producer.KafkaProducer
+import org.apache.kafka.clients.producer.ProducerConfig
+import org.apache.kafka.clients.producer.ProducerRecord
+import org.apache.kafka.common.serialization.StringDeserializer
+import org.apache.kafka.common.serialization.StringSerializer
+
+import java.time.Duration
+
+import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class TradeSettlementSpec extends BaseIntegrationSpec {
+
+    def ledger(String userId, String currency) {
+        given()
+            .get("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/ledger/${currency}")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getList("")
+    }
+
+    // Settlement is asynchronous: waits until the consumer has recorded the trade
+    def awaitSettled(String tradeId) {
+        await().atMost(15, SECONDS).until {
+            !queryDatabase("SELECT trade_id FROM wallet_service.wallet_settled_trades WHERE trade_id = '${tradeId}'").isEmpty()
+        }
+    }
+
+    def publish(String userId, Map event) {
+        def producer = new KafkaProducer<String, String>([
+            (ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)     : "localhost:9092",
+            (ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG)  : StringSerializer.name,
+            (ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG): StringSerializer.name
+        ])
+        producer.send(new ProducerRecord("trading-events", userId, new ObjectMapper().writeValueAsString(event))).get()
+        producer.close()
+    }
+
+    def "sell proceeds are credited once through a settlement entry"() {
+        given: "a user holding shares"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        awaitSettled(buyShares(user.userId, "AAPL", 500.00, "BY_AMOUNT").id)
+        def balanceBeforeSell = getWalletBalance(user.userId, "USD")
+
+        when: "selling one share"
+        def trade = sellShares(user.userId, "AAPL", 1.00, "BY_QUANTITY")
+        awaitSettled(trade.id)
+
+        then: "the proceeds are credited as a settlement entry"
+        def settlements = ledger(user.userId, "USD").findAll { it.type == "TRADE_SETTLEMENT" }
+        settlements.size() == 1
+        (settlements[0].amount as BigDecimal) == (trade.totalAmount as BigDecimal)
+        getWalletBalance(user.userId, "USD") == balanceBeforeSell + (trade.totalAmount as BigDecimal)
+
+        and: "both trades are recorded as settled, the buy without a second debit"
+        def settled = queryDatabase(
+            "SELECT trade_type, amount FROM wallet_service.wallet_settled_trades WHERE user_id = '${user.userId}' ORDER BY trade_type"
+        )
+        settled*.trade_type == ["BUY", "SELL"]
+        settled[0].amount == 0.00
+    }
+
+    def "a redelivered trade is not settled again"() {
+        given: "a settled sell"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        awaitSettled(buyShares(user.userId, "AAPL", 500.00, "BY_AMOUNT").id)
+        def trade = sellShares(user.userId, "AAPL", 1.00, "BY_QUANTITY")
+        awaitSettled(trade.id)
+        def balanceAfterSell = getWalletBalance(user.userId, "USD")
+
+        when: "the same TradeCompletedEvent is published again"
+        def event = [
+            "@type"     : "TradeCompleted",
+            tradeId     : trade.id,
+            userId      : user.userId,
+            symbol      : "AAPL",
+            tradeType   : "SELL",
+            quantity    : trade.quantity,
+            pricePerUnit: trade.pricePerUnit,
+            currency    : "USD",
+            totalAmount : trade.totalAmount,
+            fees        : trade.fees
+        ]
+        publish(user.userId, event)
+
+        and: "a buy published after it on the same key has been settled, so the redelivery was consumed"
+        def marker = event + [tradeId: UUID.randomUUID().toString(), tradeType: "BUY"]
+        publish(user.userId, marker)
+        awaitSettled(marker.tradeId)
+
+        then: "the balance and the settlement entries are unchanged"
+        getWalletBalance(user.userId, "USD") == balanceAfterSell
+        ledger(user.userId, "USD").count { it.type == "TRADE_SETTLEMENT" } == 1
+    }
+
+    def "a sell of shares the user never bought is not credited"() {
+        given: "a user with cash but no shares"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 100.00)
+        def tradeId = UUID.randomUUID().toString()
+
+        when: "a TradeCompletedEvent for a sell is published"
+        def event = [
+            "@type"     : "TradeCompleted",
+            tradeId     : tradeId,
+            userId      : user.userId,
+            symbol      : "AAPL",
+            tradeType   : "SELL",
+            quantity    : 10.00,
+            pricePerUnit: 150.00,
+            currency    : "USD",
+            totalAmount : 1500.00,
+            fees        : 0.00
+        ]
+        publish(user.userId, event)
+
+        then: "it is recorded as uncovered"
+        def settled = null
+        await().atMost(15, SECONDS).until {
+            settled = queryDatabase(
+                "SELECT status, amount FROM wallet_service.wallet_settled_trades WHERE trade_id = '${tradeId}'"
+            )
+            !settled.isEmpty()
+        }
+        settled[0].status == "UNCOVERED"
+        settled[0].amount == 0.00
+
+        and: "the balance is unchanged"
+        getWalletBalance(user.userId, "USD") == 100.00
+        ledger(user.userId, "USD").count { it.type == "TRADE_SETTLEMENT" } == 0
+    }
+
+    def "an uncovered sell is credited once the position covers it"() {
+        given: "an uncovered sell of 10 AAPL"
+        def user = createTestUser()
+        def sell = [
+            "@type"     : "TradeCompleted",
+            tradeId     : UUID.randomUUID().toString(),
+            userId      : user.userId,
+            symbol      : "AAPL",
+            tradeType   : "SELL",
+            quantity    : 10.00,
+            pricePerUnit: 150.00,
+            currency    : "USD",
+            totalAmount : 1500.00,
+            fees        : 0.00
+        ]
+        publish(user.userId, sell)
+        await().atMost(15, SECONDS).until {
+            queryDatabase("SELECT status FROM wallet_service.wallet_settled_trades WHERE trade_id = '${sell.tradeId}'")
+                .collect { it.status } == ["UNCOVERED"]
+        }
+
+        when: "a buy of 10 AAPL settles for the same user"
+        publish(user.userId, sell + [tradeId: UUID.randomUUID().toString(), tradeType: "BUY"])
+
+        then: "the sell is settled and its proceeds credited"
+        await().atMost(15, SECONDS).until {
+            queryDatabase("SELECT status FROM wallet_service.wallet_settled_trades WHERE trade_id = '${sell.tradeId}'")
+                .collect { it.status } == ["SETTLED"]
+        }
+        getWalletBalance(user.userId, "USD") == 1500.00
+        ledger(user.userId, "USD").count { it.type == "TRADE_SETTLEMENT" } == 1
+    }
+
+    def "an unparseable trade event is dead-lettered"() {
+        given: "a consumer on the wallet's dead letter topic"
+        def consumer = new KafkaConsumer<String, String>([
+            (ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG)       : "localhost:9092",
+            (ConsumerConfig.GROUP_ID_CONFIG)                : "test-wallet-dlq-${UUID.randomUUID()}".toString(),
+            (ConsumerConfig.AUTO_OFFSET_RESET_CONFIG)       : "latest",
+            (ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG)  : StringDeserializer.name,
+            (ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG): StringDeserializer.name
+        ])
+        consumer.subscribe(["trading-events-wallet-dlq"])
+        await().atMost(10, SECONDS).until { consumer.poll(Duration.ofMillis(200)); !consumer.assignment().isEmpty() }
+        def garbage = "not a trade ${UUID.randomUUID()}".toString()
+
+        when: "a message that is not an event is published on trading-events"
+        def producer = new KafkaProducer<String, String>([
+            (ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)     : "localhost:9092",
+            (ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG)  : StringSerializer.name,
+            (ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG): StringSerializer.name
+        ])
+        producer.send(new ProducerRecord("trading-events", UUID.randomUUID().toString(), garbage)).get()
+        producer.close()
+
+        then: "it arrives on the dead letter topic"
+        def received = []
+        await().atMost(15, SECONDS).until {
+            consumer.poll(Duration.ofMillis(200)).each { received << it.value() }
+            received.contains(garbage)
+        }
+
+        cleanup:
+        consumer?.close()
+    }
+}
@@ -0,0 +1,141 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+import spock.lang.Unroll
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+
+import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class WalletConcurrencySpec extends BaseIntegrationSpec {
+
+    def "concurrent deposits to one balance are never lost"() {
+        given: "a user with an empty USD balance"
+        def user = createTestUser()
+
+        when: "50 deposits of 10 USD race each other"
+        def pool = Executors.newFixedThreadPool(25)
+        def statuses = pool.invokeAll((1..50).collect {
+            { -> postToWallet(user.userId, "deposit", [currency: "USD", amount: 10.00]).statusCode() } as Callable
+        })*.get()
+        pool.shutdown()
+
+        then: "every deposit is applied"
+        statuses.every { it == 200 }
+        getWalletBalance(user.userId, "USD") == 500.00
+
+        and: "every deposit is one ledger entry"
+        def rows = queryDatabase(
+            "SELECT COUNT(*) AS entries FROM wallet_service.wallet_ledger WHERE user_id = '${user.userId}' AND currency = 'USD'"
+        )
+        rows[0].entries == 50
+    }
+
+    def "concurrent withdrawals, deposits and reservations keep the balance consistent"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "withdrawals, deposits and reservations of 100 USD race each other"
+        def pool = Executors.newFixedThreadPool(30)
+        def results = pool.invokeAll((1..30).collect { i ->
+            def operation = ["withdraw", "deposit", "reservations"][i % 3]
+            { -> [operation, postToWallet(user.userId, operation, [currency: "USD", amount: 100.00]).statusCode()] } as Callable
+        })*.get()
+        pool.shutdown()
+
+        then: "the final balance matches exactly the operations that succeeded"
+        def deposited = results.count { it == ["deposit", 200] } * 100.00
+        def debited = (results.count { it == ["withdraw", 200] } + results.count { it == ["reservations", 201] }) * 100.00
+        getWalletBalance(user.userId, "USD") == 1000.00 + deposited - debited
+        getWalletBalance(user.userId, "USD") >= 0.00
+    }
+
+    def "unrelated accounts are updated in parallel"() {
+        given: "20 users"
+        def users = (1..20).collect { createTestUser() }
+
+        when: "each user deposits 10 times concurrently"
+        def pool = Executors.newFixedThreadPool(40)
+        pool.invokeAll(users.collectMany { user ->
+            (1..10).collect { { -> postToWallet(user.userId, "deposit", [currency: "EUR", amount: 5.00]).statusCode() } as Callable }
+        })*.get()
+        pool.shutdown()
+
+        then: "every balance received all of its deposits"
+        users.every { getWalletBalance(it.userId, "EUR") == 50.00 }
+    }
+
+    def "balance reads keep being served while deposits and withdrawals run"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "200 balance reads race 50 deposits and 50 withdrawals"
+        def pool = Executors.newFixedThreadPool(100)
+        def results = pool.invokeAll((1..300).collect { i ->
+            if (i % 6 == 0) {
+                { -> ["deposit", postToWallet(user.userId, "deposit", [currency: "USD", amount: 10.00]).statusCode()] } as Callable
+            } else if (i % 6 == 1) {
+                { -> ["withdraw", postToWallet(user.userId, "withdraw", [currency: "USD", amount: 10.00]).statusCode()] } as Callable
+            } else {
+                { ->
+                    ["read", given().get("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/balances/USD").then().extract().statusCode()]
+                } as Callable
+            }
+        })*.get()
+        pool.shutdown()
+
+        then: "every request succeeded and the balance is unchanged"
+        results.every { it[1] == 200 }
+        getWalletBalance(user.userId, "USD") == 1000.00
+    }
+
+    @Unroll
+    def "random deposits and withdrawals from 32 threads on #accounts accounts lose no update"() {
+        given: "accounts funded with 100 USD each"
+        def userIds = (1..accounts).collect { createTestUser().userId }
+        userIds.each { depositToWallet(it, "USD", 100.00) }
+
+        when: "each thread deposits and withdraws 40 random amounts on its account"
+        def pool = Executors.newFixedThreadPool(32)
+        def results = pool.invokeAll((0..<32).collect { thread ->
+            { ->
+                def userId = userIds[thread % accounts]
+                def random = ThreadLocalRandom.current()
+                def applied = BigDecimal.ZERO
+                40.times {
+                    def amount = BigDecimal.valueOf(random.nextLong(1, 101), 2)
+                    def operation = random.nextBoolean() ? "deposit" : "withdraw"
+                    if (postToWallet(userId, operation, [currency: "USD", amount: amount]).statusCode() == 200) {
+                        applied += operation == "deposit" ? amount : -amount
+                    }
+                }
+                [userId, applied]
+            } as Callable
+        })*.get()
+        pool.shutdown()
+
+        then: "every balance is its funding plus exactly the operations that succeeded"
+        def expected = userIds.collectEntries { [it, 100.00] }
+        results.each { expected[it[0]] += it[1] }
+        userIds.every { getWalletBalance(it, "USD") == expected[it] }
+        expected.values().every { it >= 0 }
+
+        and: "the projection catches up with the same balances"
+        await().atMost(10, SECONDS).until {
+            userIds.every { userId ->
+                queryDatabase(
+                    "SELECT COALESCE(SUM(balance), 0) AS balance FROM wallet_service.wallet_balances WHERE user_id = '${userId}' AND currency = 'USD'"
+                )[0].balance == expected[userId]
+            }
+        }
+
+        where:
+        accounts << [1, 8]
+    }
+}
@@ -3,6 +3,8 @@ package com.trading.integration.wallet
 import com.trading.integration.BaseIntegrationSpec
 
 import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
 
 class WalletDepositSpec extends BaseIntegrationSpec {
 
@@ -18,9 +20,14 @@ class WalletDepositSpec extends BaseIntegrationSpec {
         result.currency == "USD"
 
         and: "balance is stored in wallet_service schema"
-        def dbBalance = queryDatabase(
-            "SELECT balance FROM wallet_service.wallet_balances WHERE user_id = '${user.userId}' AND currency = 'USD'"
-        )
+        // wallet_balances is projected from the ledger asynchronously
+        def dbBalance = null
+        await().atMost(10, SECONDS).until {
+            dbBalance = queryDatabase(
+                "SELECT balance FROM wallet_service.wallet_balances WHERE user_id = '${user.userId}' AND currency = 'USD'"
+            )
+            dbBalance.size() == 1 && dbBalance[0].balance == 1000.00
+        }
         dbBalance.size() == 1
         dbBalance[0].balance == 1000.00
     }
@@ -0,0 +1,128 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+
+import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
+
+class WalletLedgerSpec extends BaseIntegrationSpec {
+
+    def ledger(String userId, String currency) {
+        given()
+            .get("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/ledger/${currency}")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getList("")
+    }
+
+    def "every balance change is recorded in the ledger"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "withdrawing 200 USD and reserving then releasing 300 USD"
+        given()
+            .contentType("application/json")
+            .body([currency: "USD", amount: 200.00])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/withdraw")
+            .then()
+            .statusCode(200)
+        def reservationId = given()
+            .contentType("application/json")
+            .body([currency: "USD", amount: 300.00])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/reservations")
+            .then()
+            .statusCode(201)
+            .extract()
+            .path("id")
+        given()
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/reservations/${reservationId}/release")
+            .then()
+            .statusCode(200)
+
+        then: "the ledger holds one signed entry per change"
+        def entries = ledger(user.userId, "USD")
+        entries*.type == ["DEPOSIT", "WITHDRAWAL", "RESERVATION", "RESERVATION_CREDIT"]
+        entries*.amount.collect { it as BigDecimal } == [1000.00, -200.00, -300.00, 300.00]
+        entries[2].referenceId == reservationId
+
+        and: "the balance is the sum of the entries"
+        getWalletBalance(user.userId, "USD") == 800.00
+    }
+
+    def "the ledger is returned one page at a time"() {
+        given: "a user with five deposits"
+        def user = createTestUser()
+        (1..5).each { depositToWallet(user.userId, "GBP", it as BigDecimal) }
+
+        when: "reading the ledger two entries at a time"
+        def pages = []
+        def after = null
+        3.times {
+            def page = given()
+                .queryParam("limit", 2)
+                .queryParams(after ? [after: after] : [:])
+                .get("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/ledger/GBP")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath()
+                .getList("")
+            pages << page
+            after = page ? page[-1].id : after
+        }
+
+        then: "the pages hold every entry once, oldest first"
+        pages*.size() == [2, 2, 1]
+        pages.flatten()*.amount.collect { it as BigDecimal } == [1.00, 2.00, 3.00, 4.00, 5.00]
+
+        and: "a page larger than the maximum is rejected"
+        given()
+            .queryParam("limit", 100000)
+            .get("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/ledger/GBP")
+            .then()
+            .statusCode(400)
+    }
+
+    def "wallet_balances catches up with the ledger"() {
+        given: "a user who made several deposits"
+        def user = createTestUser()
+        5.times { depositToWallet(user.userId, "EUR", 100.00) }
+
+        when: "the projector has run"
+        def projected = null
+        await().atMost(10, SECONDS).until {
+            projected = queryDatabase(
+                "SELECT balance FROM wallet_service.wallet_balances WHERE user_id = '${user.userId}' AND currency = 'EUR'"
+            )
+            projected && projected[0].balance == 500.00
+        }
+
+        then: "the projected balance matches the ledger"
+        def ledgerSum = queryDatabase(
+            "SELECT SUM(amount) AS total FROM wallet_service.wallet_ledger WHERE user_id = '${user.userId}' AND currency = 'EUR'"
+        )
+        projected[0].balance == 500.00
+        ledgerSum[0].total == 500.00
+    }
+
+    def "ledger entries are partitioned by month"() {
+        when: "listing the ledger partitions"
+        def partitions = queryDatabase("""
+            SELECT child.relname AS name
+            FROM pg_inherits
+            JOIN pg_class parent ON pg_inherits.inhparent = parent.oid
+            JOIN pg_class child ON pg_inherits.inhrelid = child.oid
+            JOIN pg_namespace ns ON parent.relnamespace = ns.oid
+            WHERE ns.nspname = 'wallet_service' AND parent.relname = 'wallet_ledger'
+        """)
+
+        then: "the current month has its own partition"
+        def current = "wallet_ledger_${new Date().format('yyyy_MM')}".toString()
+        partitions*.name.contains(current)
+        partitions*.name.contains("wallet_ledger_default")
+    }
+}
@@ -0,0 +1,97 @@
+package com.trading.integration.wallet
+
+import com.trading.integration.BaseIntegrationSpec
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import static io.restassured.RestAssured.given
+
+class WalletReservationSpec extends BaseIntegrationSpec {
+
+    def reserve(String userId, BigDecimal amount) {
+        given()
+            .contentType("application/json")
+            .body([currency: "USD", amount: amount])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${userId}/reservations")
+            .then()
+            .extract()
+            .response()
+    }
+
+    def "reserve debits the balance and commit keeps the debit"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "reserving 300 USD and committing the reservation"
+        def reservation = reserve(user.userId, 300.00)
+        def commit = given()
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/reservations/${reservation.path('id')}/commit")
+            .then()
+            .extract()
+            .response()
+
+        then: "the reservation is committed and the balance stays reduced"
+        reservation.statusCode() == 201
+        commit.statusCode() == 200
+        commit.path("status") == "COMMITTED"
+        getWalletBalance(user.userId, "USD") == 700.00
+    }
+
+    def "release returns reserved funds exactly once"() {
+        given: "a user with 1000 USD and a 300 USD reservation"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def reservationId = reserve(user.userId, 300.00).path("id")
+
+        when: "releasing the reservation twice"
+        2.times {
+            given()
+                .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/reservations/${reservationId}/release")
+                .then()
+                .statusCode(200)
+        }
+
+        then: "the balance is restored once"
+        getWalletBalance(user.userId, "USD") == 1000.00
+    }
+
+    def "concurrent reservations never overdraw the balance"() {
+        given: "a user with 1000 USD"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+
+        when: "20 reservations of 100 USD race each other"
+        def pool = Executors.newFixedThreadPool(20)
+        def statuses = pool.invokeAll((1..20).collect { { -> reserve(user.userId, 100.00).statusCode() } as Callable })
+            *.get()
+        pool.shutdown()
+
+        then: "exactly 10 succeed and the balance is zero"
+        statuses.count { it == 201 } == 10
+        statuses.count { it == 400 } == 10
+        getWalletBalance(user.userId, "USD") == 0.00
+    }
+
+    def "committing part of a reservation credits back the rest"() {
+        given: "a user with 1000 USD and a 300 USD reservation"
+        def user = createTestUser()
+        depositToWallet(user.userId, "USD", 1000.00)
+        def reservationId = reserve(user.userId, 300.00).path("id")
+
+        when: "committing only 120 USD of it"
+        def commit = given()
+            .contentType("application/json")
+            .body([amount: 120.00])
+            .post("${WALLET_SERVICE_URL}/api/v1/wallets/${user.userId}/reservations/${reservationId}/commit")
+            .then()
+            .extract()
+            .response()
+
+        then: "only the committed amount stays debited"
+        commit.statusCode() == 200
+        (commit.path("amount") as BigDecimal) == 120.00
+        getWalletBalance(user.userId, "USD") == 880.00
+    }
+}
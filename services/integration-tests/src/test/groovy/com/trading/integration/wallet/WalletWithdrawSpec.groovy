@@ -3,6 +3,8 @@ package com.trading.integration.wallet
 import com.trading.integration.BaseIntegrationSpec
 
 import static io.restassured.RestAssured.given
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.awaitility.Awaitility.await
 
 class WalletWithdrawSpec extends BaseIntegrationSpec {
 
@@ -26,9 +28,14 @@ class WalletWithdrawSpec extends BaseIntegrationSpec {
         balance == 600.00
 
         and: "balance is updated in wallet_service schema"
-        def dbBalance = queryDatabase(
-            "SELECT balance FROM wallet_service.wallet_balances WHERE user_id = '${user.userId}' AND currency = 'USD'"
-        )
+        // wallet_balances is projected from the ledger asynchronously
+        def dbBalance = null
+        await().atMost(10, SECONDS).until {
+            dbBalance = queryDatabase(
+                "SELECT balance FROM wallet_service.wallet_balances WHERE user_id = '${user.userId}' AND currency = 'USD'"
+            )
+            dbBalance && dbBalance[0].balance == 600.00
+        }
         dbBalance[0].balance == 600.00
     }
 
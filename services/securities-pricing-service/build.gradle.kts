@@ -1,6 +1,7 @@
 plugins {
     java
     id("io.quarkus")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 dependencies {
@@ -13,6 +14,7 @@ dependencies {
     implementation("io.quarkus:quarkus-micrometer-registry-prometheus")
     implementation("io.quarkus:quarkus-smallrye-openapi")
     implementation("io.quarkus:quarkus-scheduler")
+    implementation("io.quarkus:quarkus-smallrye-reactive-messaging-kafka")
     implementation("io.quarkus:quarkus-arc")
 
     // Shared modules
@@ -27,3 +29,10 @@ dependencies {
 tasks.test {
     systemProperty("java.util.logging.manager", "org.jboss.logmanager.LogManager")
 }
+
+// ./gradlew :services:securities-pricing-service:jmh
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+}
@@ -0,0 +1,68 @@
+package com.trading.platform.pricing.engine;
+
+import com.trading.platform.domain.SecurityType;
+import com.trading.platform.pricing.entity.Security;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full ticks of 10k and 100k symbols including publishing the next snapshot (symbols/sec =
+ * ops/sec x symbols), and getSecurity-style reads alone and while a writer ticks
+ * continuously. The contended group's read score staying close to the uncontended one
+ * shows readers are not held up by ticks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TickEngineBenchmark {
+    @Param({"10000", "100000"})
+    int symbols;
+
+    private TickEngine engine;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<TickEngine.Listing> listings = new ArrayList<>(symbols);
+        names = new String[symbols];
+        for (int i = 0; i < symbols; i++) {
+            names[i] = String.format("SIM%06d", i + 1);
+            listings.add(new TickEngine.Listing(names[i], names[i], SecurityType.STOCK, new BigDecimal("100.00")));
+        }
+        engine = new TickEngine(listings, 64, 0, 0.02, 42, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public int tick() {
+        return engine.tick();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Security read() {
+        return engine.snapshot().get(names[ThreadLocalRandom.current().nextInt(symbols)]);
+    }
+
+    @Benchmark
+    @Group("readWhileTicking")
+    @GroupThreads(1)
+    public int ticker() {
+        return engine.tick();
+    }
+
+    @Benchmark
+    @Group("readWhileTicking")
+    @GroupThreads(4)
+    public Security reader() {
+        return engine.snapshot().get(names[ThreadLocalRandom.current().nextInt(symbols)]);
+    }
+}
@@ -0,0 +1,42 @@
+package com.trading.platform.pricing.engine;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Candle widths and how many of each are kept per symbol.
+ */
+public enum CandleInterval {
+    S1("1s", 1_000, 3_600),      // last hour
+    M1("1m", 60_000, 1_440),     // last day
+    M5("5m", 300_000, 288),      // last day
+    H1("1h", 3_600_000, 168);    // last week
+
+    private final String label;
+    private final long millis;
+    private final int capacity;
+
+    CandleInterval(String label, long millis, int capacity) {
+        this.label = label;
+        this.millis = millis;
+        this.capacity = capacity;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public static Optional<CandleInterval> fromLabel(String label) {
+        return Arrays.stream(values())
+            .filter(interval -> interval.label.equalsIgnoreCase(label))
+            .findFirst();
+    }
+}
@@ -0,0 +1,204 @@
+package com.trading.platform.pricing.engine;
+
+import com.trading.platform.pricing.entity.Candle;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Intraday OHLCV candles of the first {@code symbols} symbols of a TickEngine, at every
+ * CandleInterval. Each interval is one ring buffer of fixed rows (start, open, high, low,
+ * close, volume, prices scaled as in TickEngine), CandleInterval.capacity rows per symbol,
+ * addressed by bucket number modulo capacity; a row whose start is not its bucket's is
+ * stale. Recording a tick writes into existing rows and allocates nothing.
+ * <p>
+ * The rings live on the heap, or, given a spill directory, in one memory-mapped file per
+ * interval, so candles survive a restart and the OS can page out what nobody reads. A file
+ * is the ring itself and covers exactly the interval's retention: it is reused across days
+ * and restarts, and rows older than the ring holds are recognized as stale by their start,
+ * as on the heap. A symbol's rows are written only by the shard ticking it; readers
+ * copy them under a per-symbol sequence number and retry if a tick interleaved.
+ */
+public class CandleStore implements AutoCloseable {
+    private static final int ROW = 6;
+    private static final int START = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int VOLUME = 5;
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int symbols;
+    private final LongBuffer[] rings;
+    private final MappedByteBuffer[] mapped;
+    private final long[] sequence;
+
+    private CandleStore(int symbols, LongBuffer[] rings, MappedByteBuffer[] mapped) {
+        this.symbols = symbols;
+        this.rings = rings;
+        this.mapped = mapped;
+        this.sequence = new long[symbols];
+    }
+
+    public static CandleStore onHeap(int symbols) {
+        LongBuffer[] rings = new LongBuffer[INTERVALS.length];
+        for (CandleInterval interval : INTERVALS) {
+            rings[interval.ordinal()] = LongBuffer.allocate(ringSize(symbols, interval, 1));
+        }
+        return new CandleStore(symbols, rings, null);
+    }
+
+    /**
+     * Rings backed by candles-{interval}-{symbols}.bin in the directory, reopened if they
+     * exist, so a restart keeps every candle still within its interval's retention. Files
+     * left by a different symbol count are deleted.
+     */
+    public static CandleStore mapped(int symbols, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        LongBuffer[] rings = new LongBuffer[INTERVALS.length];
+        MappedByteBuffer[] mapped = new MappedByteBuffer[INTERVALS.length];
+        for (CandleInterval interval : INTERVALS) {
+            long bytes = (long) ringSize(symbols, interval, Long.BYTES) * Long.BYTES;
+            Path file = directory.resolve("candles-" + interval.label() + "-" + symbols + ".bin");
+            deleteStaleFiles(directory, interval, file);
+            // The mapping stays valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                mapped[interval.ordinal()] = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+            rings[interval.ordinal()] = mapped[interval.ordinal()].asLongBuffer();
+        }
+        return new CandleStore(symbols, rings, mapped);
+    }
+
+    public int symbols() {
+        return symbols;
+    }
+
+    /**
+     * Adds one tick at a scaled price to every interval's current candle. Only the thread
+     * ticking the symbol may call this.
+     */
+    public void record(int symbol, long millis, long price) {
+        long seq = sequence[symbol];
+        LONGS.setOpaque(sequence, symbol, seq + 1);
+        VarHandle.storeStoreFence();
+        for (CandleInterval interval : INTERVALS) {
+            LongBuffer ring = rings[interval.ordinal()];
+            long bucket = millis / interval.millis();
+            long start = bucket * interval.millis();
+            int row = row(symbol, interval, bucket);
+            if (ring.get(row + START) != start) {
+                ring.put(row + START, start);
+                ring.put(row + OPEN, price);
+                ring.put(row + HIGH, price);
+                ring.put(row + LOW, price);
+                ring.put(row + CLOSE, price);
+                ring.put(row + VOLUME, 1);
+            } else {
+                if (price > ring.get(row + HIGH)) {
+                    ring.put(row + HIGH, price);
+                }
+                if (price < ring.get(row + LOW)) {
+                    ring.put(row + LOW, price);
+                }
+                ring.put(row + CLOSE, price);
+                ring.put(row + VOLUME, ring.get(row + VOLUME) + 1);
+            }
+        }
+        LONGS.setRelease(sequence, symbol, seq + 2);
+    }
+
+    /**
+     * Candles of a symbol starting in [from, to), oldest first; intervals without ticks are
+     * left out, and nothing older than the ring holds is returned.
+     */
+    public List<Candle> candles(int symbol, CandleInterval interval, Instant from, Instant to) {
+        long width = interval.millis();
+        long last = Math.floorDiv(to.toEpochMilli() - 1, width);
+        long first = Math.max(Math.floorDiv(from.toEpochMilli() + width - 1, width), last - interval.capacity() + 1);
+        if (last < first) {
+            return List.of();
+        }
+        int count = (int) (last - first + 1);
+        long[] copy = new long[count * ROW];
+        LongBuffer ring = rings[interval.ordinal()];
+        while (true) {
+            long before = (long) LONGS.getAcquire(sequence, symbol);
+            if ((before & 1) == 0) {
+                for (int n = 0; n < count; n++) {
+                    ring.get(row(symbol, interval, first + n), copy, n * ROW, ROW);
+                }
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(sequence, symbol) == before) {
+                    break;
+                }
+            }
+            Thread.onSpinWait();
+        }
+
+        List<Candle> candles = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            int row = n * ROW;
+            if (copy[row + START] == (first + n) * width && copy[row + VOLUME] > 0) {
+                candles.add(new Candle(Instant.ofEpochMilli(copy[row + START]), TickEngine.toPrice(copy[row + OPEN]),
+                    TickEngine.toPrice(copy[row + HIGH]), TickEngine.toPrice(copy[row + LOW]),
+                    TickEngine.toPrice(copy[row + CLOSE]), copy[row + VOLUME]));
+            }
+        }
+        return candles;
+    }
+
+    /**
+     * Flushes mapped rings to their files; heap rings need nothing.
+     */
+    @Override
+    public void close() {
+        if (mapped != null) {
+            for (MappedByteBuffer buffer : mapped) {
+                buffer.force();
+            }
+        }
+    }
+
+    // A file sized for another symbol count (candles-{interval}-{n}.bin) is never read again once the
+    // listing changes; it would otherwise sit next to the current one for good
+    private static void deleteStaleFiles(Path directory, CandleInterval interval, Path file) throws IOException {
+        Pattern ring = Pattern.compile("candles-" + Pattern.quote(interval.label()) + "-\\d+\\.bin");
+        List<Path> stale;
+        try (Stream<Path> listing = Files.list(directory)) {
+            stale = listing.filter(path -> ring.matcher(path.getFileName().toString()).matches())
+                .filter(path -> !path.getFileName().equals(file.getFileName()))
+                .toList();
+        }
+        for (Path path : stale) {
+            Files.delete(path);
+        }
+    }
+
+    private static int row(int symbol, CandleInterval interval, long bucket) {
+        return (symbol * interval.capacity() + (int) Math.floorMod(bucket, interval.capacity())) * ROW;
+    }
+
+    // Rows are int-indexed, and a mapping is limited to 2 GB
+    private static int ringSize(int symbols, CandleInterval interval, int bytesPerLong) {
+        long longs = (long) symbols * interval.capacity() * ROW;
+        if (longs * bytesPerLong > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many symbols for " + interval.label() + " candles: " + symbols);
+        }
+        return (int) longs;
+    }
+}
@@ -0,0 +1,65 @@
+package com.trading.platform.pricing.engine;
+
+import com.trading.platform.domain.SecurityType;
+import com.trading.platform.pricing.entity.Security;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every security's quote as of one tick (the epoch). Never modified once published;
+ * TickEngine replaces the whole snapshot after each tick, reusing the Security of every
+ * symbol whose price did not move.
+ */
+public final class PriceSnapshot {
+    private final long epoch;
+    private final Map<String, Integer> index;
+    private final Security[] securities;
+    private final List<Security> all;
+
+    PriceSnapshot(long epoch, Map<String, Integer> index, Security[] securities) {
+        this.epoch = epoch;
+        this.index = index;
+        this.securities = securities;
+        this.all = Collections.unmodifiableList(Arrays.asList(securities));
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return securities.length;
+    }
+
+    /**
+     * The quote for a symbol, or null for an unknown symbol.
+     */
+    public Security get(String symbol) {
+        Integer i = index.get(symbol);
+        return i == null ? null : securities[i];
+    }
+
+    /**
+     * The symbol's position in the engine, or -1 for an unknown symbol.
+     */
+    public int indexOf(String symbol) {
+        Integer i = index.get(symbol);
+        return i == null ? -1 : i;
+    }
+
+    public Security get(int i) {
+        return securities[i];
+    }
+
+    public List<Security> all() {
+        return all;
+    }
+
+    public List<Security> byType(SecurityType type) {
+        return all.stream()
+            .filter(s -> s.getType() == type)
+            .toList();
+    }
+}
@@ -0,0 +1,162 @@
+package com.trading.platform.pricing.engine;
+
+import com.trading.platform.domain.SecurityType;
+import com.trading.platform.pricing.entity.Security;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Price store and tick generator for a large symbol universe.
+ * Prices live in primitive columns (last, high, low, scaled by SCALE), indexed by a
+ * symbol's position. A tick walks the symbols in fixed shards on a dedicated fork-join
+ * pool; each shard owns its SplittableRandom and is the only writer of its symbols, so a
+ * tick needs no locks.
+ * <p>
+ * Readers never touch the columns. While ticking its symbols a shard also fills its part
+ * of the next PriceSnapshot, copying on write: a symbol that moved gets a new Security
+ * with its version bumped, the others keep their previous one. The finished snapshot is
+ * published with a single volatile write, so a reader sees either the whole previous tick
+ * or the whole new one.
+ */
+public class TickEngine implements AutoCloseable {
+    // Prices are stored in ten-thousandths and exposed rounded to cents
+    public static final long SCALE = 10_000;
+
+    private final Map<String, Integer> index;
+    private final String[] symbols;
+    private final String[] names;
+    private final SecurityType[] types;
+    private final long[] last;
+    private final long[] high;
+    private final long[] low;
+    private final long[] versions;
+    private final Shard[] shards;
+    private final ForkJoinPool pool;
+    private final double maxMove;
+    private final CandleStore candles;
+    private volatile PriceSnapshot snapshot;
+
+    /**
+     * @param maxMove largest relative move per tick, e.g. 0.02 for ±2%
+     * @param candles where the first candles.symbols() listings record their ticks, or null
+     */
+    public TickEngine(List<Listing> listings, int shardCount, int parallelism, double maxMove, long seed,
+                      CandleStore candles) {
+        int size = listings.size();
+        this.maxMove = maxMove;
+        this.candles = candles;
+        index = new HashMap<>(size * 2);
+        symbols = new String[size];
+        names = new String[size];
+        types = new SecurityType[size];
+        last = new long[size];
+        high = new long[size];
+        low = new long[size];
+        versions = new long[size];
+        Security[] securities = new Security[size];
+        Instant now = Instant.now();
+        for (int i = 0; i < size; i++) {
+            Listing listing = listings.get(i);
+            index.put(listing.symbol(), i);
+            symbols[i] = listing.symbol();
+            names[i] = listing.name();
+            types[i] = listing.type();
+            long price = listing.price().multiply(BigDecimal.valueOf(SCALE)).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            last[i] = high[i] = low[i] = price;
+            BigDecimal opened = toPrice(price);
+            securities[i] = new Security(symbols[i], names[i], types[i], opened, opened, opened, opened, now, 0);
+        }
+        snapshot = new PriceSnapshot(0, index, securities);
+
+        int count = Math.max(1, Math.min(shardCount, size));
+        shards = new Shard[count];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int s = 0; s < count; s++) {
+            shards[s] = new Shard((int) ((long) size * s / count), (int) ((long) size * (s + 1) / count), root.split());
+        }
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Moves every price once and publishes the resulting snapshot; returns the number of
+     * symbols whose price changed. Ticks do not overlap.
+     */
+    public synchronized int tick() {
+        Instant now = Instant.now();
+        PriceSnapshot previous = snapshot;
+        Security[] next = new Security[symbols.length];
+        int changed = pool.submit(() -> IntStream.range(0, shards.length).parallel()
+            .map(s -> tick(shards[s], previous, next, now))
+            .sum()).join();
+        snapshot = new PriceSnapshot(previous.epoch() + 1, index, next);
+        return changed;
+    }
+
+    /**
+     * The latest published snapshot; hold on to it to read several quotes from the same tick.
+     */
+    public PriceSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private int tick(Shard shard, PriceSnapshot previous, Security[] next, Instant now) {
+        SplittableRandom random = shard.random();
+        long millis = now.toEpochMilli();
+        int changed = 0;
+        for (int i = shard.from(); i < shard.to(); i++) {
+            long price = last[i];
+            long moved = Math.max(1, price + Math.round(price * (random.nextDouble() * 2 - 1) * maxMove));
+            if (candles != null && i < candles.symbols()) {
+                candles.record(i, millis, moved);
+            }
+            if (moved == price) {
+                next[i] = previous.get(i);
+                continue;
+            }
+            // Open never moves and high/low rarely do, so their BigDecimals are carried over
+            Security before = previous.get(i);
+            BigDecimal current = toPrice(moved);
+            BigDecimal highest = before.getHighPrice();
+            BigDecimal lowest = before.getLowPrice();
+            last[i] = moved;
+            if (moved > high[i]) {
+                high[i] = moved;
+                highest = current;
+            }
+            if (moved < low[i]) {
+                low[i] = moved;
+                lowest = current;
+            }
+            next[i] = new Security(symbols[i], names[i], types[i], current, before.getOpenPrice(),
+                highest, lowest, now, ++versions[i]);
+            changed++;
+        }
+        return changed;
+    }
+
+    // Half-up to cents with integer arithmetic (prices are positive); BigDecimal.divide dominates a tick otherwise
+    static BigDecimal toPrice(long scaled) {
+        return BigDecimal.valueOf((scaled + SCALE / 200) / (SCALE / 100), 2);
+    }
+
+    public record Listing(String symbol, String name, SecurityType type, BigDecimal price) {}
+
+    // Symbols [from, to), written only by the task ticking this shard
+    private record Shard(int from, int to, SplittableRandom random) {}
+}
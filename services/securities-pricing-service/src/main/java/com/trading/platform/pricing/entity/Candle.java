@@ -0,0 +1,9 @@
+package com.trading.platform.pricing.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * OHLC prices of one interval; volume is the number of ticks that fell into it.
+ */
+public record Candle(Instant start, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close, long volume) {}
@@ -1,14 +1,29 @@
 package com.trading.platform.pricing.resource;
 
 import com.trading.platform.domain.SecurityType;
+import com.trading.platform.pricing.engine.CandleInterval;
+import com.trading.platform.pricing.service.PriceStream;
 import com.trading.platform.pricing.service.PricingService;
+import com.trading.platform.pricing.service.SecuritiesPayloadCache;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 @Path("/api/v1/pricing")
@@ -20,14 +35,37 @@ public class PricingResource {
     @Inject
     PricingService pricingService;
 
+    @Inject
+    SecuritiesPayloadCache payloadCache;
+
+    @Inject
+    PriceStream priceStream;
+
+    @ConfigProperty(name = "pricing.stream.max-symbols")
+    int maxStreamSymbols;
+
     @GET
     @Path("/securities")
-    @Operation(summary = "Get all securities", description = "Returns list of all available securities with current prices")
-    public Response getAllSecurities(@QueryParam("type") SecurityType type) {
-        if (type != null) {
-            return Response.ok(pricingService.getSecuritiesByType(type)).build();
-        }
-        return Response.ok(pricingService.getAllSecurities()).build();
+    @Operation(summary = "Get all securities", description = "Returns list of all available securities with current prices; "
+        + "answers 304 when If-None-Match carries the current ETag")
+    public Response getAllSecurities(@QueryParam("type") SecurityType type,
+                                     @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                                     @Context Request request) {
+        SecuritiesPayloadCache.Payload payload = payloadCache.get(type);
+        boolean gzip = payload.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        EntityTag etag = new EntityTag(gzip ? payload.gzipEtag() : payload.etag());
+        // Pollers revalidate every time; an unchanged list costs a hash comparison and no body
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        Response.ResponseBuilder response = notModified != null ? notModified
+            : gzip ? Response.ok(payload.gzip()).header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            : Response.ok(payload.json());
+        return response.tag(etag)
+            .cacheControl(cacheControl)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .build();
     }
 
     @GET
@@ -54,6 +92,68 @@ public class PricingResource {
             .build();
     }
 
+    @GET
+    @Path("/securities/{symbol}/candles")
+    @Operation(summary = "Get candles", description = "Returns OHLCV candles (interval 1s, 1m, 5m or 1h) starting in [from, to); "
+        + "to defaults to now and from to as far back as the interval keeps")
+    public Response getCandles(@PathParam("symbol") String symbol,
+                               @QueryParam("interval") @DefaultValue("1m") String interval,
+                               @QueryParam("from") String from,
+                               @QueryParam("to") String to) {
+        var candleInterval = CandleInterval.fromLabel(interval);
+        if (candleInterval.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "Unknown interval", "interval", interval))
+                .build();
+        }
+        Instant end;
+        Instant start;
+        try {
+            end = to == null ? Instant.now() : Instant.parse(to);
+            start = from == null ? Instant.EPOCH : Instant.parse(from);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "from and to must be ISO-8601 instants"))
+                .build();
+        }
+        return pricingService.getCandles(symbol, candleInterval.get(), start, end)
+            .map(candles -> Response.ok(Map.of("symbol", symbol.toUpperCase(), "interval", candleInterval.get().label(),
+                "candles", candles)).build())
+            .orElse(Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "No candles for security", "symbol", symbol))
+                .build());
+    }
+
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "Stream price changes", description = "Server-sent 'prices' events: all subscribed quotes first, "
+        + "then only those that changed each tick. symbols is a comma-separated list, all listed securities if omitted")
+    public void stream(@QueryParam("symbols") String symbols, @Context SseEventSink sink, @Context Sse sse) {
+        List<String> subscription = symbols == null || symbols.isBlank()
+            ? pricingService.getListedSymbols()
+            : Arrays.stream(symbols.split(","))
+                .map(String::trim)
+                .filter(symbol -> !symbol.isEmpty())
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+        if (subscription.size() > maxStreamSymbols) {
+            throw new BadRequestException(Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "Too many symbols", "max", maxStreamSymbols))
+                .build());
+        }
+        List<String> unknown = subscription.stream()
+            .filter(symbol -> pricingService.getSecurity(symbol).isEmpty())
+            .toList();
+        if (!unknown.isEmpty()) {
+            throw new NotFoundException(Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Security not found", "symbols", unknown))
+                .build());
+        }
+        priceStream.subscribe(subscription, sink, sse);
+    }
+
     @GET
     @Path("/health")
     @Operation(summary = "Health check", description = "Returns service health status")
@@ -61,7 +161,8 @@ public class PricingResource {
         return Response.ok(Map.of(
             "status", "UP",
             "service", "securities-pricing-service",
-            "securitiesCount", pricingService.getAllSecurities().size()
+            "securitiesCount", pricingService.getAllSecurities().size(),
+            "streamSubscribers", priceStream.subscriberCount()
         )).build();
     }
 }
@@ -0,0 +1,159 @@
+package com.trading.platform.pricing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.platform.pricing.engine.PriceSnapshot;
+import com.trading.platform.pricing.entity.Security;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes price changes to server-sent event subscribers. After each tick one pass on the
+ * fan-out thread compares every subscriber's symbols against the quotes it was last sent;
+ * snapshots are copy-on-write, so a changed quote is simply a different Security instance.
+ * Each changed quote is serialized once per tick however many subscribers receive it.
+ * <p>
+ * A subscriber whose previous event is still being written skips the tick; its changes
+ * are conflated into the next event it can take, so it never receives stale intermediate
+ * prices. One that stays blocked for more than pricing.stream.max-lag-ticks is dropped.
+ */
+@ApplicationScoped
+public class PriceStream {
+    private static final Logger LOG = LoggerFactory.getLogger(PriceStream.class);
+
+    @Inject
+    PricingService pricingService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "pricing.stream.max-lag-ticks")
+    int maxLagTicks;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService fanOutExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "price-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Registers a subscriber; its first event carries all of its quotes, later ones only the changes.
+     */
+    public void subscribe(List<String> symbols, SseEventSink sink, Sse sse) {
+        Subscriber subscriber = new Subscriber(symbols.toArray(String[]::new), sink, sse);
+        subscribers.add(subscriber);
+        fanOutExecutor.execute(() -> deliver(subscriber, pricingService.getSnapshot(), new IdentityHashMap<>()));
+        LOG.debug("Price stream subscriber added: symbols={}, subscribers={}", symbols.size(), subscribers.size());
+    }
+
+    /**
+     * Called after each tick; the fan-out runs off the tick thread.
+     */
+    public void publish(PriceSnapshot snapshot) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        fanOutExecutor.execute(() -> {
+            Map<Security, String> rendered = new IdentityHashMap<>();
+            for (Subscriber subscriber : subscribers) {
+                deliver(subscriber, snapshot, rendered);
+            }
+        });
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.sink.close());
+    }
+
+    private void deliver(Subscriber subscriber, PriceSnapshot snapshot, Map<Security, String> rendered) {
+        if (subscriber.sink.isClosed()) {
+            subscribers.remove(subscriber);
+            return;
+        }
+        if (subscriber.inFlight) {
+            if (++subscriber.lagTicks > maxLagTicks) {
+                LOG.info("Dropping slow price stream subscriber after {} blocked ticks", subscriber.lagTicks);
+                subscribers.remove(subscriber);
+                subscriber.sink.close();
+            }
+            return;
+        }
+        subscriber.lagTicks = 0;
+
+        StringJoiner delta = new StringJoiner(",", "[", "]");
+        int changed = 0;
+        for (int i = 0; i < subscriber.symbols.length; i++) {
+            Security security = snapshot.get(subscriber.symbols[i]);
+            if (security != subscriber.lastSent[i]) {
+                subscriber.lastSent[i] = security;
+                delta.add(rendered.computeIfAbsent(security, this::render));
+                changed++;
+            }
+        }
+        if (changed == 0) {
+            return;
+        }
+
+        subscriber.inFlight = true;
+        subscriber.sink.send(subscriber.sse.newEventBuilder()
+                .name("prices")
+                .id(String.valueOf(snapshot.epoch()))
+                .mediaType(MediaType.TEXT_PLAIN_TYPE)
+                .data(delta.toString())
+                .build())
+            .whenComplete((ignored, failure) -> {
+                subscriber.inFlight = false;
+                if (failure != null) {
+                    LOG.debug("Price stream subscriber gone: {}", failure.getMessage());
+                    subscribers.remove(subscriber);
+                }
+            });
+    }
+
+    private String render(Security security) {
+        try {
+            return objectMapper.writeValueAsString(security);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize security " + security.getSymbol(), e);
+        }
+    }
+
+    // lastSent and lagTicks are only touched on the fan-out thread; inFlight is cleared by the write callback
+    private static final class Subscriber {
+        final String[] symbols;
+        final Security[] lastSent;
+        final SseEventSink sink;
+        final Sse sse;
+        volatile boolean inFlight;
+        int lagTicks;
+
+        Subscriber(String[] symbols, SseEventSink sink, Sse sse) {
+            this.symbols = symbols;
+            this.lastSent = new Security[symbols.length];
+            this.sink = sink;
+            this.sse = sse;
+        }
+    }
+}
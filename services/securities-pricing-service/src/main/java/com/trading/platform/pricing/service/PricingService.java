@@ -1,25 +1,63 @@
 package com.trading.platform.pricing.service;
 
 import com.trading.platform.domain.SecurityType;
+import com.trading.platform.events.PriceUpdatedEvent;
+import com.trading.platform.pricing.engine.CandleInterval;
+import com.trading.platform.pricing.engine.CandleStore;
+import com.trading.platform.pricing.engine.PriceSnapshot;
+import com.trading.platform.pricing.engine.TickEngine;
+import com.trading.platform.pricing.entity.Candle;
 import com.trading.platform.pricing.entity.Security;
+import io.smallrye.reactive.messaging.MutinyEmitter;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
 import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @ApplicationScoped
 public class PricingService {
     private static final Logger LOG = LoggerFactory.getLogger(PricingService.class);
 
-    private final Map<String, Security> securities = new ConcurrentHashMap<>();
-    private final Random random = new Random();
+    private final List<TickEngine.Listing> listings = new ArrayList<>();
+    private TickEngine engine;
+    private CandleStore candles;
+
+    @Inject
+    PriceStream priceStream;
+
+    @org.eclipse.microprofile.reactive.messaging.Channel("pricing-events-out")
+    MutinyEmitter<PriceUpdatedEvent> pricingEventsEmitter;
+
+    // Generated SIMnnnnnn stocks on top of the listed securities, for load testing
+    @ConfigProperty(name = "pricing.simulated-symbols")
+    int simulatedSymbols;
+
+    @ConfigProperty(name = "pricing.tick.shards")
+    int shards;
+
+    @ConfigProperty(name = "pricing.tick.parallelism")
+    int parallelism;
+
+    @ConfigProperty(name = "pricing.tick.max-move")
+    double maxMove;
+
+    @ConfigProperty(name = "pricing.candles.include-simulated")
+    boolean candlesForSimulated;
+
+    // Unset keeps candles on the heap; set, they are memory-mapped under it and kept across restarts
+    @ConfigProperty(name = "pricing.candles.spill-dir")
+    Optional<String> candleSpillDir;
 
     @PostConstruct
     public void init() {
@@ -51,55 +89,104 @@ public class PricingService {
         addSecurity("LQD", "Investment Grade Corp", SecurityType.BOND_INDEX, new BigDecimal("110.00"));
         addSecurity("HYG", "High Yield Corp", SecurityType.BOND_INDEX, new BigDecimal("82.50"));
 
-        LOG.info("Initialized {} securities", securities.size());
+        SplittableRandom random = new SplittableRandom(simulatedSymbols);
+        for (int i = 1; i <= simulatedSymbols; i++) {
+            listings.add(new TickEngine.Listing(String.format("SIM%06d", i), "Simulated Security " + i,
+                SecurityType.STOCK, BigDecimal.valueOf(random.nextLong(1_000, 50_000), 2)));
+        }
+
+        // Listed securities come first, so candles cover them and optionally the simulated ones
+        int candleSymbols = candlesForSimulated ? listings.size() : listings.size() - simulatedSymbols;
+        candles = openCandles(candleSymbols);
+        engine = new TickEngine(listings, shards, parallelism, maxMove, System.nanoTime(), candles);
+        LOG.info("Initialized {} securities ({} simulated), candles for {}", engine.size(), simulatedSymbols, candleSymbols);
+    }
+
+    private CandleStore openCandles(int symbols) {
+        if (candleSpillDir.isEmpty()) {
+            return CandleStore.onHeap(symbols);
+        }
+        try {
+            return CandleStore.mapped(symbols, Path.of(candleSpillDir.get()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map candle files under " + candleSpillDir.get(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        engine.close();
+        candles.close();
     }
 
     private void addSecurity(String symbol, String name, SecurityType type, BigDecimal price) {
-        Security security = new Security(symbol, name, type, price);
-        securities.put(symbol, security);
+        listings.add(new TickEngine.Listing(symbol, name, type, price));
         LOG.debug("Added security: {} - {} at ${}", symbol, name, price);
     }
 
-    @Scheduled(every = "30s")
+    @Scheduled(every = "${pricing.tick-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
     public void updatePrices() {
-        LOG.debug("Updating security prices");
-        int updatedCount = 0;
-
-        for (Security security : securities.values()) {
-            // Fluctuate ±2%
-            double fluctuation = 1.0 + (random.nextDouble() * 0.04 - 0.02);
-            BigDecimal newPrice = security.getCurrentPrice()
-                .multiply(BigDecimal.valueOf(fluctuation))
-                .setScale(2, RoundingMode.HALF_UP);
-
-            // Update high/low
-            if (newPrice.compareTo(security.getHighPrice()) > 0) {
-                security.setHighPrice(newPrice);
-            }
-            if (newPrice.compareTo(security.getLowPrice()) < 0) {
-                security.setLowPrice(newPrice);
-            }
-
-            security.setCurrentPrice(newPrice);
-            security.setLastUpdated(Instant.now());
-            updatedCount++;
+        long start = System.nanoTime();
+        int updatedCount = engine.tick();
+
+        // Only listed securities are published; simulated ones exist to load the tick engine and readers
+        PriceSnapshot snapshot = engine.snapshot();
+        int listed = snapshot.size() - simulatedSymbols;
+        for (int i = 0; i < listed; i++) {
+            publishPriceUpdatedEvent(snapshot.get(i));
         }
+        priceStream.publish(snapshot);
+
+        LOG.debug("Updated {} security prices in {} ms", updatedCount, (System.nanoTime() - start) / 1_000_000);
+    }
 
-        LOG.debug("Updated {} security prices", updatedCount);
+    private void publishPriceUpdatedEvent(Security security) {
+        PriceUpdatedEvent event = new PriceUpdatedEvent();
+        event.setSymbol(security.getSymbol());
+        event.setPrice(security.getCurrentPrice());
+        event.setTimestamp(security.getLastUpdated());
+        // Ticks are superseded every cycle, so a lost tick is not worth blocking the update loop for
+        pricingEventsEmitter.sendAndForget(event);
     }
 
     public List<Security> getAllSecurities() {
-        return new ArrayList<>(securities.values());
+        return engine.snapshot().all();
+    }
+
+    /**
+     * The current epoch's prices; hold on to it to read several quotes from the same tick.
+     */
+    public PriceSnapshot getSnapshot() {
+        return engine.snapshot();
+    }
+
+    /**
+     * Symbols of the listed securities, i.e. everything but the simulated ones.
+     */
+    public List<String> getListedSymbols() {
+        PriceSnapshot snapshot = engine.snapshot();
+        return snapshot.all().subList(0, snapshot.size() - simulatedSymbols).stream()
+            .map(Security::getSymbol)
+            .toList();
     }
 
     public Optional<Security> getSecurity(String symbol) {
-        return Optional.ofNullable(securities.get(symbol.toUpperCase()));
+        return Optional.ofNullable(engine.snapshot().get(symbol.toUpperCase()));
     }
 
     public List<Security> getSecuritiesByType(SecurityType type) {
-        return securities.values().stream()
-            .filter(s -> s.getType() == type)
-            .toList();
+        return engine.snapshot().byType(type);
+    }
+
+    /**
+     * The symbol's candles starting in [from, to); empty if the symbol is unknown or has no candles.
+     */
+    public Optional<List<Candle>> getCandles(String symbol, CandleInterval interval, Instant from, Instant to) {
+        int index = engine.snapshot().indexOf(symbol.toUpperCase());
+        if (index < 0 || index >= candles.symbols()) {
+            return Optional.empty();
+        }
+        return Optional.of(candles.candles(index, interval, from, to));
     }
 
     public BigDecimal getCurrentPrice(String symbol) {
@@ -0,0 +1,96 @@
+package com.trading.platform.pricing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.platform.domain.SecurityType;
+import com.trading.platform.pricing.engine.PriceSnapshot;
+import com.trading.platform.pricing.entity.Security;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The securities list, whole and per type, rendered to JSON (and gzip) at most once per
+ * price epoch and shared by every request until the next tick. The ETag is a hash of the
+ * JSON, so it stays valid across restarts for as long as the prices are the same.
+ */
+@ApplicationScoped
+public class SecuritiesPayloadCache {
+    private static final String ALL = "ALL";
+
+    @Inject
+    PricingService pricingService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "pricing.payload.gzip")
+    boolean gzipEnabled;
+
+    private volatile Epoch current = new Epoch(-1, new ConcurrentHashMap<>());
+
+    /**
+     * The payload for one type, or for all securities when type is null.
+     */
+    public Payload get(SecurityType type) {
+        PriceSnapshot snapshot = pricingService.getSnapshot();
+        Epoch epoch = current;
+        if (snapshot.epoch() < epoch.number()) {
+            // A request that read its snapshot just before a tick; serve it without caching an old epoch
+            return render(type == null ? snapshot.all() : snapshot.byType(type));
+        }
+        if (snapshot.epoch() > epoch.number()) {
+            // Requests racing across a tick may both start the new epoch; either map is correct
+            epoch = new Epoch(snapshot.epoch(), new ConcurrentHashMap<>());
+            current = epoch;
+        }
+        return epoch.payloads().computeIfAbsent(type == null ? ALL : type.name(),
+            key -> render(type == null ? snapshot.all() : snapshot.byType(type)));
+    }
+
+    private Payload render(List<Security> securities) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(securities);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize securities", e);
+        }
+        String hash = sha256(json);
+        return new Payload(json, hash, gzipEnabled ? gzip(json) : null, hash + "-gzip");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * JSON and, when enabled, its gzip encoding, each with its own strong ETag value.
+     */
+    public record Payload(byte[] json, String etag, byte[] gzip, String gzipEtag) {}
+
+    private record Epoch(long number, Map<String, Payload> payloads) {}
+}
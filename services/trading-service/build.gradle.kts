@@ -1,6 +1,7 @@
 plugins {
     java
     id("io.quarkus")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 dependencies {
@@ -11,8 +12,10 @@ dependencies {
     implementation("io.quarkus:quarkus-flyway")
     implementation("io.quarkus:quarkus-smallrye-health")
     implementation("io.quarkus:quarkus-smallrye-openapi")
+    implementation("io.quarkus:quarkus-micrometer-registry-prometheus")
     implementation("io.quarkus:quarkus-smallrye-reactive-messaging-kafka")
     implementation("io.quarkus:quarkus-rest-client-reactive-jackson")
+    implementation("io.quarkus:quarkus-scheduler")
     implementation("io.quarkus:quarkus-arc")
     implementation(project(":shared:common-domain"))
     implementation(project(":shared:common-events"))
@@ -23,3 +26,10 @@ dependencies {
 tasks.test {
     systemProperty("java.util.logging.manager", "org.jboss.logmanager.LogManager")
 }
+
+// ./gradlew :services:trading-service:jmh
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+}
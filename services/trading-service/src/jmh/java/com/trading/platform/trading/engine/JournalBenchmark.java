@@ -0,0 +1,42 @@
+package com.trading.platform.trading.engine;
+
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journaling an order command (append to the memory-mapped segment, no fsync).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JournalBenchmark {
+    private static final byte[] ATTACHMENT = new byte[96];
+
+    private Path directory;
+    private Journal journal;
+    private long nextOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = new Journal(directory, 64 << 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long appendPlace() {
+        return journal.appendPlace("AAPL:USD", nextOrderId++, true, 10_000, 100, ATTACHMENT);
+    }
+}
@@ -0,0 +1,49 @@
+package com.trading.platform.trading.engine;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches per second across many instruments as the shard count grows.
+ * Each operation submits one crossing sell/buy pair per symbol and waits for all of
+ * them, so throughput should scale with shards until cores run out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatchingEngineBenchmark {
+    private static final int SYMBOLS = 256;
+
+    @Param({"1", "2", "4", "8"})
+    int shards;
+
+    private MatchingEngine<Void> engine;
+    private String[] bookKeys;
+    private long nextOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new MatchingEngine<>(shards);
+        bookKeys = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            bookKeys[i] = "SYM" + i + ":USD";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void matchAcrossSymbols() {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            engine.place(bookKeys[i], nextOrderId++, false, 10_000, 100, null);
+            results[i] = engine.place(bookKeys[i], nextOrderId++, true, 10_000, 100, null);
+        }
+        CompletableFuture.allOf(results).join();
+    }
+}
@@ -0,0 +1,47 @@
+package com.trading.platform.trading.engine;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained matches per second on a single instrument (one shard thread).
+ * Each operation rests a sell at the touch and crosses it with a buy, on top of a
+ * book that keeps {@code depth} resting levels on both sides.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderBookBenchmark {
+    private static final long MID = 10_000;
+
+    @Param({"10", "1000"})
+    int depth;
+
+    private OrderBook book;
+    private long nextOrderId;
+    private long filledQuantity;
+    private final FillListener listener = (maker, taker, price, quantity) -> filledQuantity += quantity;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        book = new OrderBook();
+        nextOrderId = 1;
+        for (int i = 1; i <= depth; i++) {
+            book.place(nextOrderId++, true, MID - i, 100, null, listener);
+            book.place(nextOrderId++, false, MID + i, 100, null, listener);
+        }
+    }
+
+    @Benchmark
+    public long match() {
+        book.place(nextOrderId++, false, MID, 100, null, listener);
+        return book.place(nextOrderId++, true, MID, 100, null, listener).remaining;
+    }
+
+    @Benchmark
+    public long placeAndCancel() {
+        long orderId = nextOrderId++;
+        book.place(orderId, true, MID - depth / 2 - 1, 100, null, listener);
+        return book.cancel(orderId).remaining;
+    }
+}
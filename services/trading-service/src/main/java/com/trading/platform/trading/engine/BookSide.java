@@ -0,0 +1,87 @@
+package com.trading.platform.trading.engine;
+
+import java.util.Arrays;
+
+/**
+ * Price levels of one side of a book, kept in a sorted primitive array with the best
+ * price at the end so that consuming the top of book never shifts elements.
+ * Bids are stored ascending and asks descending.
+ */
+final class BookSide {
+    private final boolean bids;
+    private long[] prices = new long[64];
+    private PriceLevel[] levels = new PriceLevel[64];
+    private int size;
+
+    BookSide(boolean bids) {
+        this.bids = bids;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    PriceLevel best() {
+        return levels[size - 1];
+    }
+
+    void removeBest() {
+        levels[--size] = null;
+    }
+
+    PriceLevel levelFor(long price) {
+        int index = search(price);
+        if (index >= 0) {
+            return levels[index];
+        }
+        int insertAt = -index - 1;
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+        }
+        System.arraycopy(prices, insertAt, prices, insertAt + 1, size - insertAt);
+        System.arraycopy(levels, insertAt, levels, insertAt + 1, size - insertAt);
+        PriceLevel level = new PriceLevel(price);
+        prices[insertAt] = price;
+        levels[insertAt] = level;
+        size++;
+        return level;
+    }
+
+    void removeLevel(PriceLevel level) {
+        int index = search(level.price);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+        System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+        levels[--size] = null;
+    }
+
+    int depth() {
+        return size;
+    }
+
+    PriceLevel levelAt(int index) {
+        return levels[index];
+    }
+
+    // Binary search over the side's ordering; same contract as Arrays.binarySearch
+    private int search(long price) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midPrice = prices[mid];
+            int cmp = bids ? Long.compare(midPrice, price) : Long.compare(price, midPrice);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
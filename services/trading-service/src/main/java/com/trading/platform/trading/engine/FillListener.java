@@ -0,0 +1,13 @@
+package com.trading.platform.trading.engine;
+
+/**
+ * Receives fills synchronously on the thread that owns the book, after both orders
+ * have been updated.
+ */
+@FunctionalInterface
+interface FillListener {
+    void onFill(Order maker, Order taker, long price, long quantity);
+
+    // A resting order removed by self-trade prevention instead of being filled
+    default void onSelfTradeCancel(Order maker) {}
+}
@@ -0,0 +1,240 @@
+package com.trading.platform.trading.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of engine commands.
+ * <p>
+ * The journal is split into fixed-size segment files named after the sequence number
+ * of their first record. Each record is {@code [int length][int crc32c][body]}; a zero
+ * length or a checksum mismatch marks the end of a segment, so a record torn by a crash
+ * is simply not replayed. Writes land in the page cache and survive a process crash;
+ * {@link #force()} flushes them to disk.
+ * <p>
+ * Appends are serialized on the journal's monitor; the engine keeps one journal per
+ * partition of books (see {@link PartitionedJournal}) so shards do not share one lock.
+ */
+public final class Journal implements AutoCloseable {
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte PLACE = 1;
+    private static final byte CANCEL = 2;
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer segment;
+    private long lastSeq;
+
+    /**
+     * Opens the journal and starts a fresh segment after the last valid record, leaving
+     * any torn tail of the previous run untouched.
+     */
+    public Journal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        replay(0, new Visitor() {
+            @Override
+            public void place(long seq, String bookKey, long orderId, boolean buy, long price, long quantity, byte[] attachment) {
+                lastSeq = seq;
+            }
+
+            @Override
+            public void cancel(long seq, String bookKey, long orderId) {
+                lastSeq = seq;
+            }
+        });
+        openSegment(lastSeq + 1);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    public synchronized long appendPlace(String bookKey, long orderId, boolean buy, long price, long quantity,
+                                         byte[] attachment) {
+        byte[] key = bookKey.getBytes(StandardCharsets.UTF_8);
+        int bodySize = 1 + 8 + 2 + key.length + 8 + 1 + 8 + 8 + 4 + attachment.length;
+        ByteBuffer body = reserve(bodySize);
+        body.put(PLACE).putLong(++lastSeq).putShort((short) key.length).put(key).putLong(orderId)
+            .put((byte) (buy ? 1 : 0)).putLong(price).putLong(quantity)
+            .putInt(attachment.length).put(attachment);
+        commit(body, bodySize);
+        return lastSeq;
+    }
+
+    public synchronized long appendCancel(String bookKey, long orderId) {
+        byte[] key = bookKey.getBytes(StandardCharsets.UTF_8);
+        int bodySize = 1 + 8 + 2 + key.length + 8;
+        ByteBuffer body = reserve(bodySize);
+        body.put(CANCEL).putLong(++lastSeq).putShort((short) key.length).put(key).putLong(orderId);
+        commit(body, bodySize);
+        return lastSeq;
+    }
+
+    /**
+     * Closes the current segment and starts a new one.
+     *
+     * @return the sequence number the new segment starts at
+     */
+    public synchronized long roll() {
+        segment.force();
+        openSegment(lastSeq + 1);
+        return lastSeq + 1;
+    }
+
+    public synchronized void force() {
+        segment.force();
+    }
+
+    /**
+     * Deletes whole segments that only contain records below the given sequence number.
+     */
+    public synchronized void truncateBefore(long seq) {
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            if (starts.get(i + 1) <= seq) {
+                try {
+                    Files.deleteIfExists(segmentPath(starts.get(i)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every valid record with a sequence number of at least fromSeq, in order.
+     */
+    public void replay(long fromSeq, Visitor visitor) {
+        for (long start : segmentStarts()) {
+            try (FileChannel channel = FileChannel.open(segmentPath(start), StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CRC32C checksum = new CRC32C();
+                while (buffer.remaining() >= HEADER_SIZE) {
+                    int length = buffer.getInt();
+                    int expected = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer body = buffer.slice(buffer.position(), length);
+                    checksum.reset();
+                    checksum.update(body.duplicate());
+                    if ((int) checksum.getValue() != expected) {
+                        break;
+                    }
+                    buffer.position(buffer.position() + length);
+                    visit(body, fromSeq, visitor);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        segment.force();
+    }
+
+    private void visit(ByteBuffer body, long fromSeq, Visitor visitor) {
+        byte type = body.get();
+        long seq = body.getLong();
+        if (seq < fromSeq) {
+            return;
+        }
+        byte[] key = new byte[body.getShort()];
+        body.get(key);
+        String bookKey = new String(key, StandardCharsets.UTF_8);
+        long orderId = body.getLong();
+        if (type == PLACE) {
+            boolean buy = body.get() == 1;
+            long price = body.getLong();
+            long quantity = body.getLong();
+            byte[] attachment = new byte[body.getInt()];
+            body.get(attachment);
+            visitor.place(seq, bookKey, orderId, buy, price, quantity, attachment);
+        } else if (type == CANCEL) {
+            visitor.cancel(seq, bookKey, orderId);
+        }
+    }
+
+    private ByteBuffer reserve(int bodySize) {
+        if (HEADER_SIZE + bodySize > segmentSize) {
+            throw new IllegalArgumentException("journal record of " + bodySize + " bytes exceeds the segment size");
+        }
+        if (segment.remaining() < HEADER_SIZE + bodySize) {
+            segment.force();
+            openSegment(lastSeq + 1);
+        }
+        return segment.slice(segment.position() + HEADER_SIZE, bodySize);
+    }
+
+    // The length is written last so a reader never sees a partially written record as valid
+    private void commit(ByteBuffer body, int bodySize) {
+        body.flip();
+        crc.reset();
+        crc.update(body);
+        int position = segment.position();
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, bodySize);
+        segment.position(position + HEADER_SIZE + bodySize);
+    }
+
+    private void openSegment(long startSeq) {
+        try (FileChannel channel = FileChannel.open(segmentPath(startSeq),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Long> segmentStarts() {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Long> starts = new ArrayList<>();
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                .forEach(name -> starts.add(Long.parseLong(
+                    name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+            starts.sort(null);
+            return starts;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long startSeq) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, startSeq, SEGMENT_SUFFIX));
+    }
+
+    public interface Visitor {
+        void place(long seq, String bookKey, long orderId, boolean buy, long price, long quantity, byte[] attachment);
+
+        void cancel(long seq, String bookKey, long orderId);
+    }
+}
@@ -0,0 +1,348 @@
+package com.trading.platform.trading.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiPredicate;
+
+/**
+ * Runs order books on a fixed set of shard threads.
+ * Each book is owned by exactly one shard (chosen by hashing the book key), so all
+ * commands for an instrument are applied sequentially by a single writer without
+ * locks, while different instruments match in parallel across cores.
+ * <p>
+ * With a {@link PartitionedJournal}, every command is appended to its book's partition on
+ * the shard thread right before it is applied. Because matching is deterministic per book, loading the latest snapshot
+ * and replaying the journal tail rebuilds exactly the same books; the listener sees the
+ * replayed fills and cancels again and must tolerate duplicates.
+ * <p>
+ * An optional same-owner check turns on self-trade prevention: an incoming order cancels
+ * any resting order of the same owner it would have filled against, reported through
+ * {@link Listener#onCancel}. The check only looks at attachments, so replay repeats it.
+ *
+ * @param <T> caller-owned data kept with each order, journaled and snapshotted via the codec
+ */
+public final class MatchingEngine<T> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(MatchingEngine.class);
+
+    private final Shard[] shards;
+    private final PartitionedJournal journal;
+    private final Codec<T> codec;
+    private final Listener<T> listener;
+
+    public MatchingEngine(int shardCount) {
+        this(shardCount, null, null, new Listener<>() {
+            @Override
+            public void onFill(Fill<T> fill) {}
+
+            @Override
+            public void onCancel(OrderState<T> order) {}
+        });
+    }
+
+    public MatchingEngine(int shardCount, PartitionedJournal journal, Codec<T> codec, Listener<T> listener) {
+        this(shardCount, journal, codec, listener, null);
+    }
+
+    /**
+     * @param sameOwner called with (resting, incoming) attachments; null disables self-trade prevention
+     */
+    public MatchingEngine(int shardCount, PartitionedJournal journal, Codec<T> codec, Listener<T> listener,
+                          BiPredicate<T, T> sameOwner) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        if (journal != null && codec == null) {
+            throw new IllegalArgumentException("a journal needs a codec for order attachments");
+        }
+        this.journal = journal;
+        this.codec = codec;
+        this.listener = listener;
+        @SuppressWarnings("unchecked")
+        BiPredicate<Object, Object> ownerCheck = sameOwner == null
+            ? null
+            : (resting, incoming) -> sameOwner.test((T) resting, (T) incoming);
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ownerCheck);
+        }
+    }
+
+    public CompletableFuture<PlaceResult<T>> place(String bookKey, long orderId, boolean buy, long price, long quantity,
+                                                   T attachment) {
+        Shard shard = shardFor(bookKey);
+        return CompletableFuture.supplyAsync(() -> {
+            if (journal != null) {
+                journal.forBook(bookKey).appendPlace(bookKey, orderId, buy, price, quantity, codec.encode(attachment));
+            }
+            return applyPlace(shard, bookKey, orderId, buy, price, quantity, attachment);
+        }, shard.executor);
+    }
+
+    /**
+     * Completes with the order as it was when removed from the book, or null if it was
+     * unknown or already filled.
+     */
+    public CompletableFuture<OrderState<T>> cancel(String bookKey, long orderId) {
+        Shard shard = shardFor(bookKey);
+        return CompletableFuture.supplyAsync(() -> {
+            if (journal != null) {
+                journal.forBook(bookKey).appendCancel(bookKey, orderId);
+            }
+            return applyCancel(shard, bookKey, orderId);
+        }, shard.executor);
+    }
+
+    /**
+     * Rebuilds the books from the latest snapshot and the journal tail. Must run before
+     * any command is submitted.
+     *
+     * @return the number of journal records replayed
+     */
+    public long recover() {
+        if (journal == null) {
+            return 0;
+        }
+        Snapshots.Loaded loaded = Snapshots.readLatest(journal.snapshotDirectory());
+        Map<String, Long> appliedUpTo = new HashMap<>();
+        if (loaded != null) {
+            for (Snapshots.Book book : loaded.books()) {
+                appliedUpTo.put(book.bookKey(), book.lastSeq());
+                Shard shard = shardFor(book.bookKey());
+                List<Order> orders = new ArrayList<>(book.orders().size());
+                for (Snapshots.RestingOrder resting : book.orders()) {
+                    Order order = new Order(resting.orderId(), resting.buy(), resting.price(), resting.quantity(),
+                        codec.decode(resting.attachment()));
+                    order.remaining = resting.remaining();
+                    order.filledValue = resting.filledValue();
+                    orders.add(order);
+                }
+                shard.run(() -> {
+                    OrderBook orderBook = shard.book(book.bookKey());
+                    orders.forEach(orderBook::restore);
+                });
+            }
+        }
+
+        // Each book's records live in exactly one partition, so partitions are replayed one after another
+        long[] replayed = {0};
+        for (int p = 0; p < journal.partitionCount(); p++) {
+            long baseSeq = loaded != null && p < loaded.baseSeqs().length ? loaded.baseSeqs()[p] : 0;
+            journal.partition(p).replay(baseSeq, new Journal.Visitor() {
+                @Override
+                public void place(long seq, String bookKey, long orderId, boolean buy, long price, long quantity,
+                                  byte[] attachment) {
+                    if (seq > appliedUpTo.getOrDefault(bookKey, baseSeq - 1)) {
+                        Shard shard = shardFor(bookKey);
+                        T decoded = codec.decode(attachment);
+                        shard.run(() -> applyPlace(shard, bookKey, orderId, buy, price, quantity, decoded));
+                        replayed[0]++;
+                    }
+                }
+
+                @Override
+                public void cancel(long seq, String bookKey, long orderId) {
+                    if (seq > appliedUpTo.getOrDefault(bookKey, baseSeq - 1)) {
+                        Shard shard = shardFor(bookKey);
+                        shard.run(() -> applyCancel(shard, bookKey, orderId));
+                        replayed[0]++;
+                    }
+                }
+            });
+        }
+        // Shards are FIFO, so a no-op behind every replayed command marks the end of recovery
+        CompletableFuture.allOf(Arrays.stream(shards)
+            .map(shard -> CompletableFuture.runAsync(() -> {}, shard.executor))
+            .toArray(CompletableFuture[]::new)).join();
+        return replayed[0];
+    }
+
+    /**
+     * Starts a new segment in every journal partition and captures every book. The capture
+     * is consistent per shard: each book records the last sequence number of its partition
+     * applied to it.
+     */
+    public Snapshots.Capture capture() {
+        long[] baseSeqs = journal.roll();
+        List<CompletableFuture<List<Snapshots.Book>>> perShard = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            perShard.add(CompletableFuture.supplyAsync(() -> {
+                List<Snapshots.Book> books = new ArrayList<>(shard.books.size());
+                shard.books.forEach((bookKey, book) -> {
+                    // Only this shard appends for its books, so every record up to here has been applied
+                    long applied = journal.forBook(bookKey).lastSeq();
+                    List<Snapshots.RestingOrder> orders = new ArrayList<>(book.restingOrderCount());
+                    book.forEachRestingOrder(order -> orders.add(new Snapshots.RestingOrder(order.id, order.buy,
+                        order.price, order.quantity, order.remaining, order.filledValue,
+                        codec.encode(attachmentOf(order)))));
+                    books.add(new Snapshots.Book(bookKey, applied, orders));
+                });
+                return books;
+            }, shard.executor));
+        }
+        List<Snapshots.Book> books = new ArrayList<>();
+        perShard.forEach(future -> books.addAll(future.join()));
+        return new Snapshots.Capture(baseSeqs, books);
+    }
+
+    /**
+     * Persists a capture and drops the journal segments and snapshots it supersedes.
+     */
+    public void writeSnapshot(Snapshots.Capture capture) {
+        Snapshots.write(journal.snapshotDirectory(), capture);
+        journal.truncateBefore(capture.baseSeqs());
+        LOG.info("Engine snapshot written: partitions={}, books={}", capture.baseSeqs().length, capture.books().size());
+    }
+
+    /**
+     * Every resting order, e.g. to rebuild caller-side indexes after {@link #recover()}.
+     */
+    public List<OrderState<T>> restingOrders() {
+        List<CompletableFuture<List<OrderState<T>>>> perShard = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            perShard.add(CompletableFuture.supplyAsync(() -> {
+                List<OrderState<T>> orders = new ArrayList<>();
+                shard.books.values().forEach(book -> book.forEachRestingOrder(order -> orders.add(stateOf(order))));
+                return orders;
+            }, shard.executor));
+        }
+        List<OrderState<T>> orders = new ArrayList<>();
+        perShard.forEach(future -> orders.addAll(future.join()));
+        return orders;
+    }
+
+    public void flushJournal() {
+        if (journal != null) {
+            journal.force();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private PlaceResult<T> applyPlace(Shard shard, String bookKey, long orderId, boolean buy, long price, long quantity,
+                                      T attachment) {
+        List<Fill<T>> fills = new ArrayList<>(4);
+        Order taker = shard.book(bookKey).place(orderId, buy, price, quantity, attachment, new FillListener() {
+            @Override
+            public void onFill(Order maker, Order incoming, long fillPrice, long fillQuantity) {
+                Fill<T> fill = new Fill<>(fillPrice, fillQuantity, stateOf(maker), stateOf(incoming));
+                fills.add(fill);
+                listener.onFill(fill);
+            }
+
+            @Override
+            public void onSelfTradeCancel(Order maker) {
+                listener.onCancel(stateOf(maker));
+            }
+        });
+        return new PlaceResult<>(stateOf(taker), fills);
+    }
+
+    private OrderState<T> applyCancel(Shard shard, String bookKey, long orderId) {
+        Order order = shard.book(bookKey).cancel(orderId);
+        if (order == null) {
+            return null;
+        }
+        OrderState<T> state = stateOf(order);
+        listener.onCancel(state);
+        return state;
+    }
+
+    private OrderState<T> stateOf(Order order) {
+        return new OrderState<>(order.id, order.buy, order.price, order.quantity, order.remaining, order.filledValue,
+            attachmentOf(order));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T attachmentOf(Order order) {
+        return (T) order.attachment;
+    }
+
+    private Shard shardFor(String bookKey) {
+        return shards[Math.floorMod(bookKey.hashCode(), shards.length)];
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Point-in-time view of an order; remaining is what is left in the book and filledValue
+     * is the sum of price * quantity over its fills (scaled by 10^4).
+     */
+    public record OrderState<T>(long orderId, boolean buy, long price, long quantity, long remaining,
+                                long filledValue, T attachment) {
+        public long filled() {
+            return quantity - remaining;
+        }
+    }
+
+    /**
+     * One execution between a resting maker and an incoming taker, with both orders as
+     * they are after the fill.
+     */
+    public record Fill<T>(long price, long quantity, OrderState<T> maker, OrderState<T> taker) {}
+
+    public record PlaceResult<T>(OrderState<T> order, List<Fill<T>> fills) {}
+
+    /**
+     * Called on the shard thread for live and replayed commands alike; must not block.
+     */
+    public interface Listener<T> {
+        void onFill(Fill<T> fill);
+
+        void onCancel(OrderState<T> order);
+    }
+
+    public interface Codec<T> {
+        byte[] encode(T attachment);
+
+        T decode(byte[] bytes);
+    }
+
+    private static final class Shard {
+        final ExecutorService executor;
+        // Only touched from this shard's thread
+        final Map<String, OrderBook> books = new HashMap<>();
+        final BiPredicate<Object, Object> sameOwner;
+
+        Shard(int index, BiPredicate<Object, Object> sameOwner) {
+            this.sameOwner = sameOwner;
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "matching-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        OrderBook book(String bookKey) {
+            return books.computeIfAbsent(bookKey, key -> new OrderBook(sameOwner));
+        }
+
+        // Replayed commands that fail (e.g. a duplicate id) failed the same way when first applied
+        void run(Runnable command) {
+            executor.execute(() -> {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    LOG.warn("Skipping journal record that failed to apply: {}", e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.trading.platform.trading.engine;
+
+/**
+ * Limit order inside a book. Prices and quantities are longs scaled by 100 (two decimals),
+ * and orders at one price level form an intrusive doubly linked list for O(1) cancel.
+ * filledValue accumulates price * quantity of every fill (scaled by 10^4), so the
+ * consumer can derive notional and pro-rata fees from the order alone.
+ */
+final class Order {
+    final long id;
+    final boolean buy;
+    final long price;
+    final long quantity;
+    final Object attachment;
+    long remaining;
+    long filledValue;
+
+    PriceLevel level;
+    Order prev;
+    Order next;
+
+    Order(long id, boolean buy, long price, long quantity, Object attachment) {
+        this.id = id;
+        this.buy = buy;
+        this.price = price;
+        this.quantity = quantity;
+        this.attachment = attachment;
+        this.remaining = quantity;
+    }
+
+    void fill(long fillPrice, long fillQuantity) {
+        remaining -= fillQuantity;
+        filledValue += fillPrice * fillQuantity;
+    }
+}
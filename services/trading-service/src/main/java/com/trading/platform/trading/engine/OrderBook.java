@@ -0,0 +1,141 @@
+package com.trading.platform.trading.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Price-time priority limit order book for a single instrument.
+ * Not thread-safe: every book is owned by exactly one engine shard thread.
+ * Prices and quantities are longs scaled by 100; there is no BigDecimal on this path.
+ * <p>
+ * With a same-owner check on the attachments, an incoming order never trades with a
+ * resting order of the same owner: that resting order is cancelled and matching carries
+ * on behind it (cancel-resting self-trade prevention).
+ */
+public final class OrderBook {
+    private final BookSide bids = new BookSide(true);
+    private final BookSide asks = new BookSide(false);
+    private final Map<Long, Order> restingOrders = new HashMap<>();
+    private final BiPredicate<Object, Object> sameOwner;
+
+    public OrderBook() {
+        this(null);
+    }
+
+    // sameOwner is called with (resting, incoming) attachments; null disables self-trade prevention
+    OrderBook(BiPredicate<Object, Object> sameOwner) {
+        this.sameOwner = sameOwner;
+    }
+
+    /**
+     * Matches an incoming limit order against the opposite side and rests any remainder.
+     * Fills execute at the resting order's price.
+     *
+     * @return the incoming order; its remaining quantity is what was left resting in the book
+     */
+    Order place(long orderId, boolean buy, long limitPrice, long quantity, Object attachment, FillListener listener) {
+        if (quantity <= 0 || limitPrice <= 0) {
+            throw new IllegalArgumentException("price and quantity must be positive");
+        }
+        if (restingOrders.containsKey(orderId)) {
+            throw new IllegalArgumentException("duplicate order id " + orderId);
+        }
+
+        Order taker = new Order(orderId, buy, limitPrice, quantity, attachment);
+        BookSide opposite = buy ? asks : bids;
+        while (taker.remaining > 0 && !opposite.isEmpty()) {
+            PriceLevel level = opposite.best();
+            if (buy ? level.price > limitPrice : level.price < limitPrice) {
+                break;
+            }
+            Order maker = level.head;
+            while (maker != null && taker.remaining > 0) {
+                Order next = maker.next;
+                if (sameOwner != null && sameOwner.test(maker.attachment, attachment)) {
+                    level.remove(maker);
+                    restingOrders.remove(maker.id);
+                    listener.onSelfTradeCancel(maker);
+                    maker = next;
+                    continue;
+                }
+                long fillQuantity = Math.min(taker.remaining, maker.remaining);
+                if (fillQuantity == maker.remaining) {
+                    level.remove(maker);
+                    restingOrders.remove(maker.id);
+                } else {
+                    level.totalQuantity -= fillQuantity;
+                }
+                maker.fill(level.price, fillQuantity);
+                taker.fill(level.price, fillQuantity);
+                listener.onFill(maker, taker, level.price, fillQuantity);
+                maker = next;
+            }
+            if (level.isEmpty()) {
+                opposite.removeBest();
+            }
+        }
+
+        if (taker.remaining > 0) {
+            rest(taker);
+        }
+        return taker;
+    }
+
+    /**
+     * @return the removed order with the quantity that was still resting, or null if the
+     *         order is unknown or already filled
+     */
+    Order cancel(long orderId) {
+        Order order = restingOrders.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+        PriceLevel level = order.level;
+        level.remove(order);
+        if (level.isEmpty()) {
+            (order.buy ? bids : asks).removeLevel(level);
+        }
+        return order;
+    }
+
+    // Recovery: orders must be restored in their original time priority within each level
+    void restore(Order order) {
+        if (restingOrders.containsKey(order.id)) {
+            throw new IllegalArgumentException("duplicate order id " + order.id);
+        }
+        rest(order);
+    }
+
+    // Best levels first, FIFO within a level, so restoring in this order keeps time priority
+    void forEachRestingOrder(Consumer<Order> action) {
+        forEach(bids, action);
+        forEach(asks, action);
+    }
+
+    public long bestBid() {
+        return bids.isEmpty() ? 0 : bids.best().price;
+    }
+
+    public long bestAsk() {
+        return asks.isEmpty() ? 0 : asks.best().price;
+    }
+
+    public int restingOrderCount() {
+        return restingOrders.size();
+    }
+
+    private void rest(Order order) {
+        (order.buy ? bids : asks).levelFor(order.price).append(order);
+        restingOrders.put(order.id, order);
+    }
+
+    private static void forEach(BookSide side, Consumer<Order> action) {
+        for (int i = side.depth() - 1; i >= 0; i--) {
+            for (Order order = side.levelAt(i).head; order != null; order = order.next) {
+                action.accept(order);
+            }
+        }
+    }
+}
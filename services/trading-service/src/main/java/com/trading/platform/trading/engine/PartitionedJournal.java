@@ -0,0 +1,117 @@
+package com.trading.platform.trading.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The engine journal split into a fixed number of partitions, each an independent
+ * {@link Journal} with its own lock and sequence numbers. A book always journals to the
+ * partition its key hashes to, so engine shards only contend when their books share a
+ * partition, and every book's history stays in one partition even if the number of
+ * engine shards changes between runs.
+ * <p>
+ * The partition count is recorded in the directory when it is first used and kept from
+ * then on; a different configured count only applies to a fresh directory.
+ */
+public final class PartitionedJournal implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedJournal.class);
+    private static final String COUNT_FILE = "partitions";
+    private static final String SNAPSHOT_DIR = "snapshots";
+
+    private final Path directory;
+    private final Journal[] partitions;
+
+    public PartitionedJournal(Path directory, int partitionCount, int segmentSize) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive");
+        }
+        this.directory = directory;
+        int count = recordedCount(directory, partitionCount);
+        partitions = new Journal[count];
+        for (int p = 0; p < count; p++) {
+            partitions[p] = new Journal(partitionDirectory(p), segmentSize);
+        }
+    }
+
+    public Path snapshotDirectory() {
+        return directory.resolve(SNAPSHOT_DIR);
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    public int partitionOf(String bookKey) {
+        return Math.floorMod(bookKey.hashCode(), partitions.length);
+    }
+
+    public Journal partition(int partition) {
+        return partitions[partition];
+    }
+
+    public Journal forBook(String bookKey) {
+        return partitions[partitionOf(bookKey)];
+    }
+
+    /**
+     * Starts a new segment in every partition.
+     *
+     * @return per partition, the sequence number its new segment starts at
+     */
+    public long[] roll() {
+        long[] baseSeqs = new long[partitions.length];
+        for (int p = 0; p < partitions.length; p++) {
+            baseSeqs[p] = partitions[p].roll();
+        }
+        return baseSeqs;
+    }
+
+    public void force() {
+        for (Journal partition : partitions) {
+            partition.force();
+        }
+    }
+
+    public void truncateBefore(long[] baseSeqs) {
+        for (int p = 0; p < partitions.length; p++) {
+            partitions[p].truncateBefore(baseSeqs[p]);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Journal partition : partitions) {
+            partition.close();
+        }
+    }
+
+    private Path partitionDirectory(int partition) {
+        return directory.resolve(String.format("partition-%03d", partition));
+    }
+
+    private static int recordedCount(Path directory, int configured) {
+        Path file = directory.resolve(COUNT_FILE);
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(file)) {
+                int recorded = Integer.parseInt(Files.readString(file, StandardCharsets.US_ASCII).trim());
+                if (recorded != configured) {
+                    LOG.warn("Journal has {} partitions, ignoring configured {}", recorded, configured);
+                }
+                return recorded;
+            }
+            Path temp = directory.resolve(COUNT_FILE + ".tmp");
+            Files.writeString(temp, Integer.toString(configured), StandardCharsets.US_ASCII);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return configured;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.trading.platform.trading.engine;
+
+/**
+ * FIFO queue of orders at one price; the head has time priority.
+ */
+final class PriceLevel {
+    final long price;
+    Order head;
+    Order tail;
+    long totalQuantity;
+    int orderCount;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    void append(Order order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        totalQuantity += order.remaining;
+        orderCount++;
+    }
+
+    void remove(Order order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        totalQuantity -= order.remaining;
+        orderCount--;
+        order.level = null;
+        order.prev = null;
+        order.next = null;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
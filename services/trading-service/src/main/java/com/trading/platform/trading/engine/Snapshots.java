@@ -0,0 +1,161 @@
+package com.trading.platform.trading.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compacted engine state: every resting order of every book, plus the journal position
+ * each book was captured at. Written to a temporary file and atomically renamed, so a
+ * crash mid-write leaves the previous snapshot in place. The journal position is one base
+ * sequence number per journal partition.
+ */
+public final class Snapshots {
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x54454E47;
+    private static final int VERSION = 1;
+
+    private Snapshots() {
+    }
+
+    static void write(Path directory, Capture capture) {
+        // Base sequence numbers only grow, so their sum orders snapshots; an equal sum means nothing was journaled since
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, Arrays.stream(capture.baseSeqs()).sum(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(capture.baseSeqs().length);
+                for (long baseSeq : capture.baseSeqs()) {
+                    out.writeLong(baseSeq);
+                }
+                out.writeInt(capture.books().size());
+                for (Book book : capture.books()) {
+                    out.writeUTF(book.bookKey());
+                    out.writeLong(book.lastSeq());
+                    out.writeInt(book.orders().size());
+                    for (RestingOrder order : book.orders()) {
+                        out.writeLong(order.orderId());
+                        out.writeBoolean(order.buy());
+                        out.writeLong(order.price());
+                        out.writeLong(order.quantity());
+                        out.writeLong(order.remaining());
+                        out.writeLong(order.filledValue());
+                        out.writeInt(order.attachment().length);
+                        out.write(order.attachment());
+                    }
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (Path older : list(directory)) {
+                if (older.compareTo(target) < 0) {
+                    Files.deleteIfExists(older);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the newest readable snapshot, or null if there is none
+     */
+    static Loaded readLatest(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        List<Path> snapshots = list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                return read(snapshots.get(i));
+            } catch (IOException | RuntimeException e) {
+                // Torn or unreadable; fall back to the previous one if it is still around
+            }
+        }
+        return null;
+    }
+
+    private static Loaded read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an engine snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported engine snapshot version " + version + ": " + file);
+            }
+            long[] baseSeqs = new long[in.readInt()];
+            for (int p = 0; p < baseSeqs.length; p++) {
+                baseSeqs[p] = in.readLong();
+            }
+            int bookCount = in.readInt();
+            List<Book> books = new ArrayList<>(bookCount);
+            for (int b = 0; b < bookCount; b++) {
+                String bookKey = in.readUTF();
+                long lastSeq = in.readLong();
+                int orderCount = in.readInt();
+                List<RestingOrder> orders = new ArrayList<>(orderCount);
+                for (int o = 0; o < orderCount; o++) {
+                    long orderId = in.readLong();
+                    boolean buy = in.readBoolean();
+                    long price = in.readLong();
+                    long quantity = in.readLong();
+                    long remaining = in.readLong();
+                    long filledValue = in.readLong();
+                    byte[] attachment = new byte[in.readInt()];
+                    in.readFully(attachment);
+                    orders.add(new RestingOrder(orderId, buy, price, quantity, remaining, filledValue, attachment));
+                }
+                books.add(new Book(bookKey, lastSeq, orders));
+            }
+            return new Loaded(baseSeqs, books);
+        }
+    }
+
+    private static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                })
+                .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * In-memory capture; baseSeqs[p] is the first sequence number of the segment started
+     * for it in journal partition p, so older segments are no longer needed once it is written.
+     */
+    public record Capture(long[] baseSeqs, List<Book> books) {}
+
+    record Loaded(long[] baseSeqs, List<Book> books) {}
+
+    record Book(String bookKey, long lastSeq, List<RestingOrder> orders) {}
+
+    record RestingOrder(long orderId, boolean buy, long price, long quantity, long remaining, long filledValue,
+                        byte[] attachment) {}
+}
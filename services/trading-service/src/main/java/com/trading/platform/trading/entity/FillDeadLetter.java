@@ -0,0 +1,44 @@
+package com.trading.platform.trading.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Limit order trade that FillRecorder could not record for a reason retrying will not
+ * fix. The fill has already happened in the book, so it is kept here, serialized, for
+ * manual repair instead of being dropped or blocking the fills behind it.
+ */
+@Entity
+@Table(name = "fill_dead_letters")
+public class FillDeadLetter extends PanacheEntityBase {
+    @Id
+    @GeneratedValue
+    public UUID id;
+
+    @Column(name = "fill_id")
+    public String fillId;
+
+    @Column(name = "user_id", nullable = false)
+    public UUID userId;
+
+    @Column(nullable = false)
+    public String payload;
+
+    @Column(length = 1000)
+    public String error;
+
+    @Column(name = "created_at", nullable = false)
+    public Instant createdAt;
+
+    public static FillDeadLetter of(Trade trade, String payload, String error) {
+        FillDeadLetter letter = new FillDeadLetter();
+        letter.fillId = trade.fillId;
+        letter.userId = trade.userId;
+        letter.payload = payload;
+        letter.error = error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+        letter.createdAt = Instant.now();
+        return letter;
+    }
+}
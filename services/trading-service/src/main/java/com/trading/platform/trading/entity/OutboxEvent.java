@@ -0,0 +1,75 @@
+package com.trading.platform.trading.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Event waiting to be relayed to Kafka. Written in the same transaction as the
+ * state change it describes and deleted once the broker has acknowledged it.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent extends PanacheEntityBase {
+    // How far past one batch a relay looks for keys not held by another relay
+    private static final int HEAD_SCAN_FACTOR = 4;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    public Long id;
+
+    @Column(name = "aggregate_id", nullable = false)
+    public UUID aggregateId;
+
+    @Column(name = "event_type", nullable = false)
+    public String eventType;
+
+    @Column(name = "message_key")
+    public String messageKey;
+
+    @Column(nullable = false)
+    public String payload;
+
+    @Column(name = "created_at", nullable = false)
+    public Instant createdAt;
+
+    public static OutboxEvent of(UUID aggregateId, String eventType, String messageKey, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.aggregateId = aggregateId;
+        event.eventType = eventType;
+        event.messageKey = messageKey;
+        event.payload = payload;
+        event.createdAt = Instant.now();
+        return event;
+    }
+
+    /**
+     * Claims up to limit of the oldest events for this transaction. A keyed event is only
+     * claimed together with its key's transaction-scoped advisory lock, so while one relay
+     * holds a key no other relay can send a later event for it ahead of the earlier ones;
+     * keys held elsewhere are skipped rather than waited on. Unkeyed events are claimed row
+     * by row with SKIP LOCKED.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<OutboxEvent> lockOldest(int limit) {
+        // The head subquery bounds which rows try a key lock, so a relay never holds keys far ahead of its batch
+        return getEntityManager().createNativeQuery("""
+                SELECT * FROM outbox_events
+                WHERE id IN (
+                    SELECT id FROM (
+                        SELECT id, message_key FROM outbox_events ORDER BY id LIMIT ?1
+                    ) head
+                    WHERE message_key IS NULL OR pg_try_advisory_xact_lock(hashtext(message_key))
+                )
+                ORDER BY id
+                LIMIT ?2
+                FOR UPDATE SKIP LOCKED
+                """, OutboxEvent.class)
+            .setParameter(1, limit * HEAD_SCAN_FACTOR)
+            .setParameter(2, limit)
+            .getResultList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.trading.platform.trading.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.*;
+import org.hibernate.LockOptions;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Commit of a wallet funds reservation that a recorded trade still owes. Written in the
+ * same transaction as the trade and deleted only once wallet-service has acknowledged
+ * the commit, so a failed call is retried instead of letting the reservation expire.
+ * A commit the wallet rejects outright is kept as FAILED and no longer retried.
+ */
+@Entity
+@Table(name = "reservation_commits")
+public class ReservationCommit extends PanacheEntityBase {
+    public enum Status {
+        PENDING,
+        // Rejected by wallet-service: the trade executed but its reservation cannot be committed
+        FAILED
+    }
+
+    @Id
+    @Column(name = "reservation_id")
+    public UUID reservationId;
+
+    @Column(name = "user_id", nullable = false)
+    public UUID userId;
+
+    // Null commits the whole reservation
+    @Column(precision = 19, scale = 2)
+    public BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    public Status status;
+
+    @Column(nullable = false)
+    public int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    public Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    public String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    public Instant createdAt;
+
+    public static ReservationCommit of(UUID userId, UUID reservationId, BigDecimal amount, Instant firstRetryAt) {
+        ReservationCommit commit = new ReservationCommit();
+        commit.reservationId = reservationId;
+        commit.userId = userId;
+        commit.amount = amount;
+        commit.status = Status.PENDING;
+        commit.nextAttemptAt = firstRetryAt;
+        commit.createdAt = Instant.now();
+        return commit;
+    }
+
+    // Rows locked by another instance are skipped rather than waited on
+    public static List<ReservationCommit> lockDue(Instant now, int limit) {
+        return find("status = ?1 and nextAttemptAt <= ?2", Sort.by("nextAttemptAt"), Status.PENDING, now)
+            .page(0, limit)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+            .list();
+    }
+}
@@ -5,6 +5,7 @@ import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 @Entity
@@ -53,4 +54,24 @@ public class Trade extends PanacheEntityBase {
 
     @Column(name = "completed_at")
     public Instant completedAt;
+
+    // Wallet funds reservation backing a buy; null for sells and failed trades
+    @Column(name = "reservation_id")
+    public UUID reservationId;
+
+    // Identifies the limit order fill this trade records one side of; null for market orders
+    @Column(name = "fill_id", unique = true)
+    public String fillId;
+
+    // Client-supplied Idempotency-Key, unique per user
+    @Column(name = "idempotency_key")
+    public String idempotencyKey;
+
+    // Amount (BY_AMOUNT) or quantity (BY_QUANTITY) as submitted; null for limit fills
+    @Column(name = "requested_amount", precision = 19, scale = 2)
+    public BigDecimal requestedAmount;
+
+    public static Optional<Trade> findByIdempotencyKey(UUID userId, String idempotencyKey) {
+        return find("userId = ?1 and idempotencyKey = ?2", userId, idempotencyKey).firstResultOptional();
+    }
 }
@@ -0,0 +1,125 @@
+package com.trading.platform.trading.messaging;
+
+import com.trading.platform.trading.entity.OutboxEvent;
+import com.trading.platform.trading.service.TradeMetrics;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains outbox_events to Kafka in batches.
+ * A drain is kicked off right after every committing transaction that wrote to the
+ * outbox, and the scheduled poll picks up anything left behind by failed sends or
+ * by other instances. Trade requests therefore never wait on the broker.
+ * Instances split the outbox by message key (see OutboxEvent.lockOldest), so events
+ * sharing a key are always sent by one instance at a time, oldest first.
+ */
+@ApplicationScoped
+public class OutboxRelay {
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Channel("trading-events-out")
+    MutinyEmitter<String> tradingEventsEmitter;
+
+    @Inject
+    TradeMetrics tradeMetrics;
+
+    @ConfigProperty(name = "trading.outbox.batch-size")
+    int batchSize;
+
+    @ConfigProperty(name = "trading.outbox.send-timeout")
+    Duration sendTimeout;
+
+    private final ExecutorService relayExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "outbox-relay"));
+    private final AtomicBoolean drainPending = new AtomicBoolean();
+
+    void onOutboxWritten(@Observes(during = TransactionPhase.AFTER_SUCCESS) OutboxWritten event) {
+        requestDrain();
+    }
+
+    @Scheduled(every = "${trading.outbox.poll-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        requestDrain();
+    }
+
+    // Coalesces concurrent requests into a single pending drain on the relay thread
+    void requestDrain() {
+        if (drainPending.compareAndSet(false, true)) {
+            relayExecutor.execute(() -> {
+                drainPending.set(false);
+                drainAll();
+            });
+        }
+    }
+
+    void drainAll() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            LOG.warn("Outbox relay failed, will retry on next poll: {}", e.getMessage());
+        }
+    }
+
+    @Transactional
+    int relayBatch() {
+        List<OutboxEvent> batch = OutboxEvent.lockOldest(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Pipeline the whole batch and wait for all acks once; on failure the rows stay for the next attempt
+        Uni.join().all(batch.stream().map(this::send).toList())
+            .andFailFast()
+            .await().atMost(sendTimeout);
+
+        Instant acked = Instant.now();
+        batch.forEach(event -> tradeMetrics.recordPublish(event.eventType, Duration.between(event.createdAt, acked)));
+
+        OutboxEvent.delete("id in ?1", batch.stream().map(event -> event.id).toList());
+        LOG.debug("Relayed {} outbox events", batch.size());
+        return batch.size();
+    }
+
+    private Uni<Void> send(OutboxEvent event) {
+        Message<String> message = Message.of(event.payload);
+        if (event.messageKey != null) {
+            message = message.addMetadata(OutgoingKafkaRecordMetadata.<String>builder()
+                .withKey(event.messageKey)
+                .build());
+        }
+        return tradingEventsEmitter.sendMessage(message);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    /** CDI event fired inside a transaction that added rows to the outbox. */
+    public static final class OutboxWritten {
+        public static final OutboxWritten INSTANCE = new OutboxWritten();
+
+        private OutboxWritten() {}
+    }
+}
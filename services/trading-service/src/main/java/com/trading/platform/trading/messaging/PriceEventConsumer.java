@@ -0,0 +1,31 @@
+package com.trading.platform.trading.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.platform.events.PriceUpdatedEvent;
+import com.trading.platform.trading.service.LastPriceTable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@ApplicationScoped
+public class PriceEventConsumer {
+    private static final Logger LOG = LoggerFactory.getLogger(PriceEventConsumer.class);
+
+    @Inject
+    LastPriceTable lastPriceTable;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Incoming("pricing-events-in")
+    public void consumePriceUpdatedEvent(String message) {
+        try {
+            PriceUpdatedEvent event = objectMapper.readValue(message, PriceUpdatedEvent.class);
+            lastPriceTable.update(event.getSymbol(), event.getPrice(), event.getTimestamp());
+        } catch (Exception e) {
+            LOG.error("Error processing price event: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.trading.platform.trading.resource;
 
 import com.trading.platform.domain.*;
+import com.trading.platform.trading.entity.Trade;
+import com.trading.platform.trading.service.IdempotencyService;
+import com.trading.platform.trading.service.LimitOrderService;
 import com.trading.platform.trading.service.TradingService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
 @Path("/api/v1/trades")
@@ -17,27 +25,44 @@ import java.util.UUID;
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Trading", description = "Securities trading operations")
 public class TradingResource {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+    // trades.symbol is VARCHAR(10)
+    static final int MAX_SYMBOL_LENGTH = 10;
+
     @Inject
     TradingService tradingService;
 
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    LimitOrderService limitOrderService;
+
+    @ConfigProperty(name = "trading.batch.max-orders")
+    int maxBatchOrders;
+
     @POST
     @Path("/buy")
-    @Operation(summary = "Execute buy order")
-    public Response buy(TradeRequest request) {
+    @Operation(summary = "Execute buy order",
+        description = "Send an Idempotency-Key header to make retries safe: a repeated key returns the original trade")
+    public Response buy(TradeRequest request, @HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey) {
         try {
             // Validate request
             validateTradeRequest(request);
+            validateIdempotencyKey(idempotencyKey);
 
-            // Execute buy based on order type
-            var trade = tradingService.executeBuy(
+            // Execute buy based on order type; a retried key returns the original trade without executing again
+            var result = idempotencyService.execute(request.userId, idempotencyKey, () -> tradingService.executeBuy(
                 request.userId,
                 request.symbol,
                 request.currency,
                 request.orderType,
-                request.orderType == OrderType.BY_AMOUNT ? request.amount : request.quantity
-            );
+                request.orderType == OrderType.BY_AMOUNT ? request.amount : request.quantity,
+                idempotencyKey
+            ));
 
-            return Response.ok(trade).build();
+            return tradeResponse(result, request, TradeType.BUY);
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(Map.of("error", e.getMessage()))
@@ -51,22 +76,25 @@ public class TradingResource {
 
     @POST
     @Path("/sell")
-    @Operation(summary = "Execute sell order")
-    public Response sell(TradeRequest request) {
+    @Operation(summary = "Execute sell order",
+        description = "Send an Idempotency-Key header to make retries safe: a repeated key returns the original trade")
+    public Response sell(TradeRequest request, @HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey) {
         try {
             // Validate request
             validateTradeRequest(request);
+            validateIdempotencyKey(idempotencyKey);
 
-            // Execute sell based on order type
-            var trade = tradingService.executeSell(
+            // Execute sell based on order type; a retried key returns the original trade without executing again
+            var result = idempotencyService.execute(request.userId, idempotencyKey, () -> tradingService.executeSell(
                 request.userId,
                 request.symbol,
                 request.currency,
                 request.orderType,
-                request.orderType == OrderType.BY_AMOUNT ? request.amount : request.quantity
-            );
+                request.orderType == OrderType.BY_AMOUNT ? request.amount : request.quantity,
+                idempotencyKey
+            ));
 
-            return Response.ok(trade).build();
+            return tradeResponse(result, request, TradeType.SELL);
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(Map.of("error", e.getMessage()))
@@ -82,19 +110,195 @@ public class TradingResource {
         }
     }
 
-    private void validateTradeRequest(TradeRequest request) {
+    @POST
+    @Path("/batch")
+    @Operation(summary = "Execute a batch of buy and sell orders",
+        description = "Each order needs a tradeType; results are returned per order in submission order")
+    public Response batch(List<TradeRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "at least one order is required"))
+                .build();
+        }
+        if (requests.size() > maxBatchOrders) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "a batch may contain at most " + maxBatchOrders + " orders"))
+                .build();
+        }
+
+        List<TradingService.BatchOrderResult> results = new ArrayList<>(requests.size());
+        List<TradingService.BatchOrder> orders = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TradeRequest request = requests.get(i);
+            try {
+                validateTradeRequest(request);
+                if (request.tradeType == null) {
+                    throw new IllegalArgumentException("tradeType is required");
+                }
+            } catch (IllegalArgumentException e) {
+                results.add(TradingService.BatchOrderResult.rejected(i, e.getMessage()));
+                continue;
+            }
+
+            TradingService.BatchOrder order = new TradingService.BatchOrder();
+            order.index = i;
+            order.userId = request.userId;
+            order.symbol = request.symbol;
+            order.currency = request.currency;
+            order.tradeType = request.tradeType;
+            order.orderType = request.orderType;
+            order.amountOrQuantity = request.orderType == OrderType.BY_AMOUNT ? request.amount : request.quantity;
+            orders.add(order);
+        }
+
+        try {
+            if (!orders.isEmpty()) {
+                results.addAll(tradingService.executeBatch(orders));
+            }
+            results.sort(Comparator.comparingInt(result -> result.index));
+            return Response.ok(results).build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity(Map.of("error", "Failed to execute batch: " + e.getMessage()))
+                .build();
+        }
+    }
+
+    @POST
+    @Path("/orders")
+    @Operation(summary = "Place a limit order",
+        description = "Matches against resting orders at the limit price or better; any remainder rests in the book")
+    public Response placeLimitOrder(TradeRequest request) {
+        try {
+            validateLimitOrderRequest(request);
+            var order = limitOrderService.place(
+                request.userId,
+                request.symbol,
+                request.currency,
+                request.tradeType,
+                request.quantity,
+                request.limitPrice
+            );
+            return Response.status(Response.Status.CREATED).entity(order).build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity(Map.of("error", "Failed to place limit order: " + e.getMessage()))
+                .build();
+        }
+    }
+
+    @GET
+    @Path("/orders/{orderId}")
+    @Operation(summary = "Get a limit order")
+    public Response getLimitOrder(@PathParam("orderId") long orderId, @QueryParam("userId") UUID userId) {
+        try {
+            return Response.ok(limitOrderService.getOrder(userId, orderId)).build();
+        } catch (NoSuchElementException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        }
+    }
+
+    @DELETE
+    @Path("/orders/{orderId}")
+    @Operation(summary = "Cancel the unfilled part of a limit order")
+    public Response cancelLimitOrder(@PathParam("orderId") long orderId, @QueryParam("userId") UUID userId) {
+        try {
+            return Response.ok(limitOrderService.cancel(userId, orderId)).build();
+        } catch (NoSuchElementException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        }
+    }
+
+    // A replayed key must belong to the same kind of order; anything else is a client bug
+    private Response tradeResponse(IdempotencyService.Result result, TradeRequest request, TradeType tradeType) {
+        Trade trade = result.trade();
+        if (!result.replayed()) {
+            return Response.ok(trade).build();
+        }
+        if (!sameOrder(trade, request, tradeType)) {
+            return Response.status(Response.Status.CONFLICT)
+                .entity(Map.of("error", "Idempotency-Key was already used for a different order"))
+                .build();
+        }
+        return Response.ok(trade).header("Idempotent-Replayed", "true").build();
+    }
+
+    private static boolean sameOrder(Trade trade, TradeRequest request, TradeType tradeType) {
+        BigDecimal requested = request.orderType == OrderType.BY_AMOUNT ? request.amount : request.quantity;
+        return trade.tradeType == tradeType
+            && trade.orderType == request.orderType
+            && trade.symbol.equals(request.symbol)
+            && trade.currency == request.currency
+            && trade.requestedAmount.compareTo(requested) == 0;
+    }
+
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+    }
+
+    private void validateLimitOrderRequest(TradeRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("order is required");
+        }
         if (request.userId == null) {
             throw new IllegalArgumentException("userId is required");
         }
-        if (request.symbol == null || request.symbol.isBlank()) {
+        validateSymbol(request.symbol);
+        if (request.currency == null) {
+            throw new IllegalArgumentException("currency is required");
+        }
+        if (request.tradeType == null) {
+            throw new IllegalArgumentException("tradeType is required");
+        }
+        if (request.quantity == null || request.quantity.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        if (request.limitPrice == null || request.limitPrice.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("limitPrice must be positive");
+        }
+    }
+
+    // Whether the symbol is listed is checked by the service against pricing-service
+    private void validateSymbol(String symbol) {
+        if (symbol == null || symbol.isBlank()) {
             throw new IllegalArgumentException("symbol is required");
         }
+        if (symbol.length() > MAX_SYMBOL_LENGTH) {
+            throw new IllegalArgumentException("symbol must be at most " + MAX_SYMBOL_LENGTH + " characters");
+        }
+    }
+
+    private void validateTradeRequest(TradeRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("order is required");
+        }
+        if (request.userId == null) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        validateSymbol(request.symbol);
         if (request.currency == null) {
             throw new IllegalArgumentException("currency is required");
         }
         if (request.orderType == null) {
             throw new IllegalArgumentException("orderType is required");
         }
+        if (request.orderType == OrderType.LIMIT) {
+            throw new IllegalArgumentException("LIMIT orders are placed via /api/v1/trades/orders");
+        }
         if (request.orderType == OrderType.BY_AMOUNT && (request.amount == null || request.amount.compareTo(BigDecimal.ZERO) <= 0)) {
             throw new IllegalArgumentException("amount must be positive when orderType is BY_AMOUNT");
         }
@@ -110,5 +314,7 @@ public class TradingResource {
         public OrderType orderType;
         public BigDecimal amount;    // Used when orderType = BY_AMOUNT
         public BigDecimal quantity;  // Used when orderType = BY_QUANTITY
+        public TradeType tradeType;  // Used by batch submission and limit orders
+        public BigDecimal limitPrice; // Used by limit orders
     }
 }
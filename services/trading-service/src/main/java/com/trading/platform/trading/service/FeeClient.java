@@ -1,8 +1,12 @@
 package com.trading.platform.trading.service;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import java.math.BigDecimal;
+import java.util.Map;
 
 @RegisterRestClient(configKey = "fee-service")
 @Path("/api/v1/fees")
@@ -11,9 +15,29 @@ public interface FeeClient {
     @Path("/trading/{symbol}")
     FeeResponse getTradingFee(@PathParam("symbol") String symbol, @QueryParam("amount") BigDecimal amount);
 
+    @GET
+    @Path("/trading/{symbol}")
+    Uni<FeeResponse> getTradingFeeAsync(@PathParam("symbol") String symbol, @QueryParam("amount") BigDecimal amount);
+
+    // 304 Not Modified when the schedule still matches the given ETag, otherwise a FeeScheduleResponse
+    @GET
+    @Path("/schedule")
+    Response getFeeSchedule(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch);
+
     class FeeResponse {
         public String symbol;
         public BigDecimal amount;
         public BigDecimal fee;
     }
+
+    class FeeScheduleResponse {
+        public long version;
+        public Fee defaultTradingFee;
+        public Map<String, Fee> tradingFees;
+    }
+
+    class Fee {
+        public BigDecimal fixedFee;
+        public BigDecimal percentageFee;
+    }
 }
@@ -0,0 +1,299 @@
+package com.trading.platform.trading.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.platform.domain.MoneyCalculator;
+import com.trading.platform.domain.OrderType;
+import com.trading.platform.domain.TradeStatus;
+import com.trading.platform.domain.TradeType;
+import com.trading.platform.trading.engine.MatchingEngine;
+import com.trading.platform.trading.entity.FillDeadLetter;
+import com.trading.platform.trading.entity.ReservationCommit;
+import com.trading.platform.trading.entity.Trade;
+import com.trading.platform.trading.service.LimitOrderService.LimitOrder;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Persists limit order fills as Trades off the matching path.
+ * Engine shard threads only enqueue; a single recorder thread drains the queue in
+ * batches, writes both sides of every fill in one transaction (outbox included) and then
+ * settles the funds reservations of orders that are done. A settlement is persisted as a
+ * ReservationCommit before the wallet is called, and a snapshot waits for the recorder
+ * (see barrier()), so an unacknowledged commit outlives the journal it was replayed from. Each trade carries a fill id,
+ * so fills replayed from the engine journal after a restart are written at most once.
+ * <p>
+ * A batch that fails for a transient reason (lost connection, serialization failure,
+ * deadlock) is retried until it succeeds. Any other failure is retried trade by trade, and
+ * the trades that still fail go to fill_dead_letters, so one bad fill cannot hold up the
+ * fills queued behind it.
+ */
+@ApplicationScoped
+public class FillRecorder {
+    private static final Logger LOG = LoggerFactory.getLogger(FillRecorder.class);
+
+    @Inject TradingService tradingService;
+    @Inject @RestClient WalletClient walletClient;
+    @Inject ObjectMapper objectMapper;
+    @Inject ReservationCommitter reservationCommitter;
+
+    @ConfigProperty(name = "trading.limit-orders.recorder-batch-size")
+    int batchSize;
+
+    @ConfigProperty(name = "trading.limit-orders.recorder-retry-delay")
+    Duration retryDelay;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService recorderExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "fill-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean started;
+
+    public void recordFill(MatchingEngine.Fill<LimitOrder> fill) {
+        enqueue(fill);
+    }
+
+    // Queued behind the order's fills so the reservation is settled after they are recorded
+    public void settle(MatchingEngine.OrderState<LimitOrder> order) {
+        enqueue(new Settlement(order));
+    }
+
+    /**
+     * Completes once everything enqueued before it has been persisted.
+     */
+    public CompletableFuture<Void> barrier() {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        enqueue(barrier);
+        return barrier;
+    }
+
+    void release(LimitOrder order) {
+        if (order.reservationId == null) {
+            return;
+        }
+        try {
+            walletClient.releaseReservation(order.userId, order.reservationId);
+        } catch (Exception e) {
+            // The reservation expires and is released by wallet-service anyway
+            LOG.warn("Failed to release reservation: orderId={}, reservationId={}: {}",
+                order.orderId, order.reservationId, e.getMessage());
+        }
+    }
+
+    private void enqueue(Object item) {
+        queue.add(item);
+        if (!started) {
+            start();
+        }
+    }
+
+    private synchronized void start() {
+        if (!started) {
+            started = true;
+            recorderExecutor.execute(this::run);
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Items are handled in queue order; trades are flushed before any settlement or barrier that follows them
+    private void process(List<Object> batch) throws InterruptedException {
+        List<Trade> trades = new ArrayList<>();
+        for (Object item : batch) {
+            if (item instanceof MatchingEngine.Fill<?> fill) {
+                @SuppressWarnings("unchecked")
+                MatchingEngine.Fill<LimitOrder> limitFill = (MatchingEngine.Fill<LimitOrder>) fill;
+                trades.add(toTrade(limitFill, limitFill.maker()));
+                trades.add(toTrade(limitFill, limitFill.taker()));
+                continue;
+            }
+            persistWithRetry(trades);
+            trades.clear();
+            if (item instanceof Settlement settlement) {
+                settleReservation(settlement.order());
+            } else if (item instanceof CompletableFuture<?> barrier) {
+                barrier.complete(null);
+            }
+        }
+        persistWithRetry(trades);
+    }
+
+    // The fills are already final in the book (and journal), so they are never dropped silently
+    private void persistWithRetry(List<Trade> trades) throws InterruptedException {
+        if (trades.isEmpty()) {
+            return;
+        }
+        try {
+            retryTransient(() -> persistNew(trades), trades.size());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to record {} limit order trades, recording them one by one: {}",
+                trades.size(), e.getMessage());
+            for (Trade trade : trades) {
+                try {
+                    retryTransient(() -> persistNew(List.of(trade)), 1);
+                } catch (RuntimeException permanent) {
+                    deadLetter(trade, permanent);
+                }
+            }
+        }
+    }
+
+    private void retryTransient(Runnable attempt, int size) throws InterruptedException {
+        while (true) {
+            try {
+                attempt.run();
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                LOG.warn("Transient failure recording {} limit order trades, retrying in {}: {}",
+                    size, retryDelay, e.getMessage());
+                Thread.sleep(retryDelay.toMillis());
+            }
+        }
+    }
+
+    private void deadLetter(Trade trade, RuntimeException cause) throws InterruptedException {
+        LOG.error("Dead-lettering limit order trade: fillId={}, userId={}: {}",
+            trade.fillId, trade.userId, cause.getMessage());
+        try {
+            String payload = objectMapper.writeValueAsString(trade);
+            retryTransient(() -> storeDeadLetter(FillDeadLetter.of(trade, payload, String.valueOf(cause.getMessage()))), 1);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Nowhere left to put it; the log line above is the only record of this fill
+            LOG.error("Failed to dead-letter limit order trade: fillId={}: {}", trade.fillId, e.getMessage());
+        }
+    }
+
+    @Transactional
+    void storeDeadLetter(FillDeadLetter letter) {
+        letter.id = null;
+        letter.persist();
+    }
+
+    // Connection loss (SQLSTATE 08), serialization failures and deadlocks (40), resource exhaustion (53)
+    // and server shutdown (57P) may succeed when retried; constraint and data errors never will
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || state.startsWith("40") || state.startsWith("53") || state.startsWith("57P")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Transactional
+    void persistNew(List<Trade> trades) {
+        // A rolled-back attempt leaves its generated ids on the entities; clear them so a retry inserts afresh
+        trades.forEach(trade -> trade.id = null);
+        Set<String> existing = new HashSet<>(Trade.<Trade>list("fillId in ?1",
+                trades.stream().map(trade -> trade.fillId).toList())
+            .stream().map(trade -> trade.fillId).toList());
+        List<Trade> fresh = existing.isEmpty()
+            ? trades
+            : trades.stream().filter(trade -> !existing.contains(trade.fillId)).toList();
+        if (!fresh.isEmpty()) {
+            tradingService.recordTrades(new ArrayList<>(fresh));
+        }
+        LOG.debug("Recorded limit order trades: new={}, alreadyRecorded={}", fresh.size(), existing.size());
+    }
+
+    private Trade toTrade(MatchingEngine.Fill<LimitOrder> fill, MatchingEngine.OrderState<LimitOrder> side) {
+        LimitOrder order = side.attachment();
+        // Notional and fee are differences of cumulative values, so rounding never drifts across fills
+        long valueBefore = side.filledValue() - fill.price() * fill.quantity();
+        long filledBefore = side.filled() - fill.quantity();
+        long notionalCents = order.notionalCents(side.filledValue()) - order.notionalCents(valueBefore);
+        long feeCents = order.feeCentsFor(side.filled()) - order.feeCentsFor(filledBefore);
+
+        BigDecimal fee = LimitOrderService.fromScaled(feeCents);
+        BigDecimal total = order.tradeType == TradeType.BUY
+            ? LimitOrderService.fromScaled(notionalCents + feeCents)
+            : MoneyCalculator.roundAmountForSell(LimitOrderService.fromScaled(notionalCents - feeCents));
+        Trade trade = tradingService.newTrade(order.userId, order.symbol, order.tradeType, OrderType.LIMIT,
+            LimitOrderService.fromScaled(fill.quantity()), LimitOrderService.fromScaled(fill.price()),
+            order.currency, total, fee, TradeStatus.COMPLETED);
+        trade.reservationId = order.reservationId;
+        trade.fillId = fill.maker().orderId() + "-" + fill.taker().orderId() + (side.buy() ? "-B" : "-S");
+        return trade;
+    }
+
+    private void settleReservation(MatchingEngine.OrderState<LimitOrder> state) throws InterruptedException {
+        LimitOrder order = state.attachment();
+        if (order.reservationId == null) {
+            return;
+        }
+        long spentCents = Math.min(order.reservedCents,
+            order.notionalCents(state.filledValue()) + order.feeCentsFor(state.filled()));
+        if (spentCents == 0) {
+            release(order);
+            return;
+        }
+        // Idempotent on the wallet side, so settlements replayed after a restart are harmless
+        ReservationCommit commit = reservationCommitter.pending(order.userId, order.reservationId,
+            LimitOrderService.fromScaled(spentCents));
+        try {
+            retryTransient(() -> storeCommit(commit), 1);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to persist reservation commit, committing without a retry record: orderId={}, reservationId={}: {}",
+                order.orderId, order.reservationId, e.getMessage());
+        }
+        reservationCommitter.commit(commit);
+    }
+
+    // A settlement replayed while its commit is still pending finds the row already there
+    @Transactional
+    void storeCommit(ReservationCommit commit) {
+        if (ReservationCommit.findById(commit.reservationId) == null) {
+            commit.persist();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        recorderExecutor.shutdownNow();
+    }
+
+    private record Settlement(MatchingEngine.OrderState<LimitOrder> order) {}
+}
@@ -0,0 +1,144 @@
+package com.trading.platform.trading.service;
+
+import com.trading.platform.trading.entity.Trade;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes trade submission idempotent per (user, Idempotency-Key).
+ * Recent results are served from a bounded LRU cache with a TTL; concurrent retries of a
+ * request that is still running wait for it instead of executing again; older keys and
+ * other instances fall back to the unique (user_id, idempotency_key) index on trades.
+ */
+@ApplicationScoped
+public class IdempotencyService {
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @ConfigProperty(name = "trading.idempotency.max-entries")
+    int maxEntries;
+
+    @ConfigProperty(name = "trading.idempotency.ttl")
+    Duration ttl;
+
+    private final Map<Key, CompletableFuture<Trade>> inFlight = new ConcurrentHashMap<>();
+    private Map<Key, Entry> cache;
+
+    // Access-ordered, so the least recently used key is evicted once maxEntries is reached
+    @PostConstruct
+    void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries || eldest.getValue().expiresAt.isBefore(Instant.now());
+            }
+        };
+    }
+
+    /**
+     * Runs the action unless a trade with this key exists already; without a key it just runs.
+     *
+     * @param action must persist the trade with the given key set
+     */
+    public Result execute(UUID userId, String idempotencyKey, Supplier<Trade> action) {
+        if (idempotencyKey == null) {
+            return new Result(action.get(), false);
+        }
+        Key key = new Key(userId, idempotencyKey);
+        Trade cached = cached(key);
+        if (cached != null) {
+            return new Result(cached, true);
+        }
+
+        CompletableFuture<Trade> running = new CompletableFuture<>();
+        CompletableFuture<Trade> existing = inFlight.putIfAbsent(key, running);
+        if (existing != null) {
+            return new Result(await(existing), true);
+        }
+
+        try {
+            Optional<Trade> stored = Trade.findByIdempotencyKey(userId, idempotencyKey);
+            if (stored.isPresent()) {
+                remember(key, stored.get());
+                running.complete(stored.get());
+                return new Result(stored.get(), true);
+            }
+
+            Trade trade;
+            try {
+                trade = action.get();
+            } catch (RuntimeException e) {
+                // Lost a race with another instance on the unique index; its trade is the result
+                Optional<Trade> winner = isUniqueViolation(e) ? Trade.findByIdempotencyKey(userId, idempotencyKey) : Optional.empty();
+                if (winner.isEmpty()) {
+                    throw e;
+                }
+                LOG.info("Idempotency key taken concurrently: userId={}, key={}", userId, idempotencyKey);
+                trade = winner.get();
+                remember(key, trade);
+                running.complete(trade);
+                return new Result(trade, true);
+            }
+            remember(key, trade);
+            running.complete(trade);
+            return new Result(trade, false);
+        } catch (RuntimeException e) {
+            running.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, running);
+        }
+    }
+
+    private synchronized Trade cached(Key key) {
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt.isBefore(Instant.now())) {
+            cache.remove(key);
+            return null;
+        }
+        return entry.trade;
+    }
+
+    private synchronized void remember(Key key, Trade trade) {
+        cache.put(key, new Entry(trade, Instant.now().plus(ttl)));
+    }
+
+    private static Trade await(CompletableFuture<Trade> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record Result(Trade trade, boolean replayed) {}
+
+    private record Key(UUID userId, String idempotencyKey) {}
+
+    private record Entry(Trade trade, Instant expiresAt) {}
+}
@@ -0,0 +1,40 @@
+package com.trading.platform.trading.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest known price per symbol, fed by the pricing-events stream.
+ * Entries older than the staleness bound are ignored so callers fall back to PricingClient.
+ */
+@ApplicationScoped
+public class LastPriceTable {
+
+    @ConfigProperty(name = "trading.pricing.max-price-age")
+    Duration maxPriceAge;
+
+    private final Map<String, PricePoint> prices = new ConcurrentHashMap<>();
+
+    public void update(String symbol, BigDecimal price, Instant asOf) {
+        PricePoint point = new PricePoint(price, asOf);
+        // Ticks may arrive out of order; never replace a newer price with an older one
+        prices.merge(symbol.toUpperCase(), point,
+            (existing, incoming) -> incoming.asOf().isBefore(existing.asOf()) ? existing : incoming);
+    }
+
+    public Optional<BigDecimal> freshPrice(String symbol) {
+        PricePoint point = prices.get(symbol.toUpperCase());
+        if (point == null || point.asOf().isBefore(Instant.now().minus(maxPriceAge))) {
+            return Optional.empty();
+        }
+        return Optional.of(point.price());
+    }
+
+    record PricePoint(BigDecimal price, Instant asOf) {}
+}
@@ -0,0 +1,380 @@
+package com.trading.platform.trading.service;
+
+import com.trading.platform.domain.*;
+import com.trading.platform.trading.engine.PartitionedJournal;
+import com.trading.platform.trading.engine.MatchingEngine;
+import com.trading.platform.trading.engine.Snapshots;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit orders on top of the in-memory MatchingEngine.
+ * The engine only sees long ids, prices and quantities; this service owns the order
+ * metadata and funds reservations. Fills are handed to FillRecorder, which persists
+ * them as Trades in batches off the request path.
+ * <p>
+ * With the journal enabled, every order command is journaled before it is applied, and
+ * the books are snapshotted periodically, so a restart recovers all open orders from the
+ * latest snapshot plus the journal tail instead of losing them.
+ */
+@ApplicationScoped
+public class LimitOrderService {
+    private static final Logger LOG = LoggerFactory.getLogger(LimitOrderService.class);
+
+    @Inject TradingService tradingService;
+    @Inject FillRecorder fillRecorder;
+    @Inject @RestClient WalletClient walletClient;
+
+    @ConfigProperty(name = "trading.engine.shards")
+    Optional<Integer> shardCount;
+
+    @ConfigProperty(name = "trading.engine.journal.enabled")
+    boolean journalEnabled;
+
+    @ConfigProperty(name = "trading.engine.journal.dir")
+    Path journalDir;
+
+    @ConfigProperty(name = "trading.engine.journal.segment-size")
+    int segmentSize;
+
+    @ConfigProperty(name = "trading.engine.journal.partitions")
+    int journalPartitions;
+
+    // A snapshot is only written once the fills it covers are persisted
+    @ConfigProperty(name = "trading.engine.snapshot-timeout")
+    Duration snapshotTimeout;
+
+    @ConfigProperty(name = "trading.limit-orders.max-lifetime")
+    Duration maxLifetime;
+
+    // Must outlive max-lifetime so the wallet does not release funds of an order that is still resting
+    @ConfigProperty(name = "trading.limit-orders.reservation-ttl")
+    Duration reservationTtl;
+
+    private volatile MatchingEngine<LimitOrder> engine;
+    private final Map<Long, LimitOrder> orders = new ConcurrentHashMap<>();
+    // Seeded from the clock so ids are not reused after a restart
+    private final AtomicLong orderIds = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    void onStart(@Observes StartupEvent event) {
+        int shards = shardCount.orElse(Runtime.getRuntime().availableProcessors());
+        PartitionedJournal journal = journalEnabled ? new PartitionedJournal(journalDir, journalPartitions, segmentSize) : null;
+        // A user's incoming order cancels their own resting orders instead of trading with them
+        MatchingEngine<LimitOrder> recovering = new MatchingEngine<>(shards, journal, new LimitOrderCodec(),
+            new EngineListener(), (resting, incoming) -> resting.userId.equals(incoming.userId));
+
+        long started = System.nanoTime();
+        long replayed = recovering.recover();
+        for (MatchingEngine.OrderState<LimitOrder> resting : recovering.restingOrders()) {
+            LimitOrder order = resting.attachment();
+            order.advance(resting);
+            orders.put(order.orderId, order);
+            orderIds.accumulateAndGet(order.orderId, Math::max);
+        }
+        engine = recovering;
+
+        LOG.info("Matching engine started: shards={}, journal={}, openOrders={}, replayed={}, recoveryMs={}",
+            shards, journalEnabled, orders.size(), replayed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    public LimitOrder place(UUID userId, String symbol, Currency currency, TradeType tradeType,
+                            BigDecimal quantity, BigDecimal limitPrice) {
+        if (!tradingService.isListed(symbol)) {
+            throw new IllegalArgumentException("Unknown symbol: " + symbol);
+        }
+        LimitOrder order = new LimitOrder();
+        order.scaledQuantity = toScaled(quantity, "quantity");
+        order.scaledPrice = toScaled(limitPrice, "limitPrice");
+        order.orderId = orderIds.incrementAndGet();
+        order.userId = userId;
+        order.symbol = symbol;
+        order.currency = currency;
+        order.tradeType = tradeType;
+        order.quantity = quantity;
+        order.limitPrice = limitPrice;
+        order.createdAt = Instant.now();
+        order.remaining = order.scaledQuantity;
+        // Fee is fixed at placement for the full notional and charged pro rata per fill
+        BigDecimal fee = tradingService.tradingFeeOf(symbol, quantity.multiply(limitPrice)).await().indefinitely();
+        order.feeCents = fee.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+        if (tradeType == TradeType.BUY) {
+            // Buys fill at the limit price or better, so this covers every possible fill
+            order.reservedCents = order.notionalCents(order.scaledQuantity * order.scaledPrice) + order.feeCents;
+            try {
+                order.reservationId = walletClient.reserveFunds(userId, new WalletClient.ReserveRequest(currency,
+                    fromScaled(order.reservedCents), reservationTtl.toSeconds())).id;
+            } catch (Exception e) {
+                throw new IllegalStateException("Insufficient funds");
+            }
+        }
+        orders.put(order.orderId, order);
+
+        MatchingEngine.PlaceResult<LimitOrder> result;
+        try {
+            result = engine.place(bookKey(symbol, currency), order.orderId, tradeType == TradeType.BUY,
+                order.scaledPrice, order.scaledQuantity, order).join();
+        } catch (RuntimeException e) {
+            orders.remove(order.orderId);
+            fillRecorder.release(order);
+            throw e;
+        }
+
+        LOG.info("Limit order placed: orderId={}, userId={}, symbol={}, side={}, quantity={}, limitPrice={}, fills={}",
+            order.orderId, userId, symbol, tradeType, quantity, limitPrice, result.fills().size());
+
+        return order;
+    }
+
+    public LimitOrder cancel(UUID userId, long orderId) {
+        LimitOrder order = getOrder(userId, orderId);
+        if (engine.cancel(bookKey(order.symbol, order.currency), orderId).join() == null) {
+            throw new IllegalStateException("Order is no longer open");
+        }
+
+        LOG.info("Limit order cancelled: orderId={}, userId={}, cancelledQuantity={}",
+            orderId, userId, order.getCancelledQuantity());
+
+        return order;
+    }
+
+    public LimitOrder getOrder(UUID userId, long orderId) {
+        LimitOrder order = orders.get(orderId);
+        if (order == null || !order.userId.equals(userId)) {
+            throw new NoSuchElementException("Order not found");
+        }
+        return order;
+    }
+
+    @Scheduled(every = "${trading.limit-orders.expiry-check-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void cancelExpiredOrders() {
+        Instant cutoff = Instant.now().minus(maxLifetime);
+        // Finished orders stay queryable for one lifetime, then they are only in the trades table
+        orders.values().removeIf(order -> order.getStatus() != LimitOrder.Status.OPEN && order.createdAt.isBefore(cutoff));
+        for (LimitOrder order : orders.values()) {
+            if (order.createdAt.isBefore(cutoff)) {
+                try {
+                    cancel(order.userId, order.orderId);
+                } catch (IllegalStateException e) {
+                    // Filled in the meantime
+                }
+            }
+        }
+    }
+
+    @Scheduled(every = "${trading.engine.journal.flush-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void flushJournal() {
+        if (engine != null) {
+            engine.flushJournal();
+        }
+    }
+
+    @Scheduled(every = "${trading.engine.snapshot-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void snapshot() {
+        if (engine == null || !journalEnabled) {
+            return;
+        }
+        Snapshots.Capture capture = engine.capture();
+        try {
+            // Older journal segments are dropped with the snapshot, so their fills must be in the database first
+            fillRecorder.barrier().get(snapshotTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn("Skipping engine snapshot, fill recorder is behind: books={}", capture.books().size());
+            return;
+        } catch (Exception e) {
+            LOG.warn("Skipping engine snapshot: {}", e.getMessage());
+            return;
+        }
+        engine.writeSnapshot(capture);
+    }
+
+    private static String bookKey(String symbol, Currency currency) {
+        return symbol + ":" + currency;
+    }
+
+    // The engine works on hundredths; finer values would be silently truncated, so reject them
+    private static long toScaled(BigDecimal value, String field) {
+        try {
+            return value.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(field + " must have at most 2 decimal places");
+        }
+    }
+
+    static BigDecimal fromScaled(long value) {
+        return BigDecimal.valueOf(value, 2);
+    }
+
+    // Runs on the shard threads, for live and replayed commands alike, so it only updates state and enqueues
+    private class EngineListener implements MatchingEngine.Listener<LimitOrder> {
+        @Override
+        public void onFill(MatchingEngine.Fill<LimitOrder> fill) {
+            fill.maker().attachment().advance(fill.maker());
+            fill.taker().attachment().advance(fill.taker());
+            fillRecorder.recordFill(fill);
+            if (fill.maker().remaining() == 0) {
+                fillRecorder.settle(fill.maker());
+            }
+            if (fill.taker().remaining() == 0) {
+                fillRecorder.settle(fill.taker());
+            }
+        }
+
+        @Override
+        public void onCancel(MatchingEngine.OrderState<LimitOrder> order) {
+            order.attachment().cancel(order);
+            fillRecorder.settle(order);
+        }
+    }
+
+    public static class LimitOrder {
+        public enum Status { OPEN, FILLED, CANCELLED }
+
+        public long orderId;
+        public UUID userId;
+        public String symbol;
+        public Currency currency;
+        public TradeType tradeType;
+        public BigDecimal quantity;
+        public BigDecimal limitPrice;
+        public UUID reservationId;
+        public Instant createdAt;
+
+        // Scaled by 100, like the engine
+        long scaledQuantity;
+        long scaledPrice;
+        long feeCents;
+        long reservedCents;
+
+        private long remaining;
+        private long cancelled;
+        private Status status = Status.OPEN;
+
+        public synchronized BigDecimal getFilledQuantity() {
+            return fromScaled(scaledQuantity - remaining - cancelled);
+        }
+
+        public synchronized BigDecimal getCancelledQuantity() {
+            return fromScaled(cancelled);
+        }
+
+        public synchronized Status getStatus() {
+            return status;
+        }
+
+        // Fills of one order are reported in book order, but callers may observe them late
+        synchronized void advance(MatchingEngine.OrderState<LimitOrder> state) {
+            if (status == Status.OPEN && state.remaining() < remaining) {
+                remaining = state.remaining();
+                if (remaining == 0) {
+                    status = Status.FILLED;
+                }
+            }
+        }
+
+        synchronized void cancel(MatchingEngine.OrderState<LimitOrder> state) {
+            remaining = 0;
+            cancelled = state.remaining();
+            status = Status.CANCELLED;
+        }
+
+        // filledValue is price * quantity scaled by 10^4; rounded half up to cents
+        long notionalCents(long filledValue) {
+            return (filledValue + 50) / 100;
+        }
+
+        // Fee charged for the first `filled` units; per-fill fees are differences of this, so they sum exactly to feeCents
+        long feeCentsFor(long filled) {
+            return Math.multiplyExact(feeCents, filled) / scaledQuantity;
+        }
+    }
+
+    // Only the fields fixed at placement are journaled; fill progress is rebuilt by replay
+    static final class LimitOrderCodec implements MatchingEngine.Codec<LimitOrder> {
+        @Override
+        public byte[] encode(LimitOrder order) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeLong(order.orderId);
+                out.writeLong(order.userId.getMostSignificantBits());
+                out.writeLong(order.userId.getLeastSignificantBits());
+                out.writeUTF(order.symbol);
+                out.writeUTF(order.currency.name());
+                out.writeUTF(order.tradeType.name());
+                out.writeLong(order.scaledQuantity);
+                out.writeLong(order.scaledPrice);
+                out.writeLong(order.feeCents);
+                out.writeLong(order.reservedCents);
+                out.writeBoolean(order.reservationId != null);
+                if (order.reservationId != null) {
+                    out.writeLong(order.reservationId.getMostSignificantBits());
+                    out.writeLong(order.reservationId.getLeastSignificantBits());
+                }
+                out.writeLong(order.createdAt.toEpochMilli());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public LimitOrder decode(byte[] bytes) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                LimitOrder order = new LimitOrder();
+                order.orderId = in.readLong();
+                order.userId = new UUID(in.readLong(), in.readLong());
+                order.symbol = in.readUTF();
+                order.currency = Currency.valueOf(in.readUTF());
+                order.tradeType = TradeType.valueOf(in.readUTF());
+                order.scaledQuantity = in.readLong();
+                order.scaledPrice = in.readLong();
+                order.feeCents = in.readLong();
+                order.reservedCents = in.readLong();
+                if (in.readBoolean()) {
+                    order.reservationId = new UUID(in.readLong(), in.readLong());
+                }
+                order.createdAt = Instant.ofEpochMilli(in.readLong());
+                order.quantity = fromScaled(order.scaledQuantity);
+                order.limitPrice = fromScaled(order.scaledPrice);
+                order.remaining = order.scaledQuantity;
+                return order;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.trading.platform.trading.service;
+
+import com.trading.platform.domain.MoneyCalculator;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * In-process replica of the fee-service trading fee schedule.
+ * Fees are computed exactly like FeeCalculationService does, so trades no longer
+ * need a remote call per fee. Until the first snapshot is loaded callers fall back
+ * to FeeClient.
+ */
+@ApplicationScoped
+public class LocalFeeSchedule {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalFeeSchedule.class);
+
+    @Inject @RestClient FeeClient feeClient;
+
+    private volatile FeeClient.FeeScheduleResponse snapshot;
+
+    void onStart(@Observes StartupEvent event) {
+        refresh();
+    }
+
+    @Scheduled(every = "${trading.fee-schedule.refresh-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        FeeClient.FeeScheduleResponse current = snapshot;
+        String etag = current != null ? "\"" + current.version + "\"" : null;
+        try (Response response = feeClient.getFeeSchedule(etag)) {
+            if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                return;
+            }
+            FeeClient.FeeScheduleResponse loaded = response.readEntity(FeeClient.FeeScheduleResponse.class);
+            snapshot = loaded;
+            LOG.info("Loaded fee schedule version {} ({} trading rules)", loaded.version, loaded.tradingFees.size());
+        } catch (Exception e) {
+            LOG.warn("Failed to refresh fee schedule, keeping version {}: {}",
+                current != null ? current.version : "none", e.getMessage());
+        }
+    }
+
+    public Optional<BigDecimal> tradingFee(String symbol, BigDecimal amount) {
+        FeeClient.FeeScheduleResponse current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        FeeClient.Fee rule = current.tradingFees.getOrDefault(symbol, current.defaultTradingFee);
+        return Optional.of(rule.fixedFee.add(MoneyCalculator.percentage(amount, rule.percentageFee)));
+    }
+}
@@ -1,5 +1,6 @@
 package com.trading.platform.trading.service;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import java.math.BigDecimal;
@@ -11,6 +12,10 @@ public interface PricingClient {
     @Path("/securities/{symbol}/price")
     PriceResponse getPrice(@PathParam("symbol") String symbol);
 
+    @GET
+    @Path("/securities/{symbol}/price")
+    Uni<PriceResponse> getPriceAsync(@PathParam("symbol") String symbol);
+
     class PriceResponse {
         public String symbol;
         public BigDecimal price;
@@ -0,0 +1,165 @@
+package com.trading.platform.trading.service;
+
+import com.trading.platform.trading.entity.ReservationCommit;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers the reservation commits that recorded trades owe to wallet-service.
+ * The caller persists a ReservationCommit together with its trades and then calls
+ * commit(); a commit the wallet does not acknowledge stays in reservation_commits and is
+ * retried with exponential backoff until it is. Commits are idempotent on the wallet
+ * side, so delivering one twice is harmless.
+ * <p>
+ * No transaction is held while the wallet is called: due rows are claimed in one short
+ * transaction and the outcome of each call is recorded in another. A commit the wallet
+ * rejects with a client error (reservation unknown, released or expired) will never
+ * succeed, so it is marked FAILED and reported once instead of being retried.
+ */
+@ApplicationScoped
+public class ReservationCommitter {
+    private static final Logger LOG = LoggerFactory.getLogger(ReservationCommitter.class);
+
+    @Inject @RestClient WalletClient walletClient;
+
+    @ConfigProperty(name = "trading.reservation-commit.batch-size")
+    int batchSize;
+
+    @ConfigProperty(name = "trading.reservation-commit.retry-delay")
+    Duration retryDelay;
+
+    @ConfigProperty(name = "trading.reservation-commit.max-retry-delay")
+    Duration maxRetryDelay;
+
+    /**
+     * The row to persist in the trade's transaction; the scheduled retry leaves it to the
+     * caller's own attempt for the first retry-delay.
+     */
+    public ReservationCommit pending(UUID userId, UUID reservationId, BigDecimal amount) {
+        return ReservationCommit.of(userId, reservationId, amount, Instant.now().plus(retryDelay));
+    }
+
+    /**
+     * Attempts a commit whose row has been persisted; returns whether the wallet acknowledged it.
+     * On a transient failure the row stays and is retried in the background.
+     */
+    public boolean commit(ReservationCommit commit) {
+        try {
+            send(commit);
+        } catch (Exception e) {
+            if (isRejected(e)) {
+                QuarkusTransaction.requiringNew().run(() -> markFailed(commit, e));
+            } else {
+                LOG.warn("Reservation commit failed, will retry: reservationId={}, userId={}: {}",
+                    commit.reservationId, commit.userId, e.getMessage());
+            }
+            return false;
+        }
+        QuarkusTransaction.requiringNew().run(() -> ReservationCommit.deleteById(commit.reservationId));
+        return true;
+    }
+
+    @Scheduled(every = "${trading.reservation-commit.retry-delay}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void retryDue() {
+        try {
+            List<ReservationCommit> due;
+            do {
+                due = QuarkusTransaction.requiringNew().call(this::claimDue);
+                due.forEach(this::retry);
+            } while (due.size() == batchSize);
+        } catch (Exception e) {
+            LOG.warn("Reservation commit retry failed, will retry on next run: {}", e.getMessage());
+        }
+    }
+
+    // Moves each row's next attempt out by its backoff before the wallet is called, so no other
+    // instance claims it meanwhile and a crash during the call leaves it due again later
+    List<ReservationCommit> claimDue() {
+        Instant now = Instant.now();
+        List<ReservationCommit> due = ReservationCommit.lockDue(now, batchSize);
+        for (ReservationCommit commit : due) {
+            commit.nextAttemptAt = now.plus(backoff(commit.attempts + 1));
+        }
+        return due;
+    }
+
+    private void retry(ReservationCommit commit) {
+        try {
+            send(commit);
+        } catch (Exception e) {
+            if (isRejected(e)) {
+                QuarkusTransaction.requiringNew().run(() -> markFailed(commit, e));
+            } else {
+                QuarkusTransaction.requiringNew().run(() -> recordAttempt(commit, e));
+                LOG.warn("Reservation commit still failing: reservationId={}, userId={}, attempts={}, next={}: {}",
+                    commit.reservationId, commit.userId, commit.attempts + 1, commit.nextAttemptAt, e.getMessage());
+            }
+            return;
+        }
+        QuarkusTransaction.requiringNew().run(() -> ReservationCommit.deleteById(commit.reservationId));
+        LOG.info("Reservation committed on retry: reservationId={}, userId={}, attempts={}",
+            commit.reservationId, commit.userId, commit.attempts + 1);
+    }
+
+    private void recordAttempt(ReservationCommit commit, Exception failure) {
+        ReservationCommit row = ReservationCommit.findById(commit.reservationId);
+        if (row != null) {
+            row.attempts++;
+            row.lastError = truncate(failure.getMessage());
+        }
+    }
+
+    private void markFailed(ReservationCommit commit, Exception failure) {
+        ReservationCommit row = ReservationCommit.findById(commit.reservationId);
+        if (row == null || row.status == ReservationCommit.Status.FAILED) {
+            return;
+        }
+        row.status = ReservationCommit.Status.FAILED;
+        row.attempts++;
+        row.lastError = truncate(failure.getMessage());
+        // Logged once: the trade has executed but the wallet will not take its funds, so this needs manual repair
+        LOG.error("Reservation commit rejected by wallet-service, giving up: reservationId={}, userId={}, amount={}: {}",
+            commit.reservationId, commit.userId, commit.amount, failure.getMessage());
+    }
+
+    // A 4xx answer is final, except a timeout or rate limit
+    static boolean isRejected(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebApplicationException web) {
+                int status = web.getResponse().getStatus();
+                return status >= 400 && status < 500 && status != 408 && status != 429;
+            }
+        }
+        return false;
+    }
+
+    private void send(ReservationCommit commit) {
+        if (commit.amount == null) {
+            walletClient.commitReservation(commit.userId, commit.reservationId);
+        } else {
+            walletClient.commitReservation(commit.userId, commit.reservationId,
+                new WalletClient.CommitRequest(commit.amount));
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts, 16));
+        return delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay;
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -0,0 +1,81 @@
+package com.trading.platform.trading.service;
+
+import com.trading.platform.domain.OrderType;
+import com.trading.platform.domain.TradeType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Latency breakdown of market order execution, exported via /q/metrics.
+ * {@code trading_order_stage_seconds{stage, trade_type, order_type}} times each remote
+ * call and the persist; {@code trading_order_seconds{trade_type, order_type, outcome}}
+ * times the whole order. Publishing is asynchronous (transactional outbox), so
+ * {@code trading_order_publish_seconds{event_type}} records the lag from commit to broker
+ * ack instead. All of them publish client-side percentiles for dashboards and histogram
+ * buckets for aggregating across instances.
+ */
+@ApplicationScoped
+public class TradeMetrics {
+    public enum Stage {
+        PRICE, FEE, FUNDS, PERSIST, COMMIT;
+
+        final String tag = name().toLowerCase();
+    }
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "trading.metrics.percentiles")
+    List<Double> percentiles;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public <T> T time(Stage stage, TradeType tradeType, OrderType orderType, Supplier<T> action) {
+        return stageTimer(stage, tradeType, orderType).record(action);
+    }
+
+    // Timed from subscription to item or failure, so concurrent lookups are measured individually
+    public <T> Uni<T> time(Stage stage, TradeType tradeType, OrderType orderType, Uni<T> uni) {
+        return Uni.createFrom().deferred(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return uni.onTermination().invoke(() -> sample.stop(stageTimer(stage, tradeType, orderType)));
+        });
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, TradeType tradeType, OrderType orderType, String outcome) {
+        sample.stop(timer("trading.order", "Time to execute a market order end to end",
+            "trade_type", tradeType.name(), "order_type", orderType.name(), "outcome", outcome));
+    }
+
+    public void recordPublish(String eventType, Duration lag) {
+        timer("trading.order.publish", "Time from trade commit to the broker acknowledging its event",
+            "event_type", eventType).record(lag);
+    }
+
+    private Timer stageTimer(Stage stage, TradeType tradeType, OrderType orderType) {
+        return timer("trading.order.stage", "Time spent in one stage of market order execution",
+            "stage", stage.tag, "trade_type", tradeType.name(), "order_type", orderType.name());
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return timers.computeIfAbsent(name + "|" + String.join(",", tags), key -> Timer.builder(name)
+            .description(description)
+            .tags(tags)
+            .publishPercentiles(percentiles.stream().mapToDouble(Double::doubleValue).toArray())
+            .publishPercentileHistogram()
+            .register(registry));
+    }
+}
@@ -1,19 +1,39 @@
 package com.trading.platform.trading.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trading.platform.domain.*;
 import com.trading.platform.events.TradeCompletedEvent;
+import com.trading.platform.trading.entity.OutboxEvent;
+import com.trading.platform.trading.entity.ReservationCommit;
 import com.trading.platform.trading.entity.Trade;
+import com.trading.platform.trading.messaging.OutboxRelay;
+import com.trading.platform.trading.service.TradeMetrics.Stage;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.tuples.Tuple2;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import io.smallrye.reactive.messaging.MutinyEmitter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class TradingService {
@@ -22,21 +42,214 @@ public class TradingService {
     @Inject @RestClient PricingClient pricingClient;
     @Inject @RestClient FeeClient feeClient;
     @Inject @RestClient WalletClient walletClient;
+    @Inject LocalFeeSchedule feeSchedule;
+    @Inject LastPriceTable lastPriceTable;
+    @Inject TradeMetrics metrics;
+    @Inject ReservationCommitter reservationCommitter;
 
-    @org.eclipse.microprofile.reactive.messaging.Channel("trading-events-out")
-    MutinyEmitter<TradeCompletedEvent> tradingEventsEmitter;
+    @Inject ObjectMapper objectMapper;
+    @Inject Event<OutboxRelay.OutboxWritten> outboxWritten;
 
-    @Transactional
+    // Remote lookups run outside of any transaction; only recordTrade holds a DB connection
     public Trade executeBuy(UUID userId, String symbol, Currency currency, OrderType orderType,
                             BigDecimal amountOrQuantity) {
+        return executeBuy(userId, symbol, currency, orderType, amountOrQuantity, null);
+    }
+
+    // The idempotency key is stored on the trade row, whose unique index rejects a second execution
+    public Trade executeBuy(UUID userId, String symbol, Currency currency, OrderType orderType,
+                            BigDecimal amountOrQuantity, String idempotencyKey) {
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            Trade trade = buy(userId, symbol, currency, orderType, amountOrQuantity, idempotencyKey);
+            outcome = trade.status.name().toLowerCase();
+            return trade;
+        } finally {
+            metrics.stop(sample, TradeType.BUY, orderType, outcome);
+        }
+    }
+
+    private Trade buy(UUID userId, String symbol, Currency currency, OrderType orderType,
+                      BigDecimal amountOrQuantity, String idempotencyKey) {
+        // Price and estimated fee do not depend on each other, so fetch them concurrently
+        Tuple2<BigDecimal, BigDecimal> lookups = Uni.combine().all().unis(
+                metrics.time(Stage.PRICE, TradeType.BUY, orderType, priceOf(symbol)),
+                orderType == OrderType.BY_AMOUNT
+                    ? metrics.time(Stage.FEE, TradeType.BUY, orderType, tradingFeeOf(symbol, amountOrQuantity))
+                    : Uni.createFrom().item(BigDecimal.ZERO))
+            .asTuple()
+            .await().indefinitely();
+        BigDecimal currentPrice = lookups.getItem1();
+        BigDecimal estimatedFee = lookups.getItem2();
+
+        Trade trade = quoteBuy(userId, symbol, currency, orderType, amountOrQuantity, currentPrice, estimatedFee);
+        trade.idempotencyKey = idempotencyKey;
+        trade.requestedAmount = amountOrQuantity;
+
+        // Reserving validates and debits the funds in a single wallet call
+        trade.reservationId = metrics.time(Stage.FUNDS, TradeType.BUY, orderType,
+            () -> reserveFunds(userId, currency, trade.totalAmount));
+        if (trade.reservationId == null) {
+            LOG.error("Insufficient funds for trade: userId={}, required={}", userId, trade.totalAmount);
+            trade.status = TradeStatus.FAILED;
+            trade.completedAt = null;
+            return metrics.time(Stage.PERSIST, TradeType.BUY, orderType, () -> recordTrade(trade));
+        }
+
+        // The commit is owed from the moment the trade is recorded, so it is persisted with it
+        ReservationCommit commit = reservationCommitter.pending(userId, trade.reservationId, null);
+        try {
+            metrics.time(Stage.PERSIST, TradeType.BUY, orderType, () -> recordTrade(trade, List.of(commit)));
+        } catch (RuntimeException e) {
+            releaseReservation(userId, trade.reservationId);
+            throw e;
+        }
+        metrics.time(Stage.COMMIT, TradeType.BUY, orderType, () -> reservationCommitter.commit(commit));
+
+        LOG.info("Buy trade executed: tradeId={}, userId={}, symbol={}, quantity={}, price={}, total={}",
+            trade.id, userId, symbol, trade.quantity, currentPrice, trade.totalAmount);
+
+        return trade;
+    }
+
+    public Trade executeSell(UUID userId, String symbol, Currency currency, OrderType orderType,
+                             BigDecimal amountOrQuantity) {
+        return executeSell(userId, symbol, currency, orderType, amountOrQuantity, null);
+    }
+
+    public Trade executeSell(UUID userId, String symbol, Currency currency, OrderType orderType,
+                             BigDecimal amountOrQuantity, String idempotencyKey) {
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            Trade trade = sell(userId, symbol, currency, orderType, amountOrQuantity, idempotencyKey);
+            outcome = trade.status.name().toLowerCase();
+            return trade;
+        } finally {
+            metrics.stop(sample, TradeType.SELL, orderType, outcome);
+        }
+    }
+
+    private Trade sell(UUID userId, String symbol, Currency currency, OrderType orderType,
+                       BigDecimal amountOrQuantity, String idempotencyKey) {
         // Get current price
-        BigDecimal currentPrice = pricingClient.getPrice(symbol).price;
+        BigDecimal currentPrice = metrics.time(Stage.PRICE, TradeType.SELL, orderType, priceOf(symbol))
+            .await().indefinitely();
+
+        Trade quoted = quoteSell(userId, symbol, currency, orderType, amountOrQuantity, currentPrice);
+        quoted.idempotencyKey = idempotencyKey;
+        quoted.requestedAmount = amountOrQuantity;
+        Trade trade = metrics.time(Stage.PERSIST, TradeType.SELL, orderType, () -> recordTrade(quoted));
 
+        LOG.info("Sell trade executed: tradeId={}, userId={}, symbol={}, quantity={}, price={}, total={}",
+            trade.id, userId, symbol, trade.quantity, currentPrice, trade.totalAmount);
+
+        return trade;
+    }
+
+    /**
+     * Executes many orders with one price lookup per distinct symbol, one balance lookup
+     * and one funds reservation per (user, currency) and a single batched insert. Orders
+     * are funded in submission order; one failing order does not affect the others.
+     */
+    public List<BatchOrderResult> executeBatch(List<BatchOrder> orders) {
+        Map<String, BigDecimal> prices = resolveAll(
+            orders.stream().map(order -> order.symbol).collect(Collectors.toSet()),
+            symbol -> priceOf(symbol).onFailure().recoverWithNull());
+        Map<FundsKey, BigDecimal> balances = resolveAll(
+            orders.stream()
+                .filter(order -> order.tradeType == TradeType.BUY)
+                .map(order -> new FundsKey(order.userId, order.currency))
+                .collect(Collectors.toSet()),
+            key -> availableBalanceOf(key.userId(), key.currency()));
+
+        Map<BatchOrder, Trade> quoted = new LinkedHashMap<>();
+        Map<FundsKey, List<Trade>> fundedBuys = new HashMap<>();
+        for (BatchOrder order : orders) {
+            BigDecimal price = prices.get(order.symbol);
+            if (price == null) {
+                continue;
+            }
+
+            Trade trade;
+            if (order.tradeType == TradeType.BUY) {
+                BigDecimal estimatedFee = order.orderType == OrderType.BY_AMOUNT
+                    ? tradingFeeOf(order.symbol, order.amountOrQuantity).await().indefinitely()
+                    : BigDecimal.ZERO;
+                trade = quoteBuy(order.userId, order.symbol, order.currency, order.orderType,
+                    order.amountOrQuantity, price, estimatedFee);
+
+                // Earlier orders of the same user draw down the balance seen by later ones
+                FundsKey key = new FundsKey(order.userId, order.currency);
+                BigDecimal remaining = balances.get(key);
+                if (remaining == null || remaining.compareTo(trade.totalAmount) < 0) {
+                    trade.status = TradeStatus.FAILED;
+                    trade.completedAt = null;
+                } else {
+                    balances.put(key, remaining.subtract(trade.totalAmount));
+                    fundedBuys.computeIfAbsent(key, k -> new ArrayList<>()).add(trade);
+                }
+            } else {
+                trade = quoteSell(order.userId, order.symbol, order.currency, order.orderType,
+                    order.amountOrQuantity, price);
+            }
+            quoted.put(order, trade);
+        }
+
+        // One reservation covers all funded buys of a (user, currency); if it fails they all fail
+        Map<FundsKey, UUID> reservations = new HashMap<>();
+        fundedBuys.forEach((key, trades) -> {
+            BigDecimal total = trades.stream().map(trade -> trade.totalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            UUID reservationId = reserveFunds(key.userId(), key.currency(), total);
+            for (Trade trade : trades) {
+                if (reservationId != null) {
+                    trade.reservationId = reservationId;
+                } else {
+                    trade.status = TradeStatus.FAILED;
+                    trade.completedAt = null;
+                }
+            }
+            if (reservationId != null) {
+                reservations.put(key, reservationId);
+            }
+        });
+
+        List<ReservationCommit> commits = reservations.entrySet().stream()
+            .map(entry -> reservationCommitter.pending(entry.getKey().userId(), entry.getValue(), null))
+            .toList();
+        try {
+            recordTrades(new ArrayList<>(quoted.values()), commits);
+        } catch (RuntimeException e) {
+            reservations.forEach((key, reservationId) -> releaseReservation(key.userId(), reservationId));
+            throw e;
+        }
+        commits.forEach(reservationCommitter::commit);
+
+        List<BatchOrderResult> results = new ArrayList<>(orders.size());
+        for (BatchOrder order : orders) {
+            Trade trade = quoted.get(order);
+            if (trade == null) {
+                results.add(BatchOrderResult.rejected(order.index, "Price unavailable for " + order.symbol));
+            } else if (trade.status == TradeStatus.COMPLETED) {
+                results.add(BatchOrderResult.completed(order.index, trade));
+            } else {
+                results.add(BatchOrderResult.failed(order.index, trade, "Insufficient funds"));
+            }
+        }
+
+        LOG.info("Batch executed: orders={}, trades={}, symbols={}", orders.size(), quoted.size(), prices.size());
+
+        return results;
+    }
+
+    private Trade quoteBuy(UUID userId, String symbol, Currency currency, OrderType orderType,
+                           BigDecimal amountOrQuantity, BigDecimal currentPrice, BigDecimal estimatedFee) {
         // Calculate quantity and total based on order type
         BigDecimal quantity, totalBeforeFees;
         if (orderType == OrderType.BY_AMOUNT) {
             // User specifies money amount, calculate quantity
-            BigDecimal amountAfterFees = calculateAmountAfterFees(symbol, amountOrQuantity);
+            BigDecimal amountAfterFees = amountOrQuantity.subtract(estimatedFee);
             quantity = MoneyCalculator.roundQuantityForBuy(amountAfterFees.divide(currentPrice, 10, RoundingMode.HALF_UP));
             totalBeforeFees = quantity.multiply(currentPrice);
         } else {
@@ -46,49 +259,16 @@ public class TradingService {
         }
 
         // Calculate fees
-        BigDecimal fees = feeClient.getTradingFee(symbol, totalBeforeFees).fee;
+        BigDecimal fees = metrics.time(Stage.FEE, TradeType.BUY, orderType, tradingFeeOf(symbol, totalBeforeFees))
+            .await().indefinitely();
         BigDecimal totalWithFees = totalBeforeFees.add(fees);
 
-        // Validate and deduct funds from wallet
-        try {
-            walletClient.validateFunds(userId, currency, totalWithFees);
-        } catch (Exception e) {
-            LOG.error("Insufficient funds for trade: userId={}, required={}", userId, totalWithFees);
-            return createFailedTrade(userId, symbol, TradeType.BUY, orderType, quantity,
-                currentPrice, currency, totalWithFees, fees, "Insufficient funds");
-        }
-
-        // Create and persist trade
-        Trade trade = new Trade();
-        trade.userId = userId;
-        trade.symbol = symbol;
-        trade.tradeType = TradeType.BUY;
-        trade.orderType = orderType;
-        trade.quantity = quantity;
-        trade.pricePerUnit = currentPrice;
-        trade.currency = currency;
-        trade.totalAmount = totalWithFees;
-        trade.fees = fees;
-        trade.status = TradeStatus.COMPLETED;
-        trade.createdAt = Instant.now();
-        trade.completedAt = Instant.now();
-        trade.persist();
-
-        LOG.info("Buy trade executed: tradeId={}, userId={}, symbol={}, quantity={}, price={}, total={}",
-            trade.id, userId, symbol, quantity, currentPrice, totalWithFees);
-
-        // Publish event
-        publishTradeCompletedEvent(trade);
-
-        return trade;
+        return newTrade(userId, symbol, TradeType.BUY, orderType, quantity,
+            currentPrice, currency, totalWithFees, fees, TradeStatus.COMPLETED);
     }
 
-    @Transactional
-    public Trade executeSell(UUID userId, String symbol, Currency currency, OrderType orderType,
-                             BigDecimal amountOrQuantity) {
-        // Get current price
-        BigDecimal currentPrice = pricingClient.getPrice(symbol).price;
-
+    private Trade quoteSell(UUID userId, String symbol, Currency currency, OrderType orderType,
+                            BigDecimal amountOrQuantity, BigDecimal currentPrice) {
         // Calculate quantity and total
         BigDecimal quantity, totalBeforeFees;
         if (orderType == OrderType.BY_AMOUNT) {
@@ -102,42 +282,127 @@ public class TradingService {
         }
 
         // Calculate fees
-        BigDecimal fees = feeClient.getTradingFee(symbol, totalBeforeFees).fee;
+        BigDecimal fees = metrics.time(Stage.FEE, TradeType.SELL, orderType, tradingFeeOf(symbol, totalBeforeFees))
+            .await().indefinitely();
         BigDecimal totalAfterFees = MoneyCalculator.roundAmountForSell(totalBeforeFees.subtract(fees));
 
-        // Create and persist trade
-        Trade trade = new Trade();
-        trade.userId = userId;
-        trade.symbol = symbol;
-        trade.tradeType = TradeType.SELL;
-        trade.orderType = orderType;
-        trade.quantity = quantity;
-        trade.pricePerUnit = currentPrice;
-        trade.currency = currency;
-        trade.totalAmount = totalAfterFees;
-        trade.fees = fees;
-        trade.status = TradeStatus.COMPLETED;
-        trade.createdAt = Instant.now();
-        trade.completedAt = Instant.now();
+        return newTrade(userId, symbol, TradeType.SELL, orderType, quantity,
+            currentPrice, currency, totalAfterFees, fees, TradeStatus.COMPLETED);
+    }
+
+    Trade recordTrade(Trade trade) {
+        return recordTrade(trade, List.of());
+    }
+
+    // The TradeCompletedEvent is written to the outbox in the same transaction; OutboxRelay sends it after commit
+    @Transactional
+    Trade recordTrade(Trade trade, List<ReservationCommit> commits) {
         trade.persist();
+        ReservationCommit.persist(commits);
+        if (trade.status == TradeStatus.COMPLETED) {
+            toOutboxEvent(trade).persist();
+            outboxWritten.fire(OutboxRelay.OutboxWritten.INSTANCE);
+        }
+        return trade;
+    }
 
-        LOG.info("Sell trade executed: tradeId={}, userId={}, symbol={}, quantity={}, price={}, total={}",
-            trade.id, userId, symbol, quantity, currentPrice, totalAfterFees);
+    void recordTrades(List<Trade> trades) {
+        recordTrades(trades, List.of());
+    }
+
+    @Transactional
+    void recordTrades(List<Trade> trades, List<ReservationCommit> commits) {
+        // Inserts are grouped into JDBC batches (quarkus.hibernate-orm.jdbc.statement-batch-size)
+        Trade.persist(trades);
+        ReservationCommit.persist(commits);
+        List<OutboxEvent> events = trades.stream()
+            .filter(trade -> trade.status == TradeStatus.COMPLETED)
+            .map(this::toOutboxEvent)
+            .toList();
+        if (!events.isEmpty()) {
+            OutboxEvent.persist(events);
+            outboxWritten.fire(OutboxRelay.OutboxWritten.INSTANCE);
+        }
+    }
 
-        // Publish event
-        publishTradeCompletedEvent(trade);
+    // Lookups must already recover from failures; keys that resolve to null are left out of the map
+    private <K> Map<K, BigDecimal> resolveAll(Set<K> keys, Function<K, Uni<BigDecimal>> lookup) {
+        Map<K, BigDecimal> resolved = new ConcurrentHashMap<>();
+        if (!keys.isEmpty()) {
+            Uni.join().all(keys.stream()
+                    .map(key -> lookup.apply(key).invoke(value -> {
+                        if (value != null) {
+                            resolved.put(key, value);
+                        }
+                    }))
+                    .toList())
+                .andFailFast()
+                .await().indefinitely();
+        }
+        return new HashMap<>(resolved);
+    }
 
-        return trade;
+    // Only listed symbols have a price: pricing-service answers 404 for anything else
+    boolean isListed(String symbol) {
+        if (lastPriceTable.freshPrice(symbol).isPresent()) {
+            return true;
+        }
+        try {
+            return priceOf(symbol).await().indefinitely() != null;
+        } catch (WebApplicationException e) {
+            if (e.getResponse().getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+                return false;
+            }
+            throw e;
+        }
     }
 
-    private BigDecimal calculateAmountAfterFees(String symbol, BigDecimal amount) {
-        BigDecimal estimatedFee = feeClient.getTradingFee(symbol, amount).fee;
-        return amount.subtract(estimatedFee);
+    private Uni<BigDecimal> priceOf(String symbol) {
+        return lastPriceTable.freshPrice(symbol)
+            .map(price -> Uni.createFrom().item(price))
+            .orElseGet(() -> pricingClient.getPriceAsync(symbol)
+                .map(response -> response.price)
+                .invoke(price -> lastPriceTable.update(symbol, price, Instant.now())));
     }
 
-    private Trade createFailedTrade(UUID userId, String symbol, TradeType tradeType, OrderType orderType,
-                                    BigDecimal quantity, BigDecimal price, Currency currency,
-                                    BigDecimal total, BigDecimal fees, String reason) {
+    Uni<BigDecimal> tradingFeeOf(String symbol, BigDecimal amount) {
+        return feeSchedule.tradingFee(symbol, amount)
+            .map(fee -> Uni.createFrom().item(fee))
+            .orElseGet(() -> feeClient.getTradingFeeAsync(symbol, amount).map(response -> response.fee));
+    }
+
+    private UUID reserveFunds(UUID userId, Currency currency, BigDecimal amount) {
+        try {
+            return walletClient.reserveFunds(userId, new WalletClient.ReserveRequest(currency, amount)).id;
+        } catch (Exception e) {
+            LOG.warn("Funds reservation failed: userId={}, currency={}, amount={}: {}",
+                userId, currency, amount, e.getMessage());
+            return null;
+        }
+    }
+
+    private void releaseReservation(UUID userId, UUID reservationId) {
+        try {
+            walletClient.releaseReservation(userId, reservationId);
+        } catch (Exception e) {
+            // The reservation expires and is released by wallet-service anyway
+            LOG.warn("Failed to release reservation: reservationId={}, userId={}: {}",
+                reservationId, userId, e.getMessage());
+        }
+    }
+
+    private Uni<BigDecimal> availableBalanceOf(UUID userId, Currency currency) {
+        // A failed balance lookup rejects the trade instead of failing the whole request
+        return walletClient.getBalanceAsync(userId, currency)
+            .map(response -> response.balance)
+            .onFailure().invoke(e -> LOG.warn("Balance lookup failed: userId={}, currency={}: {}",
+                userId, currency, e.getMessage()))
+            .onFailure().recoverWithNull();
+    }
+
+    Trade newTrade(UUID userId, String symbol, TradeType tradeType, OrderType orderType,
+                           BigDecimal quantity, BigDecimal price, Currency currency,
+                           BigDecimal total, BigDecimal fees, TradeStatus status) {
         Trade trade = new Trade();
         trade.userId = userId;
         trade.symbol = symbol;
@@ -148,13 +413,25 @@ public class TradingService {
         trade.currency = currency;
         trade.totalAmount = total;
         trade.fees = fees;
-        trade.status = TradeStatus.FAILED;
+        trade.status = status;
         trade.createdAt = Instant.now();
-        trade.persist();
+        if (status == TradeStatus.COMPLETED) {
+            trade.completedAt = trade.createdAt;
+        }
         return trade;
     }
 
-    private void publishTradeCompletedEvent(Trade trade) {
+    private OutboxEvent toOutboxEvent(Trade trade) {
+        try {
+            // Keyed by user: the relay claims a key on one instance at a time, so each user's trades reach their partition in order
+            return OutboxEvent.of(trade.id, "TradeCompleted", trade.userId.toString(),
+                objectMapper.writeValueAsString(toTradeCompletedEvent(trade)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize TradeCompletedEvent for trade " + trade.id, e);
+        }
+    }
+
+    private TradeCompletedEvent toTradeCompletedEvent(Trade trade) {
         TradeCompletedEvent event = new TradeCompletedEvent();
         event.setTradeId(trade.id);
         event.setUserId(trade.userId);
@@ -165,6 +442,46 @@ public class TradingService {
         event.setCurrency(trade.currency);
         event.setTotalAmount(trade.totalAmount);
         event.setFees(trade.fees);
-        tradingEventsEmitter.sendAndAwait(event);
+        return event;
+    }
+
+    private record FundsKey(UUID userId, Currency currency) {}
+
+    public static class BatchOrder {
+        public int index;
+        public UUID userId;
+        public String symbol;
+        public Currency currency;
+        public TradeType tradeType;
+        public OrderType orderType;
+        public BigDecimal amountOrQuantity;
+    }
+
+    public static class BatchOrderResult {
+        public int index;
+        public String status;
+        public Trade trade;
+        public String error;
+
+        public static BatchOrderResult completed(int index, Trade trade) {
+            return of(index, "COMPLETED", trade, null);
+        }
+
+        public static BatchOrderResult failed(int index, Trade trade, String error) {
+            return of(index, "FAILED", trade, error);
+        }
+
+        public static BatchOrderResult rejected(int index, String error) {
+            return of(index, "REJECTED", null, error);
+        }
+
+        private static BatchOrderResult of(int index, String status, Trade trade, String error) {
+            BatchOrderResult result = new BatchOrderResult();
+            result.index = index;
+            result.status = status;
+            result.trade = trade;
+            result.error = error;
+            return result;
+        }
     }
 }
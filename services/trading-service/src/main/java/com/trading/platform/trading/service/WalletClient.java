@@ -1,6 +1,7 @@
 package com.trading.platform.trading.service;
 
 import com.trading.platform.domain.Currency;
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import java.math.BigDecimal;
@@ -13,16 +14,68 @@ public interface WalletClient {
     @Path("/{userId}/balances/{currency}")
     BalanceResponse getBalance(@PathParam("userId") UUID userId, @PathParam("currency") Currency currency);
 
-    default void validateFunds(UUID userId, Currency currency, BigDecimal required) {
-        BalanceResponse balance = getBalance(userId, currency);
-        if (balance.balance.compareTo(required) < 0) {
-            throw new IllegalStateException("Insufficient funds");
-        }
-    }
+    @GET
+    @Path("/{userId}/balances/{currency}")
+    Uni<BalanceResponse> getBalanceAsync(@PathParam("userId") UUID userId, @PathParam("currency") Currency currency);
+
+    // Checks and debits in one call; fails with 400 when funds are insufficient
+    @POST
+    @Path("/{userId}/reservations")
+    ReservationResponse reserveFunds(@PathParam("userId") UUID userId, ReserveRequest request);
+
+    @POST
+    @Path("/{userId}/reservations/{reservationId}/commit")
+    ReservationResponse commitReservation(@PathParam("userId") UUID userId, @PathParam("reservationId") UUID reservationId);
+
+    // Commits only the given amount and credits the rest of the reservation back
+    @POST
+    @Path("/{userId}/reservations/{reservationId}/commit")
+    ReservationResponse commitReservation(@PathParam("userId") UUID userId, @PathParam("reservationId") UUID reservationId,
+                                          CommitRequest request);
+
+    @POST
+    @Path("/{userId}/reservations/{reservationId}/release")
+    ReservationResponse releaseReservation(@PathParam("userId") UUID userId, @PathParam("reservationId") UUID reservationId);
 
     class BalanceResponse {
         public UUID userId;
         public Currency currency;
         public BigDecimal balance;
     }
+
+    class ReserveRequest {
+        public Currency currency;
+        public BigDecimal amount;
+        public Long ttlSeconds;
+
+        public ReserveRequest() {}
+
+        public ReserveRequest(Currency currency, BigDecimal amount) {
+            this.currency = currency;
+            this.amount = amount;
+        }
+
+        public ReserveRequest(Currency currency, BigDecimal amount, long ttlSeconds) {
+            this(currency, amount);
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    class CommitRequest {
+        public BigDecimal amount;
+
+        public CommitRequest() {}
+
+        public CommitRequest(BigDecimal amount) {
+            this.amount = amount;
+        }
+    }
+
+    class ReservationResponse {
+        public UUID id;
+        public UUID userId;
+        public Currency currency;
+        public BigDecimal amount;
+        public String status;
+    }
 }
@@ -0,0 +1,3 @@
+ALTER TABLE trades ADD COLUMN fill_id VARCHAR(64);
+
+CREATE UNIQUE INDEX idx_trades_fill_id ON trades(fill_id);
@@ -0,0 +1,4 @@
+ALTER TABLE trades ADD COLUMN idempotency_key VARCHAR(128);
+
+-- NULLs are distinct, so trades submitted without a key are unaffected
+CREATE UNIQUE INDEX idx_trades_user_idempotency_key ON trades(user_id, idempotency_key);
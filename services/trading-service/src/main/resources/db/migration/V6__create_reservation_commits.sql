@@ -0,0 +1,14 @@
+-- Wallet reservation commits owed for recorded trades, kept until wallet-service acknowledges them.
+-- A commit the wallet rejects for good (reservation unknown, released or expired) stays as FAILED for manual repair
+CREATE TABLE reservation_commits (
+    reservation_id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    amount DECIMAL(19, 2),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_reservation_commits_due ON reservation_commits(next_attempt_at) WHERE status = 'PENDING';
@@ -0,0 +1,11 @@
+-- Limit order trades that could not be recorded for a non-transient reason, kept for manual repair
+CREATE TABLE fill_dead_letters (
+    id UUID PRIMARY KEY,
+    fill_id VARCHAR(64),
+    user_id UUID NOT NULL,
+    payload TEXT NOT NULL,
+    error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_fill_dead_letters_fill_id ON fill_dead_letters(fill_id);
@@ -0,0 +1,2 @@
+-- Amount or quantity as submitted, so a replayed Idempotency-Key can be checked against the original order
+ALTER TABLE trades ADD COLUMN requested_amount DECIMAL(19, 2);
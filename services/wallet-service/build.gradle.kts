@@ -1,6 +1,7 @@
 plugins {
     java
     id("io.quarkus")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 dependencies {
@@ -8,11 +9,13 @@ dependencies {
     implementation("io.quarkus:quarkus-resteasy-reactive-jackson")
     implementation("io.quarkus:quarkus-hibernate-orm-panache")
     implementation("io.quarkus:quarkus-jdbc-postgresql")
+    implementation("io.quarkus:quarkus-reactive-pg-client")
     implementation("io.quarkus:quarkus-flyway")
     implementation("io.quarkus:quarkus-smallrye-health")
     implementation("io.quarkus:quarkus-smallrye-openapi")
     implementation("io.quarkus:quarkus-smallrye-reactive-messaging-kafka")
     implementation("io.quarkus:quarkus-rest-client-reactive-jackson")
+    implementation("io.quarkus:quarkus-scheduler")
     implementation("io.quarkus:quarkus-arc")
     implementation(project(":shared:common-domain"))
     implementation(project(":shared:common-events"))
@@ -23,3 +26,23 @@ dependencies {
 tasks.test {
     systemProperty("java.util.logging.manager", "org.jboss.logmanager.LogManager")
 }
+
+val walletUrl = project.findProperty("walletUrl") ?: "http://localhost:8086"
+
+// ./gradlew :services:wallet-service:jmh (against a running wallet-service, e.g. docker-compose up)
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    jvmArgsAppend.add("-Dwallet.url=$walletUrl")
+}
+
+// ./gradlew :services:wallet-service:walletLoad -Pduration=30 [-PwalletUrl=http://localhost:8086]
+tasks.register<JavaExec>("walletLoad") {
+    group = "benchmark"
+    description = "Throughput and latency of a running wallet-service at 1, 8 and 64 accounts"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.trading.platform.wallet.service.WalletServiceLoad")
+    systemProperty("wallet.url", walletUrl)
+    args(project.findProperty("duration") ?: "10")
+}
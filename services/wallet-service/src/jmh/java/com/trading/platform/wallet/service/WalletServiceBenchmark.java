@@ -0,0 +1,68 @@
+package com.trading.platform.wallet.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit, withdrawal and exchange requests from 64 threads spread over 1, 8 or 64
+ * accounts, against a running wallet-service (see WalletServiceClient; docker-compose up
+ * brings it up with its database, Kafka and the rate and fee services exchanges need).
+ * Reports throughput and the latency distribution (p0.99 in the SampleTime rows). Each
+ * trial opens fresh accounts, so runs do not affect each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class WalletServiceBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final BigDecimal FUNDING = new BigDecimal("1000000000.00");
+
+    @Param({"1", "8", "64"})
+    public int accounts;
+
+    private WalletServiceClient wallet;
+    private UUID[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        wallet = new WalletServiceClient();
+        userIds = new UUID[accounts];
+        for (int i = 0; i < accounts; i++) {
+            userIds[i] = UUID.randomUUID();
+            int status = wallet.deposit(userIds[i], "USD", FUNDING);
+            if (status != 200) {
+                throw new IllegalStateException("Funding deposit failed with " + status);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        UUID userId;
+
+        @Setup(Level.Trial)
+        public void setUp(WalletServiceBenchmark benchmark, ThreadParams thread) {
+            userId = benchmark.userIds[thread.getThreadIndex() % benchmark.accounts];
+        }
+    }
+
+    @Benchmark
+    public int deposit(Session session) throws IOException, InterruptedException {
+        return wallet.deposit(session.userId, "USD", AMOUNT);
+    }
+
+    @Benchmark
+    public int withdraw(Session session) throws IOException, InterruptedException {
+        return wallet.withdraw(session.userId, "USD", AMOUNT);
+    }
+
+    @Benchmark
+    public int exchange(Session session) throws IOException, InterruptedException {
+        return wallet.exchange(session.userId, "USD", "EUR", AMOUNT);
+    }
+}
@@ -0,0 +1,76 @@
+package com.trading.platform.wallet.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Calls a running wallet-service over its REST API, so the benchmarks measure the service
+ * as deployed: WalletService with its mutation stripes, hot-account shards, deposit group
+ * commit, projector and events. The base URL is the wallet.url system property, by default
+ * the port docker-compose publishes. Thread-safe; share one per JVM.
+ */
+final class WalletServiceClient {
+    private static final Pattern BALANCE = Pattern.compile("\"balance\"\\s*:\\s*([-0-9.]+)");
+
+    private final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    private final String baseUrl;
+
+    WalletServiceClient() {
+        this(System.getProperty("wallet.url", "http://localhost:8086"));
+    }
+
+    WalletServiceClient(String baseUrl) {
+        this.baseUrl = baseUrl + "/api/v1/wallets/";
+    }
+
+    /**
+     * @return the HTTP status; 200 means the deposit was applied
+     */
+    int deposit(UUID userId, String currency, BigDecimal amount) throws IOException, InterruptedException {
+        return post(userId + "/deposit", "{\"currency\":\"" + currency + "\",\"amount\":" + amount.toPlainString() + "}");
+    }
+
+    /**
+     * @return the HTTP status; 200 means the withdrawal was applied
+     */
+    int withdraw(UUID userId, String currency, BigDecimal amount) throws IOException, InterruptedException {
+        return post(userId + "/withdraw", "{\"currency\":\"" + currency + "\",\"amount\":" + amount.toPlainString() + "}");
+    }
+
+    int exchange(UUID userId, String fromCurrency, String toCurrency, BigDecimal amount)
+            throws IOException, InterruptedException {
+        return post(userId + "/exchange", "{\"fromCurrency\":\"" + fromCurrency + "\",\"toCurrency\":\"" + toCurrency
+            + "\",\"amount\":" + amount.toPlainString() + "}");
+    }
+
+    BigDecimal balance(UUID userId, String currency) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + userId + "/balances/" + currency))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = BALANCE.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IOException("Balance query failed with " + response.statusCode() + ": " + response.body());
+        }
+        return new BigDecimal(matcher.group(1));
+    }
+
+    private int post(String path, String json) throws IOException, InterruptedException {
+        return http.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,124 @@
+package com.trading.platform.wallet.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 threads deposit into and withdraw from 1, 8 and 64 accounts of a running
+ * wallet-service (see WalletServiceClient) for the given number of seconds, and print
+ * ops/sec, latency percentiles and the number of requests not answered with 200
+ * (insufficient funds, a busy wallet or errors) per run. Accounts start with enough funds
+ * that withdrawals rarely run short.
+ * <p>
+ * Run with ./gradlew :services:wallet-service:walletLoad -Pduration=30 [-PwalletUrl=...]
+ */
+public final class WalletServiceLoad {
+    private static final int THREADS = 64;
+    private static final int[] ACCOUNTS = {1, 8, 64};
+    private static final BigDecimal INITIAL = new BigDecimal("1000.00");
+
+    private WalletServiceLoad() {}
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        WalletServiceClient wallet = new WalletServiceClient();
+        System.out.printf("%8s %8s %10s %10s %9s %9s %9s %9s%n",
+            "accounts", "threads", "ops", "ops/sec", "p50 ms", "p99 ms", "max ms", "non-200");
+        for (int accounts : ACCOUNTS) {
+            run(wallet, accounts, seconds);
+        }
+        System.exit(0);
+    }
+
+    private static void run(WalletServiceClient wallet, int accounts, int seconds) throws Exception {
+        UUID[] userIds = new UUID[accounts];
+        for (int i = 0; i < accounts; i++) {
+            userIds[i] = UUID.randomUUID();
+            wallet.deposit(userIds[i], "USD", INITIAL);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Worker>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            UUID userId = userIds[t % accounts];
+            workers.add(pool.submit((Callable<Worker>) () -> new Worker(wallet, userId).runUntil(deadline)));
+        }
+
+        long[] latencies = new long[0];
+        long rejected = 0;
+        for (Future<Worker> future : workers) {
+            Worker worker = future.get();
+            latencies = concat(latencies, Arrays.copyOf(worker.latencies, worker.count));
+            rejected += worker.rejected;
+        }
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%8d %8d %10d %10.0f %9.2f %9.2f %9.2f %9d%n",
+            accounts, THREADS, latencies.length, latencies.length / (double) seconds,
+            percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0),
+            rejected);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    // One thread: random deposits and withdrawals of 0.01 to 1.00 on its account
+    private static final class Worker {
+        private final WalletServiceClient wallet;
+        private final UUID userId;
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private long rejected;
+
+        Worker(WalletServiceClient wallet, UUID userId) {
+            this.wallet = wallet;
+            this.userId = userId;
+        }
+
+        Worker runUntil(long deadline) throws IOException, InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 101), 2);
+                long start = System.nanoTime();
+                int status = random.nextBoolean()
+                    ? wallet.deposit(userId, "USD", amount)
+                    : wallet.withdraw(userId, "USD", amount);
+                record(System.nanoTime() - start);
+                if (status != 200) {
+                    rejected++;
+                }
+            }
+            return this;
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.trading.platform.wallet.entity;
+
+import com.trading.platform.domain.Currency;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One signed change to a balance. Entries are only ever inserted; wallet_balances is
+ * derived from them (see WalletLedger). Whether the projector has folded an entry in
+ * (projected) is only ever set by the projector and deliberately not mapped.
+ */
+@Entity
+@Table(name = "wallet_ledger")
+public class LedgerEntry extends PanacheEntityBase {
+    public enum Type {
+        OPENING, DEPOSIT, WITHDRAWAL, EXCHANGE_OUT, EXCHANGE_IN, RESERVATION, RESERVATION_CREDIT, TRADE_SETTLEMENT
+    }
+
+    @Id
+    @GeneratedValue
+    public UUID id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    public UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    public Currency currency;
+
+    // The sub-balance of a hot account the entry belongs to; 0 for the primary row
+    @Column(nullable = false, updatable = false)
+    public int shard;
+
+    // Positive for credits, negative for debits
+    @Column(precision = 19, scale = 2, nullable = false, updatable = false)
+    public BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false)
+    public Type type;
+
+    // The reservation or other record that caused the entry, if any
+    @Column(name = "reference_id", updatable = false)
+    public UUID referenceId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    public Instant createdAt;
+
+    /**
+     * Up to limit of the account's entries, oldest first, starting after the given entry
+     * (keyset pagination on createdAt, id), or from the first entry if after is null.
+     */
+    public static List<LedgerEntry> findByAccount(UUID userId, Currency currency, LedgerEntry after, int limit) {
+        if (after == null) {
+            return find("userId = ?1 and currency = ?2 order by createdAt, id", userId, currency)
+                .page(0, limit).list();
+        }
+        return find("userId = ?1 and currency = ?2 and (createdAt > ?3 or (createdAt = ?3 and id > ?4)) "
+                + "order by createdAt, id", userId, currency, after.createdAt, after.id)
+            .page(0, limit).list();
+    }
+}
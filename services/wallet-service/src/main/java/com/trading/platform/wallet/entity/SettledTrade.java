@@ -0,0 +1,84 @@
+package com.trading.platform.wallet.entity;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.domain.TradeType;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.*;
+import org.hibernate.LockOptions;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * A trade whose cash leg has been settled against the wallet. The amount is what the trade
+ * contributed to its account's settlement entry (zero for buys, which are paid through a
+ * reservation before they execute, and for uncovered sells).
+ * <p>
+ * An UNCOVERED sell keeps its symbol, quantity and total, so it can be settled later once
+ * the position covers it: when the trade is redelivered or by the periodic retry.
+ */
+@Entity
+@Table(name = "wallet_settled_trades")
+public class SettledTrade extends PanacheEntityBase {
+    public enum Status {
+        SETTLED,
+        // A sell of more shares than the user's position held; not credited until the position covers it
+        UNCOVERED
+    }
+
+    @Id
+    @Column(name = "trade_id")
+    public UUID tradeId;
+
+    @Column(name = "user_id", nullable = false)
+    public UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public Currency currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "trade_type", nullable = false)
+    public TradeType tradeType;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    public BigDecimal amount;
+
+    @Column(length = 10)
+    public String symbol;
+
+    @Column(precision = 19, scale = 2)
+    public BigDecimal quantity;
+
+    @Column(name = "total_amount", precision = 19, scale = 2)
+    public BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public Status status;
+
+    @Column(name = "settled_at", nullable = false)
+    public Instant settledAt;
+
+    // Locked, so a concurrent retry of an UNCOVERED sell waits instead of settling it twice
+    public static Map<UUID, SettledTrade> lockByIds(Collection<UUID> tradeIds) {
+        return find("tradeId in ?1", tradeIds)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .<SettledTrade>stream()
+            .collect(Collectors.toMap(trade -> trade.tradeId, trade -> trade));
+    }
+
+    // Oldest first; rows locked by another instance are skipped rather than waited on
+    public static List<SettledTrade> lockUncovered(int limit) {
+        return find("status = ?1", Sort.by("settledAt"), Status.UNCOVERED)
+            .page(0, limit)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+            .list();
+    }
+}
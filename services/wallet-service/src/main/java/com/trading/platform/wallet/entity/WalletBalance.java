@@ -9,9 +9,15 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Projection of wallet_ledger: balance covers the entries folded in so far, so it can lag
+ * the available balance by one projection interval. Read balances through WalletLedger.
+ * A hot account is split into several rows (shards) that are summed on read; the finders
+ * below return the primary row (shard 0) only.
+ */
 @Entity
 @Table(name = "wallet_balances", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"user_id", "currency"})
+    @UniqueConstraint(columnNames = {"user_id", "currency", "shard"})
 })
 public class WalletBalance extends PanacheEntityBase {
     @Id
@@ -25,17 +31,29 @@ public class WalletBalance extends PanacheEntityBase {
     @Column(nullable = false)
     public Currency currency;
 
+    @Column(nullable = false)
+    public int shard;
+
     @Column(precision = 19, scale = 2, nullable = false)
     public BigDecimal balance = BigDecimal.ZERO;
 
     @Column(name = "updated_at")
     public Instant updatedAt;
 
+    // Bumped by every debit and every projection batch; see WalletLedger
+    @Version
+    @Column(nullable = false)
+    public long version;
+
     public static Optional<WalletBalance> findByUserAndCurrency(UUID userId, Currency currency) {
-        return find("userId = ?1 and currency = ?2", userId, currency).firstResultOptional();
+        return find("userId = ?1 and currency = ?2 and shard = 0", userId, currency).firstResultOptional();
     }
 
     public static List<WalletBalance> findByUser(UUID userId) {
-        return find("userId", userId).list();
+        return find("userId = ?1 and shard = 0", userId).list();
+    }
+
+    public static List<WalletBalance> findByUsers(List<UUID> userIds) {
+        return find("userId in ?1 and shard = 0", userIds).list();
     }
 }
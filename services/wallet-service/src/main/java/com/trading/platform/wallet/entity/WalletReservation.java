@@ -0,0 +1,57 @@
+package com.trading.platform.wallet.entity;
+
+import com.trading.platform.domain.Currency;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Funds taken out of a balance on behalf of a pending operation.
+ * The amount is debited when the reservation is created; committing keeps the debit,
+ * releasing (or expiring) credits it back.
+ */
+@Entity
+@Table(name = "wallet_reservations")
+public class WalletReservation extends PanacheEntityBase {
+    public enum Status { RESERVED, COMMITTED, RELEASED }
+
+    @Id
+    @GeneratedValue
+    public UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    public UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public Currency currency;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    public BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public Status status;
+
+    @Column(name = "created_at", nullable = false)
+    public Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    public Instant expiresAt;
+
+    @Column(name = "settled_at")
+    public Instant settledAt;
+
+    // Conditional status change; returns false if the reservation had already left the RESERVED state
+    public static boolean transition(UUID id, Status to) {
+        return update("status = ?1, settledAt = ?2 where id = ?3 and status = ?4",
+            to, Instant.now(), id, Status.RESERVED) == 1;
+    }
+
+    public static List<WalletReservation> findExpired(Instant now, int limit) {
+        return find("status = ?1 and expiresAt < ?2", Status.RESERVED, now).page(0, limit).list();
+    }
+}
@@ -0,0 +1,32 @@
+package com.trading.platform.wallet.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.platform.events.ExchangeRateUpdatedEvent;
+import com.trading.platform.wallet.service.LocalRateTable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@ApplicationScoped
+public class ExchangeRateEventConsumer {
+    private static final Logger LOG = LoggerFactory.getLogger(ExchangeRateEventConsumer.class);
+
+    @Inject
+    LocalRateTable rateTable;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Incoming("exchange-rate-events-in")
+    public void consumeExchangeRateUpdatedEvent(String message) {
+        try {
+            ExchangeRateUpdatedEvent event = objectMapper.readValue(message, ExchangeRateUpdatedEvent.class);
+            rateTable.update(event.getFromCurrency(), event.getToCurrency(), event.getRate(),
+                event.getVersion(), event.getTimestamp());
+        } catch (Exception e) {
+            LOG.error("Error processing exchange rate event: {}", e.getMessage(), e);
+        }
+    }
+}
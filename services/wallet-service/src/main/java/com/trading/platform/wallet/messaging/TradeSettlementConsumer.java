@@ -0,0 +1,65 @@
+package com.trading.platform.wallet.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.platform.events.BaseEvent;
+import com.trading.platform.events.TradeCompletedEvent;
+import com.trading.platform.wallet.service.TradeSettlementService;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives whole poll batches (mp.messaging.incoming.trading-events-in.batch=true).
+ * A message that cannot be parsed is sent on to the dead letter topic on its own and the
+ * rest of the batch is settled. If settlement fails the batch is nacked, which sends it to
+ * the dead letter topic as well (failure-strategy=dead-letter-queue); settlement is
+ * idempotent on tradeId, so dead-lettered messages can be replayed onto trading-events.
+ */
+@ApplicationScoped
+public class TradeSettlementConsumer {
+    private static final Logger LOG = LoggerFactory.getLogger(TradeSettlementConsumer.class);
+
+    @Inject
+    TradeSettlementService settlementService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Channel("trading-events-dlq-out")
+    MutinyEmitter<String> deadLetterEmitter;
+
+    @ConfigProperty(name = "wallet.mutation.timeout")
+    Duration timeout;
+
+    @Incoming("trading-events-in")
+    @Blocking
+    public void consumeTradeEvents(List<String> messages) {
+        List<TradeCompletedEvent> trades = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            try {
+                if (objectMapper.readValue(message, BaseEvent.class) instanceof TradeCompletedEvent trade) {
+                    trades.add(trade);
+                }
+            } catch (Exception e) {
+                LOG.error("Dead-lettering unparseable trade event: {}", e.getMessage());
+                // Fails the batch if the dead letter cannot be written, so the message is not lost
+                deadLetterEmitter.send(message).await().atMost(timeout);
+            }
+        }
+        try {
+            settlementService.settle(trades);
+        } catch (RuntimeException e) {
+            LOG.error("Error settling {} trades, nacking the batch: {}", trades.size(), e.getMessage(), e);
+            throw e;
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.trading.platform.wallet.resource;
 
 import com.trading.platform.domain.Currency;
+import com.trading.platform.wallet.service.ReactiveWalletService;
 import com.trading.platform.wallet.service.WalletService;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
 @Path("/api/v1/wallets")
@@ -20,42 +26,95 @@ public class WalletResource {
     @Inject
     WalletService walletService;
 
+    // Balances, deposits and withdrawals; non-blocking end to end when wallet.reactive.enabled
+    @Inject
+    ReactiveWalletService reactiveWalletService;
+
+    @ConfigProperty(name = "wallet.balance-query.max-users")
+    int maxQueryUsers;
+
+    @ConfigProperty(name = "wallet.ledger.max-page-size")
+    int maxLedgerPageSize;
+
     @GET
     @Path("/{userId}/balances")
     @Operation(summary = "Get all balances for user")
-    public Response getBalances(@PathParam("userId") UUID userId) {
-        return Response.ok(walletService.getBalances(userId)).build();
+    public Uni<Response> getBalances(@PathParam("userId") UUID userId) {
+        return reactiveWalletService.getBalances(userId).map(balances -> Response.ok(balances).build());
+    }
+
+    @POST
+    @Path("/balances:query")
+    @Operation(summary = "Get all balances for many users",
+        description = "Returns balances keyed by userId; users without balances map to an empty list")
+    public Uni<Response> queryBalances(BalanceQueryRequest request) {
+        if (request == null || request.userIds == null || request.userIds.isEmpty()) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "userIds are required")).build());
+        }
+        if (request.userIds.size() > maxQueryUsers) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "At most " + maxQueryUsers + " userIds per query")).build());
+        }
+        return reactiveWalletService.getBalances(request.userIds)
+            .map(balances -> Response.ok(Map.of("balances", balances)).build());
     }
 
     @GET
     @Path("/{userId}/balances/{currency}")
     @Operation(summary = "Get balance for specific currency")
-    public Response getBalance(@PathParam("userId") UUID userId,
-                                @PathParam("currency") Currency currency) {
-        BigDecimal balance = walletService.getBalance(userId, currency);
-        return Response.ok(Map.of("userId", userId, "currency", currency, "balance", balance)).build();
+    public Uni<Response> getBalance(@PathParam("userId") UUID userId,
+                                    @PathParam("currency") Currency currency) {
+        return reactiveWalletService.getBalance(userId, currency)
+            .map(balance -> Response.ok(Map.of("userId", userId, "currency", currency, "balance", balance)).build());
     }
 
-    @POST
-    @Path("/{userId}/deposit")
-    @Operation(summary = "Deposit funds")
-    public Response deposit(@PathParam("userId") UUID userId, DepositRequest request) {
+    @GET
+    @Path("/{userId}/ledger/{currency}")
+    @Operation(summary = "Get ledger entries for a currency",
+        description = "Every change to the balance, oldest first, one page at a time; "
+            + "pass the id of the last entry as after to get the next page")
+    public Response getLedger(@PathParam("userId") UUID userId,
+                              @PathParam("currency") Currency currency,
+                              @QueryParam("after") UUID after,
+                              @QueryParam("limit") @DefaultValue("100") int limit) {
+        if (limit <= 0 || limit > maxLedgerPageSize) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "limit must be between 1 and " + maxLedgerPageSize)).build();
+        }
         try {
-            var balance = walletService.deposit(userId, request.currency, request.amount);
-            return Response.ok(balance).build();
+            return Response.ok(walletService.getLedger(userId, currency, after, limit)).build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(Map.of("error", e.getMessage())).build();
         }
     }
 
+    @POST
+    @Path("/{userId}/deposit")
+    @Operation(summary = "Deposit funds")
+    public Uni<Response> deposit(@PathParam("userId") UUID userId, DepositRequest request) {
+        return reactiveWalletService.deposit(userId, request.currency, request.amount)
+            .map(balance -> Response.ok(balance).build())
+            .onFailure(IllegalArgumentException.class).recoverWithItem(WalletResource::badRequest);
+    }
+
     @POST
     @Path("/{userId}/withdraw")
     @Operation(summary = "Withdraw funds")
-    public Response withdraw(@PathParam("userId") UUID userId, WithdrawRequest request) {
+    public Uni<Response> withdraw(@PathParam("userId") UUID userId, WithdrawRequest request) {
+        return reactiveWalletService.withdraw(userId, request.currency, request.amount)
+            .map(balance -> Response.ok(balance).build())
+            .onFailure(e -> e instanceof IllegalStateException || e instanceof IllegalArgumentException)
+            .recoverWithItem(WalletResource::badRequest);
+    }
+
+    @POST
+    @Path("/{userId}/exchange")
+    @Operation(summary = "Exchange currency")
+    public Response exchange(@PathParam("userId") UUID userId, ExchangeRequest request) {
         try {
-            var balance = walletService.withdraw(userId, request.currency, request.amount);
-            return Response.ok(balance).build();
+            return exchangeResponse(walletService.exchange(userId, request.fromCurrency, request.toCurrency, request.amount));
         } catch (IllegalStateException | IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(Map.of("error", e.getMessage())).build();
@@ -63,24 +122,110 @@ public class WalletResource {
     }
 
     @POST
-    @Path("/{userId}/exchange")
-    @Operation(summary = "Exchange currency")
-    public Response exchange(@PathParam("userId") UUID userId, ExchangeRequest request) {
+    @Path("/{userId}/exchange/quote")
+    @Operation(summary = "Quote a currency exchange",
+        description = "Pins the rate and fee for a few seconds; execute the quote to exchange at exactly these terms")
+    public Response quoteExchange(@PathParam("userId") UUID userId, ExchangeRequest request) {
+        try {
+            var quote = walletService.quoteExchange(userId, request.fromCurrency, request.toCurrency, request.amount);
+            return Response.status(Response.Status.CREATED).entity(quote).build();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @POST
+    @Path("/{userId}/exchange/execute")
+    @Operation(summary = "Execute a quoted currency exchange", description = "Each quote can be executed once before it expires")
+    public Response executeExchange(@PathParam("userId") UUID userId, ExecuteQuoteRequest request) {
+        if (request == null || request.quoteId == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "quoteId is required")).build();
+        }
         try {
-            var result = walletService.exchange(userId, request.fromCurrency, request.toCurrency, request.amount);
-            return Response.ok(Map.of(
-                "fromBalance", result.fromBalance,
-                "toBalance", result.toBalance,
-                "convertedAmount", result.convertedAmount,
-                "exchangeRate", result.exchangeRate,
-                "fee", result.fee
-            )).build();
+            return exchangeResponse(walletService.executeQuote(userId, request.quoteId));
+        } catch (NoSuchElementException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", e.getMessage())).build();
         } catch (IllegalStateException | IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(Map.of("error", e.getMessage())).build();
         }
     }
 
+    @POST
+    @Path("/{userId}/reservations")
+    @Operation(summary = "Reserve funds", description = "Atomically checks and debits the balance; returns 400 if funds are insufficient")
+    public Response reserve(@PathParam("userId") UUID userId, ReserveRequest request) {
+        try {
+            var reservation = request.ttlSeconds == null
+                ? walletService.reserve(userId, request.currency, request.amount)
+                : walletService.reserve(userId, request.currency, request.amount, Duration.ofSeconds(request.ttlSeconds));
+            return Response.status(Response.Status.CREATED).entity(reservation).build();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @POST
+    @Path("/{userId}/reservations/{reservationId}/commit")
+    @Operation(summary = "Commit reserved funds",
+        description = "An optional amount commits part of the reservation and credits back the rest")
+    public Response commitReservation(@PathParam("userId") UUID userId,
+                                      @PathParam("reservationId") UUID reservationId,
+                                      CommitRequest request) {
+        try {
+            BigDecimal amount = request != null ? request.amount : null;
+            return Response.ok(walletService.commitReservation(userId, reservationId, amount)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", e.getMessage())).build();
+        } catch (NoSuchElementException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @POST
+    @Path("/{userId}/reservations/{reservationId}/release")
+    @Operation(summary = "Release reserved funds back to the balance")
+    public Response releaseReservation(@PathParam("userId") UUID userId,
+                                       @PathParam("reservationId") UUID reservationId) {
+        try {
+            return Response.ok(walletService.releaseReservation(userId, reservationId)).build();
+        } catch (NoSuchElementException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    private static Response badRequest(Throwable e) {
+        return Response.status(Response.Status.BAD_REQUEST)
+            .entity(Map.of("error", e.getMessage())).build();
+    }
+
+    private static Response exchangeResponse(WalletService.ExchangeResult result) {
+        return Response.ok(Map.of(
+            "fromBalance", result.fromBalance,
+            "toBalance", result.toBalance,
+            "convertedAmount", result.convertedAmount,
+            "exchangeRate", result.exchangeRate,
+            "fee", result.fee
+        )).build();
+    }
+
+    public static class BalanceQueryRequest {
+        public List<UUID> userIds;
+    }
+
     public static class DepositRequest {
         public Currency currency;
         public BigDecimal amount;
@@ -91,6 +236,20 @@ public class WalletResource {
         public BigDecimal amount;
     }
 
+    public static class ReserveRequest {
+        public Currency currency;
+        public BigDecimal amount;
+        public Long ttlSeconds;  // Optional, defaults to wallet.reservation.ttl
+    }
+
+    public static class CommitRequest {
+        public BigDecimal amount;  // Optional, defaults to the whole reservation
+    }
+
+    public static class ExecuteQuoteRequest {
+        public UUID quoteId;
+    }
+
     public static class ExchangeRequest {
         public Currency fromCurrency;
         public Currency toCurrency;
@@ -0,0 +1,148 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of every balance of a user, bounded by size (LRU) and TTL.
+ * Misses for a whole request are loaded with one query. Each committed ledger entry
+ * evicts its user and leaves a marker, so a load that started before the commit cannot
+ * put the older balances back. Other instances evict the user once BalanceEvictions has
+ * broadcast the change, so their copy can be stale for about
+ * wallet.balance-cache.broadcast.interval; the TTL bounds it if a broadcast is lost.
+ */
+@ApplicationScoped
+public class BalanceCache {
+    private static final Logger LOG = LoggerFactory.getLogger(BalanceCache.class);
+
+    @Inject
+    WalletLedger ledger;
+
+    @Inject
+    BalanceEvictions evictions;
+
+    @ConfigProperty(name = "wallet.balance-cache.max-entries")
+    int maxEntries;
+
+    @ConfigProperty(name = "wallet.balance-cache.ttl")
+    Duration ttl;
+
+    private Map<UUID, Entry> cache;
+    private long generation;
+    // Loads that started before the last evictAll are not cached
+    private long clearedAt;
+
+    // Access-ordered, so the least recently used user is evicted once maxEntries is reached
+    @PostConstruct
+    void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > maxEntries || eldest.getValue().expiresAt.isBefore(Instant.now());
+            }
+        };
+    }
+
+    public List<WalletBalance> balances(UUID userId) {
+        return balances(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Every balance of each requested user; users without balances map to an empty list.
+     */
+    public Map<UUID, List<WalletBalance>> balances(Collection<UUID> userIds) {
+        Lookup lookup = lookup(userIds);
+        if (lookup.misses.isEmpty()) {
+            return lookup.result;
+        }
+        return fill(lookup, ledger.viewsByUser(lookup.misses));
+    }
+
+    /**
+     * Same as balances, with the misses loaded by the given non-blocking loader.
+     */
+    public Uni<Map<UUID, List<WalletBalance>>> balancesAsync(Collection<UUID> userIds,
+            Function<List<UUID>, Uni<Map<UUID, List<WalletBalance>>>> loader) {
+        Lookup lookup = lookup(userIds);
+        if (lookup.misses.isEmpty()) {
+            return Uni.createFrom().item(lookup.result);
+        }
+        return loader.apply(lookup.misses).map(loaded -> fill(lookup, loaded));
+    }
+
+    private synchronized Lookup lookup(Collection<UUID> userIds) {
+        Map<UUID, List<WalletBalance>> result = new LinkedHashMap<>();
+        List<UUID> misses = new ArrayList<>();
+        Instant now = Instant.now();
+        for (UUID userId : userIds) {
+            Entry entry = cache.get(userId);
+            if (entry != null && entry.balances != null && entry.expiresAt.isAfter(now)) {
+                result.put(userId, entry.balances);
+            } else {
+                misses.add(userId);
+            }
+        }
+        return new Lookup(result, misses, generation);
+    }
+
+    private Map<UUID, List<WalletBalance>> fill(Lookup lookup, Map<UUID, List<WalletBalance>> loaded) {
+        synchronized (this) {
+            Instant expiresAt = Instant.now().plus(ttl);
+            for (UUID userId : lookup.misses) {
+                List<WalletBalance> balances = List.copyOf(loaded.getOrDefault(userId, List.of()));
+                lookup.result.put(userId, balances);
+                Entry current = cache.get(userId);
+                // Changed while loading: serve what was read, but leave it to the next reader to cache
+                if (lookup.generation >= clearedAt
+                        && (current == null || current.balances != null || current.generation <= lookup.generation)) {
+                    cache.put(userId, new Entry(balances, expiresAt, generation));
+                }
+            }
+        }
+        LOG.debug("Balance cache: requested={}, loaded={}", lookup.result.size(), lookup.misses.size());
+        return lookup.result;
+    }
+
+    void onBalanceChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) WalletLedger.BalanceChanged event) {
+        changed(event.userId());
+    }
+
+    /**
+     * Evicts a user whose balance changed on this instance, here and on the other instances.
+     */
+    void changed(UUID userId) {
+        evict(userId);
+        evictions.publish(userId);
+    }
+
+    synchronized void evict(UUID userId) {
+        cache.put(userId, new Entry(null, Instant.now().plus(ttl), ++generation));
+    }
+
+    synchronized void evictAll() {
+        cache.clear();
+        clearedAt = ++generation;
+    }
+
+    private record Lookup(Map<UUID, List<WalletBalance>> result, List<UUID> misses, long generation) {}
+
+    // balances is null for an eviction marker
+    private record Entry(List<WalletBalance> balances, Instant expiresAt, long generation) {}
+}
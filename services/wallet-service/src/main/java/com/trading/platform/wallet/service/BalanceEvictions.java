@@ -0,0 +1,161 @@
+package com.trading.platform.wallet.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.pgclient.pubsub.PgSubscriber;
+import io.vertx.mutiny.sqlclient.Tuple;
+import io.vertx.pgclient.PgConnectOptions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spreads BalanceCache evictions to the other wallet-service instances with Postgres
+ * LISTEN/NOTIFY. Users whose balance changed on this instance are collected and sent every
+ * wallet.balance-cache.broadcast.interval as "instance;user,user,..." on CHANNEL, after
+ * their transactions committed and outside of them, so writes never wait on the
+ * notification queue. Every instance evicts the users it receives from the others.
+ * <p>
+ * A cached balance can thus be stale on another instance for about one interval after a
+ * change. While the listening connection is down nothing is received, so every cached
+ * balance is dropped whenever it (re)connects; the cache TTL bounds staleness if
+ * notifications are lost in any other way.
+ */
+@ApplicationScoped
+public class BalanceEvictions {
+    private static final Logger LOG = LoggerFactory.getLogger(BalanceEvictions.class);
+    static final String CHANNEL = "wallet_balance_evictions";
+    // NOTIFY payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD = 7900;
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    BalanceCache balanceCache;
+
+    @ConfigProperty(name = "wallet.balance-cache.broadcast.enabled")
+    boolean enabled;
+
+    @ConfigProperty(name = "wallet.balance-cache.broadcast.interval")
+    Duration interval;
+
+    @ConfigProperty(name = "quarkus.datasource.reactive.url")
+    String url;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    String username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    String password;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private PgSubscriber subscriber;
+    private long timerId = -1;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        subscriber = PgSubscriber.subscriber(vertx, PgConnectOptions.fromUri(url).setUser(username).setPassword(password))
+            .reconnectPolicy(retries -> RECONNECT_DELAY_MS);
+        subscriber.channel(CHANNEL)
+            .subscribeHandler(() -> {
+                // Changes made elsewhere while disconnected were missed
+                balanceCache.evictAll();
+                LOG.info("Listening for balance cache evictions on {}", CHANNEL);
+            })
+            .handler(this::received);
+        connect();
+        timerId = vertx.setPeriodic(interval.toMillis(), id -> flush());
+    }
+
+    // The reconnect policy only covers a connection that was lost, so a failed first attempt is retried here
+    private void connect() {
+        subscriber.connect().subscribe().with(
+            ignored -> { },
+            e -> {
+                LOG.warn("Failed to listen for balance cache evictions, retrying: {}", e.getMessage());
+                vertx.setTimer(RECONNECT_DELAY_MS, id -> connect());
+            });
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (timerId >= 0) {
+            vertx.cancelTimer(timerId);
+        }
+        if (subscriber != null) {
+            subscriber.closeAndForget();
+        }
+    }
+
+    /**
+     * Queues the user for the next broadcast; call once the change is committed.
+     */
+    void publish(UUID userId) {
+        if (enabled) {
+            pending.add(userId);
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(instanceId).append(';');
+        int empty = payload.length();
+        for (Iterator<UUID> it = pending.iterator(); it.hasNext(); ) {
+            String userId = it.next().toString();
+            it.remove();
+            if (payload.length() + userId.length() + 1 > MAX_PAYLOAD) {
+                payloads.add(payload.toString());
+                payload.setLength(empty);
+            }
+            if (payload.length() > empty) {
+                payload.append(',');
+            }
+            payload.append(userId);
+        }
+        payloads.add(payload.toString());
+        for (String notification : payloads) {
+            client.preparedQuery("SELECT pg_notify($1, $2)")
+                .execute(Tuple.of(CHANNEL, notification))
+                .subscribe().with(
+                    ignored -> { },
+                    e -> LOG.warn("Failed to broadcast balance cache evictions: {}", e.getMessage()));
+        }
+    }
+
+    private void received(String payload) {
+        int separator = payload.indexOf(';');
+        // Skips our own broadcasts: the changes were evicted here when they committed
+        if (separator < 0 || payload.startsWith(instanceId + ";")) {
+            return;
+        }
+        for (String userId : payload.substring(separator + 1).split(",")) {
+            try {
+                balanceCache.evict(UUID.fromString(userId));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Ignoring malformed balance cache eviction: {}", userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.events.BaseEvent;
+import com.trading.platform.wallet.entity.LedgerEntry;
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for deposits.
+ * Deposits arriving within wallet.deposit.group-commit.window of the first one (or until
+ * max-batch is reached) are written by a single thread in one transaction: one lookup
+ * of the balance rows, one JDBC batch of ledger inserts and one balance read. Their events
+ * are then sent as one pipelined batch and every caller gets the balance as of its own
+ * deposit. Deposits are credits, so they need none of the per-account serialization
+ * debits go through. If the batch transaction fails, each deposit is retried on its own.
+ * A caller whose deposit is still queued after wallet.mutation.timeout withdraws it and
+ * gets a busy error; once the batcher has taken it, the caller waits for the outcome.
+ */
+@ApplicationScoped
+public class DepositBatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(DepositBatcher.class);
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    WalletLedger ledger;
+
+    @Channel("wallet-events-out")
+    MutinyEmitter<BaseEvent> walletEventsEmitter;
+
+    @ConfigProperty(name = "wallet.deposit.group-commit.window")
+    Duration window;
+
+    @ConfigProperty(name = "wallet.deposit.group-commit.max-batch")
+    int maxBatch;
+
+    @ConfigProperty(name = "wallet.mutation.timeout")
+    Duration timeout;
+
+    private final BlockingQueue<PendingDeposit> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService batchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "deposit-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean started;
+
+    public WalletBalance deposit(UUID userId, Currency currency, BigDecimal amount) {
+        PendingDeposit deposit = new PendingDeposit(userId, currency, amount, new CompletableFuture<>());
+        queue.add(deposit);
+        if (!started) {
+            start();
+        }
+        try {
+            return deposit.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Only a deposit still in the queue is certain not to be applied; one the batcher took may commit
+            if (queue.remove(deposit)) {
+                throw new IllegalStateException("Wallet is busy, try again later");
+            }
+            return awaitTaken(deposit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for deposit");
+        }
+    }
+
+    // The batch transaction timeout bounds how long a taken deposit can take
+    private static WalletBalance awaitTaken(PendingDeposit deposit) {
+        try {
+            return deposit.result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for deposit");
+        }
+    }
+
+    private synchronized void start() {
+        if (!started) {
+            started = true;
+            batchExecutor.execute(this::run);
+        }
+    }
+
+    private void run() {
+        List<PendingDeposit> batch = new ArrayList<>(maxBatch);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    PendingDeposit next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void process(List<PendingDeposit> batch) {
+        List<WalletBalance> balances;
+        try {
+            balances = QuarkusTransaction.requiringNew().call(() -> apply(batch));
+        } catch (RuntimeException e) {
+            LOG.warn("Group commit of {} deposits failed, applying them one by one: {}", batch.size(), e.getMessage());
+            for (PendingDeposit deposit : batch) {
+                try {
+                    deposit.result.complete(walletService.depositNow(deposit.userId, deposit.currency, deposit.amount));
+                } catch (RuntimeException individual) {
+                    deposit.result.completeExceptionally(individual);
+                }
+            }
+            return;
+        }
+        LOG.info("Deposits group committed: count={}", batch.size());
+
+        List<Uni<Void>> sends = new ArrayList<>(batch.size() * 2);
+        for (int i = 0; i < batch.size(); i++) {
+            PendingDeposit deposit = batch.get(i);
+            sends.add(walletEventsEmitter.send(WalletService.depositEvent(deposit.userId, deposit.currency, deposit.amount)));
+            sends.add(walletEventsEmitter.send(WalletService.walletUpdatedEvent(deposit.userId, deposit.currency,
+                balances.get(i).balance)));
+        }
+        try {
+            Uni.join().all(sends).andFailFast().await().atMost(timeout);
+        } catch (RuntimeException e) {
+            // The deposits are committed; failing the callers now would invite a second deposit
+            LOG.error("Failed to publish events for {} group committed deposits: {}", batch.size(), e.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(balances.get(i));
+        }
+    }
+
+    // Returns the balance as of each deposit, in batch order
+    private List<WalletBalance> apply(List<PendingDeposit> batch) {
+        Map<Account, WalletBalance> rows = new HashMap<>();
+        WalletBalance.findByUsers(batch.stream().map(PendingDeposit::userId).distinct().toList())
+            .forEach(row -> rows.put(new Account(row.userId, row.currency), row));
+        for (PendingDeposit deposit : batch) {
+            rows.computeIfAbsent(new Account(deposit.userId, deposit.currency),
+                account -> walletService.getOrCreateBalance(account.userId, account.currency));
+            ledger.credit(deposit.userId, deposit.currency, deposit.amount, LedgerEntry.Type.DEPOSIT, null);
+        }
+        Map<UUID, BigDecimal> available = ledger.availableByBalanceId(rows.keySet().stream().map(Account::userId).distinct().toList());
+
+        // Walk backwards from the final balance so each caller sees the balance right after its own deposit
+        Map<Account, BigDecimal> after = new HashMap<>();
+        WalletBalance[] results = new WalletBalance[batch.size()];
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingDeposit deposit = batch.get(i);
+            Account account = new Account(deposit.userId, deposit.currency);
+            WalletBalance row = rows.get(account);
+            BigDecimal balance = after.getOrDefault(account, available.get(row.id));
+            results[i] = snapshot(row, balance);
+            after.put(account, balance.subtract(deposit.amount));
+        }
+        return List.of(results);
+    }
+
+    private static WalletBalance snapshot(WalletBalance row, BigDecimal balance) {
+        WalletBalance snapshot = new WalletBalance();
+        snapshot.id = row.id;
+        snapshot.userId = row.userId;
+        snapshot.currency = row.currency;
+        snapshot.balance = balance;
+        snapshot.updatedAt = Instant.now();
+        snapshot.version = row.version;
+        return snapshot;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    private record PendingDeposit(UUID userId, Currency currency, BigDecimal amount,
+                                  CompletableFuture<WalletBalance> result) {}
+
+    private record Account(UUID userId, Currency currency) {}
+}
@@ -6,6 +6,8 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 
 @RegisterRestClient(configKey = "exchange-rate-service")
 @Path("/api/v1/exchange")
@@ -14,9 +16,23 @@ public interface ExchangeRateClient {
     @Path("/rates/{from}/{to}")
     ExchangeRateResponse getRate(@PathParam("from") Currency from, @PathParam("to") Currency to);
 
+    @GET
+    @Path("/rates")
+    List<RateSnapshot> getAllRates();
+
     class ExchangeRateResponse {
         public Currency from;
         public Currency to;
         public BigDecimal rate;
+        public long version;
+        public Instant lastUpdated;
+    }
+
+    class RateSnapshot {
+        public Currency fromCurrency;
+        public Currency toCurrency;
+        public BigDecimal rate;
+        public long version;
+        public Instant lastUpdated;
     }
 }
@@ -2,10 +2,14 @@ package com.trading.platform.wallet.service;
 
 import com.trading.platform.domain.Currency;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import java.math.BigDecimal;
+import java.util.List;
 
 @RegisterRestClient(configKey = "fee-service")
 @Path("/api/v1/fees")
@@ -16,10 +20,31 @@ public interface FeeClient {
                                 @QueryParam("to") Currency to,
                                 @QueryParam("amount") BigDecimal amount);
 
+    // 304 Not Modified when the schedule still matches the given ETag, otherwise a FeeScheduleResponse
+    @GET
+    @Path("/schedule")
+    Response getFeeSchedule(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch);
+
     class FeeResponse {
         public Currency from;
         public Currency to;
         public BigDecimal amount;
         public BigDecimal fee;
     }
+
+    class FeeScheduleResponse {
+        public long version;
+        public Fee defaultExchangeFee;
+        public List<ExchangeFee> exchangeFees;
+    }
+
+    class Fee {
+        public BigDecimal fixedFee;
+        public BigDecimal percentageFee;
+    }
+
+    class ExchangeFee extends Fee {
+        public Currency from;
+        public Currency to;
+    }
 }
@@ -0,0 +1,103 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects hot accounts and spreads their writes over sub-balances.
+ * Every ledger entry bumps a per-account counter; at the end of each window an account with
+ * at least wallet.hot-account.threshold entries gets its shard rows created and is marked
+ * hot until it has been quiet for wallet.hot-account.cool-down. While hot, credits land on a
+ * random shard and mutations run on the shard's stripe, so debits of one account no longer
+ * contend for a single version row or a single stripe thread.
+ * <p>
+ * Hotness is local to the instance, but readers always sum every shard row, so an account
+ * another instance has sharded reads correctly here as well. Shard rows are never removed.
+ */
+@ApplicationScoped
+public class HotAccounts {
+    private static final Logger LOG = LoggerFactory.getLogger(HotAccounts.class);
+
+    @ConfigProperty(name = "wallet.hot-account.enabled")
+    boolean enabled;
+
+    @ConfigProperty(name = "wallet.hot-account.threshold")
+    long threshold;
+
+    @ConfigProperty(name = "wallet.hot-account.shards")
+    int shards;
+
+    @ConfigProperty(name = "wallet.hot-account.cool-down")
+    Duration coolDown;
+
+    private final Map<Account, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<Account, Instant> hotUntil = new ConcurrentHashMap<>();
+
+    void record(UUID userId, Currency currency) {
+        if (enabled) {
+            counters.computeIfAbsent(new Account(userId, currency), account -> new LongAdder()).increment();
+        }
+    }
+
+    public boolean isHot(UUID userId, Currency currency) {
+        return hotUntil.containsKey(new Account(userId, currency));
+    }
+
+    /**
+     * The shard a new entry for the account goes to: a random one while hot, the primary row otherwise.
+     */
+    public int pickShard(UUID userId, Currency currency) {
+        return isHot(userId, currency) ? ThreadLocalRandom.current().nextInt(shards) : 0;
+    }
+
+    @Scheduled(every = "${wallet.hot-account.window}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void roll() {
+        Instant now = Instant.now();
+        for (Account account : counters.keySet()) {
+            long count = counters.remove(account).sum();
+            if (count < threshold) {
+                continue;
+            }
+            if (!hotUntil.containsKey(account)) {
+                try {
+                    createShards(account);
+                } catch (Exception e) {
+                    LOG.warn("Failed to shard hot account: userId={}, currency={}: {}",
+                        account.userId, account.currency, e.getMessage());
+                    continue;
+                }
+                LOG.info("Account is hot, spreading it over {} shards: userId={}, currency={}, entries={}",
+                    shards, account.userId, account.currency, count);
+            }
+            hotUntil.put(account, now.plus(coolDown));
+        }
+        hotUntil.entrySet().removeIf(entry -> entry.getValue().isBefore(now));
+    }
+
+    // Rows have to exist before entries are written to them, since reads go through wallet_balances
+    private void createShards(Account account) {
+        QuarkusTransaction.requiringNew().run(() -> WalletBalance.getEntityManager().createNativeQuery("""
+                INSERT INTO wallet_balances (id, user_id, currency, shard, balance, updated_at, version)
+                SELECT gen_random_uuid(), ?1, ?2, s, 0, NOW(), 0 FROM generate_series(1, ?3) s
+                ON CONFLICT (user_id, currency, shard) DO NOTHING""")
+            .setParameter(1, account.userId)
+            .setParameter(2, account.currency.name())
+            .setParameter(3, shards - 1)
+            .executeUpdate());
+    }
+
+    private record Account(UUID userId, Currency currency) {}
+}
@@ -0,0 +1,12 @@
+package com.trading.platform.wallet.service;
+
+/**
+ * A debit the available balance does not cover. Nothing was written, so the caller may
+ * safely retry or keep whatever it reserved for the operation (e.g. an exchange quote).
+ * Still an IllegalStateException, so endpoints keep answering it as a bad request.
+ */
+public class InsufficientFundsException extends IllegalStateException {
+    public InsufficientFundsException() {
+        super("Insufficient funds");
+    }
+}
@@ -0,0 +1,67 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.domain.MoneyCalculator;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process replica of the fee-service exchange fee rules.
+ * Fees are computed exactly like FeeCalculationService does, so exchanges no longer
+ * need a remote call per fee. Until the first snapshot is loaded callers fall back
+ * to FeeClient.
+ */
+@ApplicationScoped
+public class LocalFeeSchedule {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalFeeSchedule.class);
+
+    @Inject @RestClient FeeClient feeClient;
+
+    private volatile Snapshot snapshot;
+
+    void onStart(@Observes StartupEvent event) {
+        refresh();
+    }
+
+    @Scheduled(every = "${wallet.fee-schedule.refresh-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        Snapshot current = snapshot;
+        String etag = current != null ? "\"" + current.version + "\"" : null;
+        try (Response response = feeClient.getFeeSchedule(etag)) {
+            if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                return;
+            }
+            FeeClient.FeeScheduleResponse loaded = response.readEntity(FeeClient.FeeScheduleResponse.class);
+            Map<String, FeeClient.Fee> exchangeFees = new HashMap<>();
+            for (FeeClient.ExchangeFee fee : loaded.exchangeFees) {
+                exchangeFees.putIfAbsent(fee.from + "_" + fee.to, fee);
+            }
+            snapshot = new Snapshot(loaded.version, loaded.defaultExchangeFee, exchangeFees);
+            LOG.info("Loaded fee schedule version {} ({} exchange rules)", loaded.version, exchangeFees.size());
+        } catch (Exception e) {
+            LOG.warn("Failed to refresh fee schedule, keeping version {}: {}",
+                current != null ? current.version : "none", e.getMessage());
+        }
+    }
+
+    public BigDecimal exchangeFee(Currency from, Currency to, BigDecimal amount) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return feeClient.getExchangeFee(from, to, amount).fee;
+        }
+        FeeClient.Fee rule = current.exchangeFees.getOrDefault(from + "_" + to, current.defaultExchangeFee);
+        return rule.fixedFee.add(MoneyCalculator.percentage(amount, rule.percentageFee));
+    }
+
+    private record Snapshot(long version, FeeClient.Fee defaultExchangeFee, Map<String, FeeClient.Fee> exchangeFees) {}
+}
@@ -0,0 +1,79 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest exchange rate per currency pair, loaded from currency-exchange-service at startup
+ * and then fed by the exchange-rate-events stream. Updates carry the rate's version and
+ * timestamp, so a late or replayed event never replaces a newer rate. A pair that is
+ * missing or older than the staleness bound is fetched over REST instead, which also
+ * refreshes the table.
+ */
+@ApplicationScoped
+public class LocalRateTable {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalRateTable.class);
+
+    @Inject
+    @RestClient
+    ExchangeRateClient exchangeRateClient;
+
+    @ConfigProperty(name = "wallet.exchange.max-rate-age")
+    Duration maxRateAge;
+
+    private final Map<Pair, Quote> rates = new ConcurrentHashMap<>();
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            for (ExchangeRateClient.RateSnapshot snapshot : exchangeRateClient.getAllRates()) {
+                update(snapshot.fromCurrency, snapshot.toCurrency, snapshot.rate, snapshot.version, snapshot.lastUpdated);
+            }
+            LOG.info("Loaded {} exchange rates", rates.size());
+        } catch (Exception e) {
+            // Every pair falls back to REST until its first update arrives
+            LOG.warn("Failed to load exchange rates: {}", e.getMessage());
+        }
+    }
+
+    public void update(Currency from, Currency to, BigDecimal rate, long version, Instant asOf) {
+        rates.merge(new Pair(from, to), new Quote(rate, version, asOf),
+            (existing, incoming) -> incoming.isNewerThan(existing) ? incoming : existing);
+    }
+
+    public BigDecimal rate(Currency from, Currency to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        Quote quote = rates.get(new Pair(from, to));
+        if (quote != null && quote.asOf.isAfter(Instant.now().minus(maxRateAge))) {
+            return quote.rate;
+        }
+        LOG.debug("No fresh local rate for {} to {}, asking currency-exchange-service", from, to);
+        ExchangeRateClient.ExchangeRateResponse response = exchangeRateClient.getRate(from, to);
+        if (response.lastUpdated != null) {
+            update(from, to, response.rate, response.version, response.lastUpdated);
+        }
+        return response.rate;
+    }
+
+    private record Pair(Currency from, Currency to) {}
+
+    private record Quote(BigDecimal rate, long version, Instant asOf) {
+        boolean isNewerThan(Quote other) {
+            int byTime = asOf.compareTo(other.asOf);
+            return byTime > 0 || (byTime == 0 && version > other.version);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived exchange quotes pinning a rate and fee. A quote can be executed once,
+ * by the user it was issued to, until it expires; expired quotes are purged periodically.
+ * Quotes live only in this instance's memory, so the execute call must reach the
+ * instance that issued the quote.
+ */
+@ApplicationScoped
+public class QuoteStore {
+
+    @ConfigProperty(name = "wallet.exchange.quote-ttl")
+    Duration quoteTtl;
+
+    @ConfigProperty(name = "wallet.exchange.max-quotes")
+    int maxQuotes;
+
+    private final Map<UUID, Quote> quotes = new ConcurrentHashMap<>();
+
+    public Quote create(UUID userId, Currency fromCurrency, Currency toCurrency, BigDecimal amount,
+                        BigDecimal rate, BigDecimal fee, BigDecimal convertedAmount) {
+        if (quotes.size() >= maxQuotes) {
+            purgeExpired();
+            if (quotes.size() >= maxQuotes) {
+                throw new IllegalStateException("Too many open quotes, try again later");
+            }
+        }
+        Quote quote = new Quote();
+        quote.quoteId = UUID.randomUUID();
+        quote.userId = userId;
+        quote.fromCurrency = fromCurrency;
+        quote.toCurrency = toCurrency;
+        quote.amount = amount;
+        quote.rate = rate;
+        quote.fee = fee;
+        quote.convertedAmount = convertedAmount;
+        quote.expiresAt = Instant.now().plus(quoteTtl);
+        quotes.put(quote.quoteId, quote);
+        return quote;
+    }
+
+    /**
+     * Removes and returns the quote, so concurrent executions of one quote cannot both succeed.
+     */
+    public Quote take(UUID userId, UUID quoteId) {
+        Quote quote = quotes.get(quoteId);
+        if (quote == null || !quote.userId.equals(userId) || !quotes.remove(quoteId, quote) || quote.isExpired()) {
+            throw new NoSuchElementException("Quote not found or expired");
+        }
+        return quote;
+    }
+
+    // Puts back a quote whose execution failed (e.g. insufficient funds) so it can be retried until it expires
+    public void restore(Quote quote) {
+        if (!quote.isExpired()) {
+            quotes.putIfAbsent(quote.quoteId, quote);
+        }
+    }
+
+    @Scheduled(every = "${wallet.exchange.quote-purge-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purgeExpired() {
+        quotes.values().removeIf(Quote::isExpired);
+    }
+
+    public static class Quote {
+        public UUID quoteId;
+        public UUID userId;
+        public Currency fromCurrency;
+        public Currency toCurrency;
+        public BigDecimal amount;
+        public BigDecimal rate;
+        public BigDecimal fee;
+        public BigDecimal convertedAmount;
+        public Instant expiresAt;
+
+        boolean isExpired() {
+            return expiresAt.isBefore(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.wallet.entity.LedgerEntry;
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * WalletLedger's reads, credits and debits on the reactive Postgres client, for
+ * wallet.reactive.enabled. Same tables and statements, same version guard for debits;
+ * only the way they are executed differs: no worker thread is held while the database
+ * works. Debits are not serialized on WalletMutations' stripe threads, so a conflicting
+ * debit is retried from a fresh read, up to wallet.mutation.max-attempts.
+ */
+@ApplicationScoped
+public class ReactiveWalletLedger {
+    private static final String VIEWS = WalletLedger.AVAILABLE_FROM + " WHERE b.user_id = ANY($1)" + WalletLedger.BY_SHARD;
+    private static final String ACCOUNT = WalletLedger.AVAILABLE_FROM + " WHERE b.user_id = $1 AND b.currency = $2"
+        + WalletLedger.BY_SHARD;
+    private static final String OPEN = """
+        INSERT INTO wallet_balances (id, user_id, currency, shard, balance, updated_at, version)
+        VALUES (gen_random_uuid(), $1, $2, 0, 0, NOW(), 0)
+        ON CONFLICT (user_id, currency, shard) DO NOTHING""";
+    private static final String APPEND = """
+        INSERT INTO wallet_ledger (id, user_id, currency, shard, amount, entry_type, created_at)
+        VALUES (gen_random_uuid(), $1, $2, $3, $4, $5, NOW())""";
+    private static final String BUMP_VERSION = "UPDATE wallet_balances SET version = version + 1 WHERE id = $1 AND version = $2";
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    HotAccounts hotAccounts;
+
+    @Inject
+    BalanceCache balanceCache;
+
+    @ConfigProperty(name = "wallet.mutation.max-attempts")
+    int maxAttempts;
+
+    /**
+     * Balances of many users in one query, one unmanaged WalletBalance per account.
+     */
+    public Uni<Map<UUID, List<WalletBalance>>> viewsByUser(Collection<UUID> userIds) {
+        return client.preparedQuery(VIEWS).execute(Tuple.of(userIds.toArray(UUID[]::new)))
+            .map(ReactiveWalletLedger::toViews);
+    }
+
+    /**
+     * Appends a credit, creating the balance if needed, and returns the balance after it.
+     */
+    public Uni<WalletBalance> credit(UUID userId, Currency currency, BigDecimal amount, LedgerEntry.Type type) {
+        int shard = hotAccounts.pickShard(userId, currency);
+        return client.withTransaction(connection -> connection.preparedQuery(OPEN)
+                .execute(Tuple.of(userId, currency.name()))
+                .chain(() -> append(connection, userId, currency, shard, amount, type))
+                .chain(() -> view(connection, userId, currency)))
+            .invoke(() -> changed(userId, currency));
+    }
+
+    /**
+     * Appends a debit if the available balance covers it (InsufficientFundsException otherwise)
+     * and returns the balance after it.
+     */
+    public Uni<WalletBalance> debit(UUID userId, Currency currency, BigDecimal amount, LedgerEntry.Type type) {
+        return client.withTransaction(connection -> connection.preparedQuery(ACCOUNT)
+                .execute(Tuple.of(userId, currency.name()))
+                .chain(rows -> {
+                    List<WalletLedger.Draw> draws = WalletLedger.plan(toAvailable(rows), amount);
+                    if (draws.isEmpty()) {
+                        return Uni.createFrom().failure(new InsufficientFundsException());
+                    }
+                    Uni<Void> applied = Uni.createFrom().voidItem();
+                    for (WalletLedger.Draw draw : draws) {
+                        applied = applied.chain(() -> draw(connection, userId, currency, draw, type));
+                    }
+                    return applied;
+                })
+                .chain(() -> view(connection, userId, currency)))
+            .onFailure(OptimisticLockException.class).retry().atMost(maxAttempts - 1)
+            .invoke(() -> changed(userId, currency));
+    }
+
+    private Uni<Void> draw(SqlConnection connection, UUID userId, Currency currency, WalletLedger.Draw draw,
+                           LedgerEntry.Type type) {
+        return connection.preparedQuery(BUMP_VERSION)
+            .execute(Tuple.of(draw.shard().balanceId(), draw.shard().version()))
+            .chain(bumped -> bumped.rowCount() == 0
+                ? Uni.createFrom().failure(new OptimisticLockException(
+                    "Balance changed concurrently: userId=" + userId + ", currency=" + currency))
+                : append(connection, userId, currency, draw.shard().shard(), draw.amount().negate(), type));
+    }
+
+    private static Uni<Void> append(SqlConnection connection, UUID userId, Currency currency, int shard,
+                                    BigDecimal amount, LedgerEntry.Type type) {
+        return connection.preparedQuery(APPEND)
+            .execute(Tuple.from(List.of(userId, currency.name(), (short) shard, amount, type.name())))
+            .replaceWithVoid();
+    }
+
+    private static Uni<WalletBalance> view(SqlConnection connection, UUID userId, Currency currency) {
+        return connection.preparedQuery(ACCOUNT).execute(Tuple.of(userId, currency.name()))
+            .map(rows -> toViews(rows).getOrDefault(userId, List.of()).stream().findFirst().orElse(null));
+    }
+
+    // What WalletLedger.append does once the entry is in: count it and drop the user's cached balances
+    private void changed(UUID userId, Currency currency) {
+        hotAccounts.record(userId, currency);
+        balanceCache.changed(userId);
+    }
+
+    private static List<WalletLedger.Available> toAvailable(RowSet<Row> rows) {
+        List<WalletLedger.Available> shards = new ArrayList<>();
+        for (Row row : rows) {
+            shards.add(new WalletLedger.Available(row.getUUID(0), row.getLong(1), row.getBigDecimal(2), row.getInteger(6)));
+        }
+        return shards;
+    }
+
+    // Rows come ordered by shard, so the primary row opens each account; further shards add to it
+    private static Map<UUID, List<WalletBalance>> toViews(RowSet<Row> rows) {
+        Map<UUID, List<WalletBalance>> views = new HashMap<>();
+        WalletBalance view = null;
+        for (Row row : rows) {
+            if (row.getInteger(6) == 0) {
+                view = new WalletBalance();
+                view.id = row.getUUID(0);
+                view.version = row.getLong(1);
+                view.balance = row.getBigDecimal(2);
+                view.userId = row.getUUID(3);
+                view.currency = Currency.valueOf(row.getString(4));
+                LocalDateTime updatedAt = row.getLocalDateTime(5);
+                view.updatedAt = updatedAt == null ? null : updatedAt.atZone(ZoneId.systemDefault()).toInstant();
+                views.computeIfAbsent(view.userId, id -> new ArrayList<>()).add(view);
+            } else if (view != null) {
+                view.balance = view.balance.add(row.getBigDecimal(2));
+            }
+        }
+        return views;
+    }
+}
@@ -0,0 +1,123 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.events.BaseEvent;
+import com.trading.platform.wallet.entity.LedgerEntry;
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking front for the hot wallet endpoints (balances, deposit, withdraw).
+ * With wallet.reactive.enabled the work runs on the event loop: ReactiveWalletLedger for
+ * the database and Uni-returning sends for the events, so concurrency is bounded by the
+ * connection pool rather than by worker threads. Otherwise each call is handed to
+ * WalletService on a worker thread, exactly as the blocking endpoints did.
+ */
+@ApplicationScoped
+public class ReactiveWalletService {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveWalletService.class);
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    ReactiveWalletLedger ledger;
+
+    @Inject
+    BalanceCache balanceCache;
+
+    @Channel("wallet-events-out")
+    MutinyEmitter<BaseEvent> walletEventsEmitter;
+
+    @ConfigProperty(name = "wallet.reactive.enabled")
+    boolean enabled;
+
+    public Uni<List<WalletBalance>> getBalances(UUID userId) {
+        return getBalances(List.of(userId)).map(balances -> balances.get(userId));
+    }
+
+    public Uni<Map<UUID, List<WalletBalance>>> getBalances(Collection<UUID> userIds) {
+        if (!enabled) {
+            return blocking(() -> walletService.getBalances(userIds));
+        }
+        return balanceCache.balancesAsync(userIds, ledger::viewsByUser);
+    }
+
+    public Uni<BigDecimal> getBalance(UUID userId, Currency currency) {
+        return getBalances(userId).map(balances -> balances.stream()
+            .filter(balance -> balance.currency == currency)
+            .map(balance -> balance.balance)
+            .findFirst()
+            .orElse(BigDecimal.ZERO));
+    }
+
+    public Uni<WalletBalance> deposit(UUID userId, Currency currency, BigDecimal amount) {
+        if (!enabled) {
+            return blocking(() -> walletService.deposit(userId, currency, amount));
+        }
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Uni.createFrom().failure(new IllegalArgumentException("Amount must be positive"));
+        }
+        return ledger.credit(userId, currency, amount, LedgerEntry.Type.DEPOSIT)
+            .call(balance -> {
+                LOG.info("Deposit: userId={}, currency={}, amount={}, newBalance={}",
+                    userId, currency, amount, balance.balance);
+                return publish(WalletService.depositEvent(userId, currency, amount),
+                    WalletService.walletUpdatedEvent(userId, currency, balance.balance));
+            });
+    }
+
+    public Uni<WalletBalance> withdraw(UUID userId, Currency currency, BigDecimal amount) {
+        if (!enabled) {
+            return blocking(() -> walletService.withdraw(userId, currency, amount));
+        }
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Uni.createFrom().failure(new IllegalArgumentException("Amount must be positive"));
+        }
+        return ledger.debit(userId, currency, amount, LedgerEntry.Type.WITHDRAWAL)
+            .call(balance -> {
+                LOG.info("Withdrawal: userId={}, currency={}, amount={}, newBalance={}",
+                    userId, currency, amount, balance.balance);
+                return publish(WalletService.withdrawalEvent(userId, currency, amount),
+                    WalletService.walletUpdatedEvent(userId, currency, balance.balance));
+            });
+    }
+
+    private Uni<Void> publish(BaseEvent... events) {
+        return Uni.join().all(List.of(events).stream().map(walletEventsEmitter::send).toList())
+            .andFailFast()
+            .replaceWithVoid();
+    }
+
+    // Panache needs a request context on the worker thread for reads outside a transaction
+    private static <T> Uni<T> blocking(Supplier<T> call) {
+        return Uni.createFrom().item(() -> {
+            ManagedContext requestContext = Arc.container().requestContext();
+            if (requestContext.isActive()) {
+                return call.get();
+            }
+            requestContext.activate();
+            try {
+                return call.get();
+            } finally {
+                requestContext.terminate();
+            }
+        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+}
@@ -0,0 +1,268 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.domain.TradeType;
+import com.trading.platform.events.BaseEvent;
+import com.trading.platform.events.TradeCompletedEvent;
+import com.trading.platform.wallet.entity.LedgerEntry;
+import com.trading.platform.wallet.entity.SettledTrade;
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Settles the cash leg of completed trades in batches.
+ * A batch is netted per (user, currency) and written in one transaction: one lookup of the
+ * trades already settled, one settlement ledger entry per account and one settled_trades
+ * row per trade, so a redelivered trade is skipped. Sells credit their proceeds; buys were
+ * paid through a reservation before they executed and are only recorded.
+ * <p>
+ * trading-service does not check holdings before a sell, so settlement keeps its own
+ * position per (user, symbol) in wallet_positions: buys add to it, and with
+ * wallet.trade-settlement.check-holdings a sell is only credited if the position covers it.
+ * Positions only know the trades settled since they were introduced, so the check is off
+ * by default until they have been seeded.
+ * <p>
+ * An uncovered sell is recorded as UNCOVERED without a credit. It is settled once the
+ * position covers it (or the check is turned off): when the trade is redelivered, or by
+ * the retry every wallet.trade-settlement.uncovered-retry-interval.
+ */
+@ApplicationScoped
+public class TradeSettlementService {
+    private static final Logger LOG = LoggerFactory.getLogger(TradeSettlementService.class);
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    WalletLedger ledger;
+
+    @Channel("wallet-events-out")
+    MutinyEmitter<BaseEvent> walletEventsEmitter;
+
+    @ConfigProperty(name = "wallet.mutation.max-attempts")
+    int maxAttempts;
+
+    @ConfigProperty(name = "wallet.mutation.timeout")
+    Duration timeout;
+
+    @ConfigProperty(name = "wallet.trade-settlement.check-holdings")
+    boolean checkHoldings;
+
+    @ConfigProperty(name = "wallet.trade-settlement.uncovered-batch-size")
+    int uncoveredBatchSize;
+
+    /**
+     * @return the number of trades settled by this call (trades settled earlier are not counted)
+     */
+    public int settle(List<TradeCompletedEvent> trades) {
+        if (trades.isEmpty()) {
+            return 0;
+        }
+        Settlement settlement = null;
+        for (int attempt = 1; settlement == null; attempt++) {
+            try {
+                settlement = QuarkusTransaction.requiringNew().call(() -> apply(trades));
+            } catch (RuntimeException e) {
+                // Another instance settled some of these trades during a rebalance; the next lookup skips them
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                LOG.debug("Settlement of {} trades failed on attempt {}, retrying: {}", trades.size(), attempt, e.getMessage());
+            }
+        }
+        LOG.info("Trades settled: received={}, settled={}, accounts={}",
+            trades.size(), settlement.settled, settlement.balances.size());
+        publish(settlement);
+        return settlement.settled;
+    }
+
+    @Scheduled(every = "${wallet.trade-settlement.uncovered-retry-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void settleUncovered() {
+        try {
+            Settlement settlement = QuarkusTransaction.requiringNew().call(() ->
+                applyLegs(SettledTrade.lockUncovered(uncoveredBatchSize).stream().map(Leg::of).toList()));
+            if (settlement.settled > 0) {
+                publish(settlement);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Settling uncovered sells failed, will retry on next run: {}", e.getMessage());
+        }
+    }
+
+    private void publish(Settlement settlement) {
+        List<Uni<Void>> sends = new ArrayList<>(settlement.balances.size());
+        settlement.balances.forEach((account, balance) ->
+            sends.add(walletEventsEmitter.send(WalletService.walletUpdatedEvent(account.userId, account.currency, balance))));
+        if (!sends.isEmpty()) {
+            try {
+                Uni.join().all(sends).andFailFast().await().atMost(timeout);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to publish balance updates for {} settled accounts: {}", sends.size(), e.getMessage());
+            }
+        }
+    }
+
+    private Settlement apply(List<TradeCompletedEvent> trades) {
+        Map<UUID, SettledTrade> recorded = SettledTrade.lockByIds(trades.stream().map(TradeCompletedEvent::getTradeId).toList());
+        Set<UUID> seen = new HashSet<>();
+        List<Leg> legs = new ArrayList<>();
+        for (TradeCompletedEvent trade : trades) {
+            // A trade may also appear twice within one batch
+            if (!seen.add(trade.getTradeId())) {
+                continue;
+            }
+            SettledTrade row = recorded.get(trade.getTradeId());
+            if (row == null) {
+                legs.add(Leg.of(trade));
+            } else if (row.status == SettledTrade.Status.UNCOVERED) {
+                // Redelivered while still uncovered; the position may cover it by now
+                legs.add(Leg.of(row));
+            }
+        }
+        return applyLegs(legs);
+    }
+
+    private Settlement applyLegs(List<Leg> legs) {
+        if (legs.isEmpty()) {
+            return new Settlement(0, Map.of());
+        }
+        Map<Position, BigDecimal> positions = lockPositions(legs.stream().map(Leg::userId).distinct().toList());
+        Map<Position, BigDecimal> changed = new LinkedHashMap<>();
+        Map<Account, BigDecimal> net = new LinkedHashMap<>();
+        List<SettledTrade> settled = new ArrayList<>();
+        int count = 0;
+        Instant now = Instant.now();
+        // In batch order, which is each user's trade order (trading-events is keyed by user)
+        for (Leg leg : legs) {
+            Position position = new Position(leg.userId, leg.symbol);
+            BigDecimal held = positions.getOrDefault(position, BigDecimal.ZERO);
+            BigDecimal amount = BigDecimal.ZERO;
+            SettledTrade.Status status = SettledTrade.Status.SETTLED;
+            if (leg.tradeType == TradeType.BUY) {
+                held = held.add(leg.quantity);
+            } else if (!checkHoldings || held.compareTo(leg.quantity) >= 0) {
+                held = held.subtract(leg.quantity).max(BigDecimal.ZERO);
+                amount = leg.totalAmount;
+            } else if (leg.row != null) {
+                // Still uncovered; reported when it was first recorded
+                continue;
+            } else {
+                status = SettledTrade.Status.UNCOVERED;
+                LOG.error("Not crediting sell of more shares than held until they are: tradeId={}, userId={}, symbol={}, quantity={}, held={}",
+                    leg.tradeId, leg.userId, leg.symbol, leg.quantity, held);
+            }
+            positions.put(position, held);
+            changed.put(position, held);
+            net.merge(new Account(leg.userId, leg.currency), amount, BigDecimal::add);
+            count++;
+
+            if (leg.row != null) {
+                leg.row.amount = amount;
+                leg.row.status = status;
+                leg.row.settledAt = now;
+                LOG.info("Uncovered sell settled: tradeId={}, userId={}, symbol={}, amount={}",
+                    leg.tradeId, leg.userId, leg.symbol, amount);
+                continue;
+            }
+            SettledTrade row = new SettledTrade();
+            row.tradeId = leg.tradeId;
+            row.userId = leg.userId;
+            row.currency = leg.currency;
+            row.tradeType = leg.tradeType;
+            row.amount = amount;
+            row.status = status;
+            row.symbol = leg.symbol;
+            row.quantity = leg.quantity;
+            row.totalAmount = leg.totalAmount;
+            row.settledAt = now;
+            settled.add(row);
+        }
+        SettledTrade.persist(settled);
+        storePositions(changed);
+
+        Map<Account, BigDecimal> balances = new LinkedHashMap<>();
+        net.forEach((account, amount) -> {
+            if (amount.signum() > 0) {
+                walletService.getOrCreateBalance(account.userId, account.currency);
+                ledger.credit(account.userId, account.currency, amount, LedgerEntry.Type.TRADE_SETTLEMENT, null);
+                balances.put(account, null);
+            }
+        });
+        if (!balances.isEmpty()) {
+            Map<UUID, List<WalletBalance>> views =
+                ledger.viewsByUser(balances.keySet().stream().map(Account::userId).distinct().toList());
+            views.values().stream().flatMap(List::stream)
+                .filter(view -> balances.containsKey(new Account(view.userId, view.currency)))
+                .forEach(view -> balances.put(new Account(view.userId, view.currency), view.balance));
+        }
+        return new Settlement(count, balances);
+    }
+
+    // Every position of the given users, locked until the settlement commits
+    @SuppressWarnings("unchecked")
+    private static Map<Position, BigDecimal> lockPositions(List<UUID> userIds) {
+        List<Object[]> rows = SettledTrade.getEntityManager()
+            .createNativeQuery("SELECT user_id, symbol, quantity FROM wallet_positions WHERE user_id IN (?1) FOR UPDATE")
+            .setParameter(1, userIds)
+            .getResultList();
+        Map<Position, BigDecimal> positions = new HashMap<>();
+        for (Object[] row : rows) {
+            UUID userId = row[0] instanceof UUID id ? id : UUID.fromString(row[0].toString());
+            positions.put(new Position(userId, (String) row[1]), (BigDecimal) row[2]);
+        }
+        return positions;
+    }
+
+    private static void storePositions(Map<Position, BigDecimal> positions) {
+        EntityManager em = SettledTrade.getEntityManager();
+        positions.forEach((position, quantity) -> em.createNativeQuery("""
+                INSERT INTO wallet_positions (user_id, symbol, quantity) VALUES (?1, ?2, ?3)
+                ON CONFLICT (user_id, symbol) DO UPDATE SET quantity = EXCLUDED.quantity""")
+            .setParameter(1, position.userId)
+            .setParameter(2, position.symbol)
+            .setParameter(3, quantity)
+            .executeUpdate());
+    }
+
+    // A trade to settle: newly received, or an UNCOVERED sell (row) to settle again
+    private record Leg(UUID tradeId, UUID userId, String symbol, Currency currency, TradeType tradeType,
+                       BigDecimal quantity, BigDecimal totalAmount, SettledTrade row) {
+        static Leg of(TradeCompletedEvent trade) {
+            return new Leg(trade.getTradeId(), trade.getUserId(), trade.getSymbol(), trade.getCurrency(),
+                trade.getTradeType(), trade.getQuantity(), trade.getTotalAmount(), null);
+        }
+
+        static Leg of(SettledTrade row) {
+            return new Leg(row.tradeId, row.userId, row.symbol, row.currency, row.tradeType, row.quantity,
+                row.totalAmount, row);
+        }
+    }
+
+    private record Account(UUID userId, Currency currency) {}
+
+    private record Position(UUID userId, String symbol) {}
+
+    // Balance after settlement of every account that received a settlement entry
+    private record Settlement(int settled, Map<Account, BigDecimal> balances) {}
+}
@@ -0,0 +1,352 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import com.trading.platform.wallet.entity.LedgerEntry;
+import com.trading.platform.wallet.entity.WalletBalance;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps wallet_ledger as the source of truth and wallet_balances as its projection.
+ * Every balance change is a single INSERT; the projector folds finished entries into
+ * wallet_balances in batches, so a hot account costs one row update per batch instead of
+ * one per operation. The available balance is the projection plus the account's entries
+ * the projector has not reached yet, read in one statement so it is never torn.
+ * <p>
+ * Progress is kept on the entries themselves: the projector marks each entry it folds in
+ * as projected, in the same statement. An entry only becomes visible to it once its
+ * transaction commits, so entries committed out of order are never skipped, and the
+ * projector waits on nothing but the wallet's own committed entries.
+ * <p>
+ * A hot account has several balance rows (shards, see HotAccounts), each with its own
+ * entries and version. Its balance is the sum of its shards; a debit is taken from one
+ * shard when one covers it and drawn across shards otherwise.
+ */
+@ApplicationScoped
+public class WalletLedger {
+    private static final Logger LOG = LoggerFactory.getLogger(WalletLedger.class);
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Package-private so ReactiveWalletLedger reads balances with exactly this statement
+    static final String AVAILABLE_FROM = """
+        SELECT b.id, b.version, b.balance + COALESCE((
+            SELECT SUM(l.amount) FROM wallet_ledger l
+            WHERE l.user_id = b.user_id AND l.currency = b.currency AND l.shard = b.shard
+              AND NOT l.projected), 0),
+            b.user_id, b.currency, b.updated_at, b.shard
+        FROM wallet_balances b""";
+
+    private static final String AVAILABLE = AVAILABLE_FROM + " WHERE b.user_id IN (?1)";
+
+    static final String BY_SHARD = " ORDER BY b.user_id, b.currency, b.shard";
+
+    // Marks every committed entry not projected yet and folds them into their balance rows
+    private static final String PROJECT = """
+        WITH folded AS (
+            UPDATE wallet_ledger SET projected = TRUE
+            WHERE NOT projected
+            RETURNING user_id, currency, shard, amount)
+        INSERT INTO wallet_balances (id, user_id, currency, shard, balance, updated_at, version)
+        SELECT gen_random_uuid(), user_id, currency, shard, SUM(amount), NOW(), 0
+        FROM folded
+        GROUP BY user_id, currency, shard
+        ON CONFLICT (user_id, currency, shard) DO UPDATE
+        SET balance = wallet_balances.balance + EXCLUDED.balance,
+            updated_at = EXCLUDED.updated_at,
+            version = wallet_balances.version + 1""";
+
+    private static final String LOCK_PROJECTION = "SELECT id FROM wallet_ledger_projection WHERE id = 1 FOR UPDATE";
+
+    @Inject
+    Event<BalanceChanged> balanceChanged;
+
+    @Inject
+    HotAccounts hotAccounts;
+
+    @ConfigProperty(name = "wallet.ledger.partitions-ahead")
+    int partitionsAhead;
+
+    @ConfigProperty(name = "wallet.ledger.rebuild-on-start")
+    boolean rebuildOnStart;
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            ensurePartitions();
+        } catch (Exception e) {
+            // Entries still land in the default partition
+            LOG.warn("Failed to create ledger partitions: {}", e.getMessage());
+        }
+        if (rebuildOnStart) {
+            rebuild();
+        }
+    }
+
+    public void credit(UUID userId, Currency currency, BigDecimal amount, LedgerEntry.Type type, UUID referenceId) {
+        append(userId, currency, hotAccounts.pickShard(userId, currency), amount, type, referenceId);
+    }
+
+    /**
+     * Appends a debit if the available balance covers it. Two debits may not both pass the
+     * check on the same state, so the version of every balance row drawn from is bumped
+     * conditionally; the loser gets an OptimisticLockException and WalletMutations retries
+     * it. Credits need no such guard because they can only make the check pass more easily.
+     */
+    public void debit(UUID userId, Currency currency, BigDecimal amount, LedgerEntry.Type type, UUID referenceId) {
+        List<Draw> draws = plan(shards(userId, currency), amount);
+        if (draws.isEmpty()) {
+            throw new InsufficientFundsException();
+        }
+        for (Draw draw : draws) {
+            draw(userId, currency, draw.shard, draw.amount, type, referenceId);
+        }
+    }
+
+    /**
+     * How a debit is split over an account's shards: a single shard if one covers the amount,
+     * otherwise as many as needed. Empty if all of them together do not cover it.
+     */
+    static List<Draw> plan(List<Available> shards, BigDecimal amount) {
+        BigDecimal total = shards.stream().map(Available::balance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (shards.isEmpty() || total.compareTo(amount) < 0) {
+            return List.of();
+        }
+        // A random starting shard keeps concurrent debits of a hot account on different rows
+        int start = shards.size() == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            Available shard = shards.get((start + i) % shards.size());
+            if (shard.balance.compareTo(amount) >= 0) {
+                return List.of(new Draw(shard, amount));
+            }
+        }
+        List<Draw> draws = new ArrayList<>();
+        BigDecimal remaining = amount;
+        for (int i = 0; i < shards.size() && remaining.signum() > 0; i++) {
+            Available shard = shards.get((start + i) % shards.size());
+            if (shard.balance.signum() > 0) {
+                BigDecimal taken = shard.balance.min(remaining);
+                draws.add(new Draw(shard, taken));
+                remaining = remaining.subtract(taken);
+            }
+        }
+        return draws;
+    }
+
+    /**
+     * The account's primary projection row with the balance of all its shards, not yet
+     * projected entries included; detached so the adjusted balance is never written back.
+     */
+    public WalletBalance view(UUID userId, Currency currency) {
+        return WalletBalance.findByUserAndCurrency(userId, currency)
+            .map(balance -> withAvailable(balance, shards(userId, currency)))
+            .orElse(null);
+    }
+
+    /**
+     * Balances of many users in one query, as unmanaged WalletBalance instances (one per
+     * account, shards summed); users without any balance are absent from the map.
+     */
+    public Map<UUID, List<WalletBalance>> viewsByUser(Collection<UUID> userIds) {
+        Map<UUID, List<WalletBalance>> views = new HashMap<>();
+        WalletBalance view = null;
+        for (Object[] row : rows(AVAILABLE + BY_SHARD, userIds)) {
+            Available available = toAvailable(row);
+            // Rows come ordered by shard, so the primary row opens each account
+            if (available.shard == 0) {
+                view = new WalletBalance();
+                view.id = available.balanceId;
+                view.version = available.version;
+                view.balance = available.balance;
+                view.userId = toUuid(row[3]);
+                view.currency = Currency.valueOf(row[4].toString());
+                view.updatedAt = toInstant(row[5]);
+                views.computeIfAbsent(view.userId, id -> new ArrayList<>()).add(view);
+            } else if (view != null) {
+                view.balance = view.balance.add(available.balance);
+                Instant updatedAt = toInstant(row[5]);
+                if (updatedAt != null && (view.updatedAt == null || updatedAt.isAfter(view.updatedAt))) {
+                    view.updatedAt = updatedAt;
+                }
+            }
+        }
+        return views;
+    }
+
+    /**
+     * Available balance per primary wallet_balances id for every account of the given users.
+     */
+    public Map<UUID, BigDecimal> availableByBalanceId(Collection<UUID> userIds) {
+        Map<UUID, BigDecimal> available = new HashMap<>();
+        viewsByUser(userIds).values().forEach(views -> views.forEach(view -> available.put(view.id, view.balance)));
+        return available;
+    }
+
+    @Scheduled(every = "${wallet.ledger.projection-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void projectScheduled() {
+        try {
+            project();
+        } catch (Exception e) {
+            LOG.warn("Ledger projection failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Folds every committed entry not projected yet into wallet_balances.
+     *
+     * @return the number of balances updated
+     */
+    @Transactional
+    public int project() {
+        EntityManager em = LedgerEntry.getEntityManager();
+        // Locking the projection row keeps projectors on other instances and rebuild() out
+        em.createNativeQuery(LOCK_PROJECTION).getSingleResult();
+        int updated = em.createNativeQuery(PROJECT).executeUpdate();
+        if (updated > 0) {
+            LOG.debug("Projected ledger into {} balances", updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Recomputes every balance from the full ledger.
+     */
+    @Transactional
+    public void rebuild() {
+        EntityManager em = LedgerEntry.getEntityManager();
+        em.createNativeQuery(LOCK_PROJECTION).getSingleResult();
+        em.createNativeQuery("UPDATE wallet_ledger SET projected = TRUE WHERE NOT projected").executeUpdate();
+        int rebuilt = em.createNativeQuery("""
+                INSERT INTO wallet_balances (id, user_id, currency, shard, balance, updated_at, version)
+                SELECT gen_random_uuid(), user_id, currency, shard, SUM(amount), NOW(), 0
+                FROM wallet_ledger
+                WHERE projected
+                GROUP BY user_id, currency, shard
+                ON CONFLICT (user_id, currency, shard) DO UPDATE
+                SET balance = EXCLUDED.balance,
+                    updated_at = EXCLUDED.updated_at,
+                    version = wallet_balances.version + 1""")
+            .executeUpdate();
+        em.createNativeQuery("""
+                UPDATE wallet_balances b SET balance = 0, updated_at = NOW(), version = b.version + 1
+                WHERE NOT EXISTS (SELECT 1 FROM wallet_ledger l
+                                  WHERE l.user_id = b.user_id AND l.currency = b.currency AND l.shard = b.shard
+                                    AND l.projected)""")
+            .executeUpdate();
+        LOG.info("Rebuilt {} balances from the ledger", rebuilt);
+    }
+
+    // Creates this month's and the next partitionsAhead monthly partitions if missing
+    @Scheduled(cron = "0 0 3 * * ?")
+    @Transactional
+    void ensurePartitions() {
+        EntityManager em = LedgerEntry.getEntityManager();
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= partitionsAhead; i++, month = month.plusMonths(1)) {
+            em.createNativeQuery("CREATE TABLE IF NOT EXISTS wallet_ledger_" + month.format(PARTITION_SUFFIX)
+                + " PARTITION OF wallet_ledger FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')")
+                .executeUpdate();
+        }
+    }
+
+    private void draw(UUID userId, Currency currency, Available shard, BigDecimal amount,
+                      LedgerEntry.Type type, UUID referenceId) {
+        int bumped = WalletBalance.update("version = version + 1 where id = ?1 and version = ?2",
+            shard.balanceId, shard.version);
+        if (bumped == 0) {
+            throw new OptimisticLockException("Balance changed concurrently: userId=" + userId + ", currency=" + currency);
+        }
+        append(userId, currency, shard.shard, amount.negate(), type, referenceId);
+    }
+
+    private void append(UUID userId, Currency currency, int shard, BigDecimal amount,
+                        LedgerEntry.Type type, UUID referenceId) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.userId = userId;
+        entry.currency = currency;
+        entry.shard = shard;
+        entry.amount = amount;
+        entry.type = type;
+        entry.referenceId = referenceId;
+        entry.createdAt = Instant.now();
+        entry.persist();
+        hotAccounts.record(userId, currency);
+        balanceChanged.fire(new BalanceChanged(userId));
+    }
+
+    private List<Available> shards(UUID userId, Currency currency) {
+        return rows(AVAILABLE + " AND b.currency = ?2" + BY_SHARD, userId, currency.name()).stream()
+            .map(WalletLedger::toAvailable)
+            .toList();
+    }
+
+    // Flushes first so entries appended earlier in this transaction are counted
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> rows(String sql, Object... parameters) {
+        EntityManager em = LedgerEntry.getEntityManager();
+        if (em.isJoinedToTransaction()) {
+            em.flush();
+        }
+        var query = em.createNativeQuery(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+        return query.getResultList();
+    }
+
+    private static Available toAvailable(Object[] row) {
+        return new Available(toUuid(row[0]), ((Number) row[1]).longValue(), (BigDecimal) row[2],
+            ((Number) row[6]).intValue());
+    }
+
+    private static UUID toUuid(Object value) {
+        return value instanceof UUID id ? id : UUID.fromString(value.toString());
+    }
+
+    private static Instant toInstant(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant();
+        }
+        return value instanceof LocalDateTime local ? local.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    private static WalletBalance withAvailable(WalletBalance balance, List<Available> shards) {
+        WalletBalance.getEntityManager().detach(balance);
+        if (!shards.isEmpty()) {
+            balance.balance = shards.stream().map(Available::balance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+        return balance;
+    }
+
+    /**
+     * Fired for every appended entry; transactional observers see it once the entry is committed.
+     */
+    public record BalanceChanged(UUID userId) {}
+
+    // One balance row (shard) of an account with its available balance
+    record Available(UUID balanceId, long version, BigDecimal balance, int shard) {}
+
+    record Draw(Available shard, BigDecimal amount) {}
+}
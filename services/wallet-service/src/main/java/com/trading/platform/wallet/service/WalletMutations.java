@@ -0,0 +1,162 @@
+package com.trading.platform.wallet.service;
+
+import com.trading.platform.domain.Currency;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance mutations per (userId, currency).
+ * Every account hashes to one of a fixed set of single-thread stripes, so read-modify-write
+ * cycles on the same balance never interleave inside this instance while unrelated accounts
+ * run in parallel. Each mutation runs in its own transaction; conflicts the stripes cannot
+ * see (other instances, projection batches) surface as a version mismatch on
+ * wallet_balances and the mutation is retried from a fresh read.
+ * <p>
+ * A hot account is not pinned to one stripe: each of its mutations runs on the stripe of a
+ * random shard, and the shard rows' own versions keep concurrent debits correct.
+ */
+@ApplicationScoped
+public class WalletMutations {
+    private static final Logger LOG = LoggerFactory.getLogger(WalletMutations.class);
+
+    @Inject
+    HotAccounts hotAccounts;
+
+    @ConfigProperty(name = "wallet.mutation.stripes")
+    int stripeCount;
+
+    @ConfigProperty(name = "wallet.mutation.max-attempts")
+    int maxAttempts;
+
+    @ConfigProperty(name = "wallet.mutation.timeout")
+    Duration timeout;
+
+    private ExecutorService[] stripes;
+
+    @PostConstruct
+    void init() {
+        stripes = new ExecutorService[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            int index = i;
+            stripes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "wallet-stripe-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs the mutation in a new transaction on the account's stripe and waits for it.
+     * The mutation may run more than once, so it must not have side effects outside the
+     * transaction; publish events from the caller after this returns.
+     * <p>
+     * The timeout only bounds the wait for the stripe: a mutation that has not started by
+     * then is withdrawn and reported as busy, so it never runs. One that has started may
+     * commit, so the caller waits for its outcome instead of reporting a failure.
+     */
+    public <T> T execute(UUID userId, Currency currency, Supplier<T> mutation) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        stripeFor(userId, currency).execute(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(runWithRetry(userId, currency, mutation));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            if (claimed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Wallet is busy, try again later");
+            }
+            LOG.debug("Wallet update outlasted the wait but is running, waiting for it: userId={}, currency={}",
+                userId, currency);
+            return awaitStarted(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for wallet update");
+        }
+    }
+
+    // The transaction timeout bounds how long a started mutation can take
+    private static <T> T awaitStarted(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for wallet update");
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        return e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+    }
+
+    private <T> T runWithRetry(UUID userId, Currency currency, Supplier<T> mutation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return QuarkusTransaction.requiringNew().call(mutation::get);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isConflict(e)) {
+                    throw e;
+                }
+                LOG.debug("Wallet update conflict, retrying: userId={}, currency={}, attempt={}",
+                    userId, currency, attempt);
+            }
+        }
+    }
+
+    // A stale version, or another instance creating the same balance row first
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException
+                || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ExecutorService stripeFor(UUID userId, Currency currency) {
+        int hash = hotAccounts.isHot(userId, currency)
+            ? Objects.hash(userId, currency, hotAccounts.pickShard(userId, currency))
+            : Objects.hash(userId, currency);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+    }
+}
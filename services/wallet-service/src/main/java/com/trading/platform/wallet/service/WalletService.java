@@ -3,18 +3,25 @@ package com.trading.platform.wallet.service;
 import com.trading.platform.domain.Currency;
 import com.trading.platform.domain.MoneyCalculator;
 import com.trading.platform.events.*;
+import com.trading.platform.wallet.entity.LedgerEntry;
 import com.trading.platform.wallet.entity.WalletBalance;
+import com.trading.platform.wallet.entity.WalletReservation;
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.smallrye.reactive.messaging.MutinyEmitter;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
 @ApplicationScoped
@@ -22,26 +29,54 @@ public class WalletService {
     private static final Logger LOG = LoggerFactory.getLogger(WalletService.class);
 
     @Inject
-    @RestClient
-    ExchangeRateClient exchangeRateClient;
+    LocalRateTable rateTable;
 
     @Inject
-    @RestClient
-    FeeClient feeClient;
+    LocalFeeSchedule feeSchedule;
+
+    @Inject
+    QuoteStore quoteStore;
 
     @org.eclipse.microprofile.reactive.messaging.Channel("wallet-events-out")
     MutinyEmitter<BaseEvent> walletEventsEmitter;
 
-    @Transactional
+    @ConfigProperty(name = "wallet.reservation.ttl")
+    Duration reservationTtl;
+
+    @ConfigProperty(name = "wallet.reservation.max-ttl")
+    Duration maxReservationTtl;
+
+    @Inject
+    WalletMutations mutations;
+
+    @Inject
+    WalletLedger ledger;
+
+    @Inject
+    DepositBatcher depositBatcher;
+
+    @Inject
+    BalanceCache balanceCache;
+
+    @ConfigProperty(name = "wallet.deposit.group-commit.enabled")
+    boolean groupCommitDeposits;
+
     public WalletBalance deposit(UUID userId, Currency currency, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
+        return groupCommitDeposits
+            ? depositBatcher.deposit(userId, currency, amount)
+            : depositNow(userId, currency, amount);
+    }
 
-        WalletBalance balance = getOrCreateBalance(userId, currency);
-        balance.balance = balance.balance.add(amount);
-        balance.updatedAt = Instant.now();
-        balance.persist();
+    // A deposit in its own transaction; also the fallback for a group commit that failed
+    WalletBalance depositNow(UUID userId, Currency currency, BigDecimal amount) {
+        WalletBalance balance = mutations.execute(userId, currency, () -> {
+            getOrCreateBalance(userId, currency);
+            ledger.credit(userId, currency, amount, LedgerEntry.Type.DEPOSIT, null);
+            return ledger.view(userId, currency);
+        });
 
         LOG.info("Deposit: userId={}, currency={}, amount={}, newBalance={}",
             userId, currency, amount, balance.balance);
@@ -52,22 +87,15 @@ public class WalletService {
         return balance;
     }
 
-    @Transactional
     public WalletBalance withdraw(UUID userId, Currency currency, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
 
-        WalletBalance balance = WalletBalance.findByUserAndCurrency(userId, currency)
-            .orElseThrow(() -> new IllegalStateException("Insufficient funds"));
-
-        if (balance.balance.compareTo(amount) < 0) {
-            throw new IllegalStateException("Insufficient funds");
-        }
-
-        balance.balance = balance.balance.subtract(amount);
-        balance.updatedAt = Instant.now();
-        balance.persist();
+        WalletBalance balance = mutations.execute(userId, currency, () -> {
+            ledger.debit(userId, currency, amount, LedgerEntry.Type.WITHDRAWAL, null);
+            return ledger.view(userId, currency);
+        });
 
         LOG.info("Withdrawal: userId={}, currency={}, amount={}, newBalance={}",
             userId, currency, amount, balance.balance);
@@ -78,39 +106,65 @@ public class WalletService {
         return balance;
     }
 
-    @Transactional
     public ExchangeResult exchange(UUID userId, Currency fromCurrency, Currency toCurrency, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
 
-        // Get exchange rate
-        BigDecimal rate = exchangeRateClient.getRate(fromCurrency, toCurrency).rate;
-
-        // Calculate fee
-        BigDecimal fee = feeClient.getExchangeFee(fromCurrency, toCurrency, amount).fee;
+        // Get exchange rate and fee from the local tables
+        BigDecimal rate = rateTable.rate(fromCurrency, toCurrency);
+        BigDecimal fee = feeSchedule.exchangeFee(fromCurrency, toCurrency, amount);
 
         // Calculate amounts
         BigDecimal amountAfterFee = amount.subtract(fee);
         BigDecimal convertedAmount = MoneyCalculator.convert(amountAfterFee, rate);
 
-        // Deduct from source currency
-        WalletBalance fromBalance = WalletBalance.findByUserAndCurrency(userId, fromCurrency)
-            .orElseThrow(() -> new IllegalStateException("Insufficient funds"));
+        return applyExchange(userId, fromCurrency, toCurrency, amount, convertedAmount, rate, fee);
+    }
 
-        if (fromBalance.balance.compareTo(amount) < 0) {
-            throw new IllegalStateException("Insufficient funds");
+    /**
+     * Pins the current rate and fee for wallet.exchange.quote-ttl; nothing is debited yet.
+     */
+    public QuoteStore.Quote quoteExchange(UUID userId, Currency fromCurrency, Currency toCurrency, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
         }
+        BigDecimal rate = rateTable.rate(fromCurrency, toCurrency);
+        BigDecimal fee = feeSchedule.exchangeFee(fromCurrency, toCurrency, amount);
+        BigDecimal convertedAmount = MoneyCalculator.convert(amount.subtract(fee), rate);
+        QuoteStore.Quote quote = quoteStore.create(userId, fromCurrency, toCurrency, amount, rate, fee, convertedAmount);
+        LOG.info("Exchange quoted: quoteId={}, userId={}, {} {} -> {} {} (rate={}, fee={})",
+            quote.quoteId, userId, fromCurrency, amount, toCurrency, convertedAmount, rate, fee);
+        return quote;
+    }
 
-        fromBalance.balance = fromBalance.balance.subtract(amount);
-        fromBalance.updatedAt = Instant.now();
-        fromBalance.persist();
+    // Applies exactly the quoted amounts; a quote refused for insufficient funds stays usable until it expires.
+    // Any other failure consumes it: the exchange may have been applied, so it must not run twice.
+    public ExchangeResult executeQuote(UUID userId, UUID quoteId) {
+        QuoteStore.Quote quote = quoteStore.take(userId, quoteId);
+        try {
+            return applyExchange(userId, quote.fromCurrency, quote.toCurrency, quote.amount, quote.convertedAmount,
+                quote.rate, quote.fee);
+        } catch (InsufficientFundsException e) {
+            quoteStore.restore(quote);
+            throw e;
+        }
+    }
 
-        // Add to target currency
-        WalletBalance toBalance = getOrCreateBalance(userId, toCurrency);
-        toBalance.balance = toBalance.balance.add(convertedAmount);
-        toBalance.updatedAt = Instant.now();
-        toBalance.persist();
+    // Runs on the stripe of the debited account; the credit needs no serialization
+    private ExchangeResult applyExchange(UUID userId, Currency fromCurrency, Currency toCurrency, BigDecimal amount,
+                                         BigDecimal convertedAmount, BigDecimal rate, BigDecimal fee) {
+        Balances balances = mutations.execute(userId, fromCurrency, () -> {
+            // Deduct from source currency
+            ledger.debit(userId, fromCurrency, amount, LedgerEntry.Type.EXCHANGE_OUT, null);
+
+            // Add to target currency
+            getOrCreateBalance(userId, toCurrency);
+            ledger.credit(userId, toCurrency, convertedAmount, LedgerEntry.Type.EXCHANGE_IN, null);
+            return new Balances(ledger.view(userId, fromCurrency), ledger.view(userId, toCurrency));
+        });
+        WalletBalance fromBalance = balances.from();
+        WalletBalance toBalance = balances.to();
 
         LOG.info("Exchange: userId={}, {} {} -> {} {} (rate={}, fee={})",
             userId, fromCurrency, amount, toCurrency, convertedAmount, rate, fee);
@@ -122,16 +176,137 @@ public class WalletService {
         return new ExchangeResult(fromBalance, toBalance, convertedAmount, rate, fee);
     }
 
+    /**
+     * Validates and debits funds as one ledger entry. The debit is kept by
+     * commitReservation and undone by releaseReservation or by expiry.
+     */
+    public WalletReservation reserve(UUID userId, Currency currency, BigDecimal amount) {
+        return reserve(userId, currency, amount, reservationTtl);
+    }
+
+    // Long-lived holds (resting limit orders) ask for their own TTL, capped by wallet.reservation.max-ttl
+    public WalletReservation reserve(UUID userId, Currency currency, BigDecimal amount, Duration ttl) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxReservationTtl) > 0) {
+            throw new IllegalArgumentException("Reservation TTL must be positive and at most " + maxReservationTtl);
+        }
+
+        WalletReservation reservation = mutations.execute(userId, currency, () -> {
+            WalletReservation created = new WalletReservation();
+            created.userId = userId;
+            created.currency = currency;
+            created.amount = amount;
+            created.status = WalletReservation.Status.RESERVED;
+            created.createdAt = Instant.now();
+            created.expiresAt = created.createdAt.plus(ttl);
+            created.persist();
+            ledger.debit(userId, currency, amount, LedgerEntry.Type.RESERVATION, created.id);
+            return created;
+        });
+
+        LOG.info("Reserved: reservationId={}, userId={}, currency={}, amount={}",
+            reservation.id, userId, currency, amount);
+
+        return reservation;
+    }
+
+    // Idempotent: committing an already committed reservation is a no-op
+    @Transactional
+    public WalletReservation commitReservation(UUID userId, UUID reservationId) {
+        return commitReservation(userId, reservationId, null);
+    }
+
+    /**
+     * Commits only part of the reservation when amount is given (e.g. a partially filled
+     * limit order); the rest is credited back and the reservation keeps the committed amount.
+     */
+    @Transactional
+    public WalletReservation commitReservation(UUID userId, UUID reservationId, BigDecimal amount) {
+        WalletReservation reservation = findReservation(userId, reservationId);
+        if (amount != null && (amount.compareTo(BigDecimal.ZERO) < 0 || amount.compareTo(reservation.amount) > 0)) {
+            throw new IllegalArgumentException("Commit amount must be between 0 and the reserved amount");
+        }
+        if (WalletReservation.transition(reservationId, WalletReservation.Status.COMMITTED)) {
+            if (amount != null && amount.compareTo(reservation.amount) < 0) {
+                ledger.credit(reservation.userId, reservation.currency, reservation.amount.subtract(amount),
+                    LedgerEntry.Type.RESERVATION_CREDIT, reservationId);
+                WalletReservation.update("amount = ?1 where id = ?2", amount, reservationId);
+            }
+            LOG.info("Reservation committed: reservationId={}, userId={}, amount={}",
+                reservationId, userId, amount != null ? amount : reservation.amount);
+        } else if (reservation.status != WalletReservation.Status.COMMITTED) {
+            throw new IllegalStateException("Reservation is " + reservation.status);
+        }
+        WalletReservation.getEntityManager().refresh(reservation);
+        return reservation;
+    }
+
+    // Idempotent: releasing an already released reservation is a no-op
+    @Transactional
+    public WalletReservation releaseReservation(UUID userId, UUID reservationId) {
+        WalletReservation reservation = findReservation(userId, reservationId);
+        if (WalletReservation.transition(reservationId, WalletReservation.Status.RELEASED)) {
+            ledger.credit(reservation.userId, reservation.currency, reservation.amount,
+                LedgerEntry.Type.RESERVATION_CREDIT, reservationId);
+            LOG.info("Reservation released: reservationId={}, userId={}, amount={}",
+                reservationId, userId, reservation.amount);
+        } else if (reservation.status != WalletReservation.Status.RELEASED) {
+            throw new IllegalStateException("Reservation is " + reservation.status);
+        }
+        WalletReservation.getEntityManager().refresh(reservation);
+        return reservation;
+    }
+
+    @Scheduled(every = "${wallet.reservation.expiry-check-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void releaseExpiredReservations() {
+        for (WalletReservation reservation : WalletReservation.findExpired(Instant.now(), 500)) {
+            try {
+                releaseReservation(reservation.userId, reservation.id);
+                LOG.warn("Released expired reservation: reservationId={}, userId={}", reservation.id, reservation.userId);
+            } catch (IllegalStateException e) {
+                // Committed or released concurrently
+            }
+        }
+    }
+
+    private WalletReservation findReservation(UUID userId, UUID reservationId) {
+        return WalletReservation.<WalletReservation>findByIdOptional(reservationId)
+            .filter(reservation -> reservation.userId.equals(userId))
+            .orElseThrow(() -> new NoSuchElementException("Reservation not found"));
+    }
+
     public List<WalletBalance> getBalances(UUID userId) {
-        return WalletBalance.findByUser(userId);
+        return balanceCache.balances(userId);
+    }
+
+    public Map<UUID, List<WalletBalance>> getBalances(Collection<UUID> userIds) {
+        return balanceCache.balances(userIds);
     }
 
     public BigDecimal getBalance(UUID userId, Currency currency) {
-        return WalletBalance.findByUserAndCurrency(userId, currency)
-            .map(b -> b.balance)
+        return balanceCache.balances(userId).stream()
+            .filter(balance -> balance.currency == currency)
+            .map(balance -> balance.balance)
+            .findFirst()
             .orElse(BigDecimal.ZERO);
     }
 
+    /**
+     * One page of the account's ledger, oldest first; after is the id of the last entry of
+     * the previous page, or null for the first page.
+     */
+    public List<LedgerEntry> getLedger(UUID userId, Currency currency, UUID after, int limit) {
+        LedgerEntry last = null;
+        if (after != null) {
+            last = LedgerEntry.<LedgerEntry>findByIdOptional(after)
+                .filter(entry -> entry.userId.equals(userId) && entry.currency == currency)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown ledger entry: " + after));
+        }
+        return LedgerEntry.findByAccount(userId, currency, last, limit);
+    }
+
     @Transactional
     WalletBalance getOrCreateBalance(UUID userId, Currency currency) {
         return WalletBalance.findByUserAndCurrency(userId, currency)
@@ -147,19 +322,27 @@ public class WalletService {
     }
 
     private void publishDepositEvent(UUID userId, Currency currency, BigDecimal amount) {
+        walletEventsEmitter.sendAndAwait(depositEvent(userId, currency, amount));
+    }
+
+    static DepositCompletedEvent depositEvent(UUID userId, Currency currency, BigDecimal amount) {
         DepositCompletedEvent event = new DepositCompletedEvent();
         event.setUserId(userId);
         event.setCurrency(currency);
         event.setAmount(amount);
-        walletEventsEmitter.sendAndAwait(event);
+        return event;
     }
 
     private void publishWithdrawalEvent(UUID userId, Currency currency, BigDecimal amount) {
+        walletEventsEmitter.sendAndAwait(withdrawalEvent(userId, currency, amount));
+    }
+
+    static WithdrawalCompletedEvent withdrawalEvent(UUID userId, Currency currency, BigDecimal amount) {
         WithdrawalCompletedEvent event = new WithdrawalCompletedEvent();
         event.setUserId(userId);
         event.setCurrency(currency);
         event.setAmount(amount);
-        walletEventsEmitter.sendAndAwait(event);
+        return event;
     }
 
     private void publishCurrencyExchangedEvent(UUID userId, Currency from, Currency to,
@@ -177,13 +360,19 @@ public class WalletService {
     }
 
     private void publishWalletUpdatedEvent(UUID userId, Currency currency, BigDecimal newBalance) {
+        walletEventsEmitter.sendAndAwait(walletUpdatedEvent(userId, currency, newBalance));
+    }
+
+    static WalletUpdatedEvent walletUpdatedEvent(UUID userId, Currency currency, BigDecimal newBalance) {
         WalletUpdatedEvent event = new WalletUpdatedEvent();
         event.setUserId(userId);
         event.setCurrency(currency);
         event.setNewBalance(newBalance);
-        walletEventsEmitter.sendAndAwait(event);
+        return event;
     }
 
+    private record Balances(WalletBalance from, WalletBalance to) {}
+
     public static class ExchangeResult {
         public WalletBalance fromBalance;
         public WalletBalance toBalance;
@@ -0,0 +1,13 @@
+CREATE TABLE wallet_reservations (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    expires_at TIMESTAMP NOT NULL,
+    settled_at TIMESTAMP
+);
+
+CREATE INDEX idx_reservations_user ON wallet_reservations(user_id);
+CREATE INDEX idx_reservations_expiry ON wallet_reservations(expires_at) WHERE status = 'RESERVED';
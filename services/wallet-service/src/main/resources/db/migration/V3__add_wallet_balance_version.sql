@@ -0,0 +1 @@
+ALTER TABLE wallet_balances ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,45 @@
+-- Insert-only source of truth for balances; wallet_balances becomes a projection of it.
+-- The projector marks the entries it has folded into wallet_balances as projected.
+CREATE TABLE wallet_ledger (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    entry_type VARCHAR(30) NOT NULL,
+    reference_id UUID,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    projected BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Monthly partitions are created ahead by wallet-service; the default one only catches stragglers
+CREATE TABLE wallet_ledger_default PARTITION OF wallet_ledger DEFAULT;
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR i IN 0..1 LOOP
+        month := date_trunc('month', NOW())::date + make_interval(months => i);
+        EXECUTE format('CREATE TABLE wallet_ledger_%s PARTITION OF wallet_ledger FOR VALUES FROM (%L) TO (%L)',
+            to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+    END LOOP;
+END $$;
+
+-- Only the entries the projector has not reached yet are read per account or scanned by the projector
+CREATE INDEX idx_ledger_unprojected ON wallet_ledger(user_id, currency) WHERE NOT projected;
+-- The ledger endpoint pages through an account's entries in (created_at, id) order
+CREATE INDEX idx_ledger_account ON wallet_ledger(user_id, currency, created_at, id);
+
+-- Its single row is locked by the projector, so only one instance projects at a time
+CREATE TABLE wallet_ledger_projection (
+    id INT PRIMARY KEY
+);
+
+-- Existing balances become opening entries that count as already projected
+INSERT INTO wallet_ledger (id, user_id, currency, amount, entry_type, created_at, projected)
+SELECT gen_random_uuid(), user_id, currency, balance, 'OPENING', NOW(), TRUE
+FROM wallet_balances
+WHERE balance <> 0;
+
+INSERT INTO wallet_ledger_projection (id) VALUES (1);
@@ -0,0 +1,11 @@
+-- Trades already applied by the settlement consumer; the primary key makes redelivery a no-op
+CREATE TABLE wallet_settled_trades (
+    trade_id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    trade_type VARCHAR(10) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    settled_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_settled_trades_user ON wallet_settled_trades(user_id, currency);
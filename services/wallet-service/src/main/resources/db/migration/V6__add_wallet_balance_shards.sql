@@ -0,0 +1,9 @@
+-- Hot accounts are split into sub-balances: shard 0 is the account's primary row, further shards
+-- are created by wallet-service when an account's traffic crosses wallet.hot-account.threshold
+ALTER TABLE wallet_balances ADD COLUMN shard SMALLINT NOT NULL DEFAULT 0;
+ALTER TABLE wallet_balances DROP CONSTRAINT unique_user_currency;
+ALTER TABLE wallet_balances ADD CONSTRAINT unique_user_currency_shard UNIQUE (user_id, currency, shard);
+
+ALTER TABLE wallet_ledger ADD COLUMN shard SMALLINT NOT NULL DEFAULT 0;
+DROP INDEX idx_ledger_unprojected;
+CREATE INDEX idx_ledger_unprojected ON wallet_ledger(user_id, currency, shard) WHERE NOT projected;
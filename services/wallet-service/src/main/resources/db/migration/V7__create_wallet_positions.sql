@@ -0,0 +1,18 @@
+-- Shares per user and symbol as seen by trade settlement: settled buys add, covered sells subtract.
+-- Positions start from the trades settled after this migration, so the check that a sell is covered
+-- is off by default (wallet.trade-settlement.check-holdings) until they have been seeded.
+CREATE TABLE wallet_positions (
+    user_id UUID NOT NULL,
+    symbol VARCHAR(10) NOT NULL,
+    quantity DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (user_id, symbol)
+);
+
+-- SETTLED, or UNCOVERED for a sell of more shares than the position held (not credited until it is covered).
+-- The trade's symbol, quantity and total are kept so an UNCOVERED sell can be settled later without its event.
+ALTER TABLE wallet_settled_trades ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'SETTLED';
+ALTER TABLE wallet_settled_trades ADD COLUMN symbol VARCHAR(10);
+ALTER TABLE wallet_settled_trades ADD COLUMN quantity DECIMAL(19, 2);
+ALTER TABLE wallet_settled_trades ADD COLUMN total_amount DECIMAL(19, 2);
+
+CREATE INDEX idx_settled_trades_uncovered ON wallet_settled_trades(settled_at) WHERE status = 'UNCOVERED';
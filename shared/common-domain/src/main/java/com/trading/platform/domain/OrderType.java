@@ -2,5 +2,6 @@ package com.trading.platform.domain;
 
 public enum OrderType {
     BY_AMOUNT,    // User specifies money amount
-    BY_QUANTITY   // User specifies security quantity
+    BY_QUANTITY,  // User specifies security quantity
+    LIMIT         // Rests in the order book until matched at the limit price or better
 }
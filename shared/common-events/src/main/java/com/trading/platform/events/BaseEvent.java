@@ -13,7 +13,9 @@ import java.util.UUID;
     @JsonSubTypes.Type(value = WithdrawalCompletedEvent.class, name = "WithdrawalCompleted"),
     @JsonSubTypes.Type(value = CurrencyExchangedEvent.class, name = "CurrencyExchanged"),
     @JsonSubTypes.Type(value = TradeCompletedEvent.class, name = "TradeCompleted"),
-    @JsonSubTypes.Type(value = TradeFailedEvent.class, name = "TradeFailed")
+    @JsonSubTypes.Type(value = TradeFailedEvent.class, name = "TradeFailed"),
+    @JsonSubTypes.Type(value = PriceUpdatedEvent.class, name = "PriceUpdated"),
+    @JsonSubTypes.Type(value = ExchangeRateUpdatedEvent.class, name = "ExchangeRateUpdated")
 })
 public abstract class BaseEvent {
     private String eventId = UUID.randomUUID().toString();
@@ -0,0 +1,23 @@
+package com.trading.platform.events;
+
+import com.trading.platform.domain.Currency;
+import java.math.BigDecimal;
+
+public class ExchangeRateUpdatedEvent extends BaseEvent {
+    private Currency fromCurrency;
+    private Currency toCurrency;
+    private BigDecimal rate;
+    private long version;
+
+    public ExchangeRateUpdatedEvent() {}
+
+    // Getters and setters
+    public Currency getFromCurrency() { return fromCurrency; }
+    public void setFromCurrency(Currency fromCurrency) { this.fromCurrency = fromCurrency; }
+    public Currency getToCurrency() { return toCurrency; }
+    public void setToCurrency(Currency toCurrency) { this.toCurrency = toCurrency; }
+    public BigDecimal getRate() { return rate; }
+    public void setRate(BigDecimal rate) { this.rate = rate; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
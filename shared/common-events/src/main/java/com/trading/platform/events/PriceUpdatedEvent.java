@@ -0,0 +1,16 @@
+package com.trading.platform.events;
+
+import java.math.BigDecimal;
+
+public class PriceUpdatedEvent extends BaseEvent {
+    private String symbol;
+    private BigDecimal price;
+
+    public PriceUpdatedEvent() {}
+
+    // Getters and setters
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+}